@@ -1,6 +1,21 @@
 package scopeland.libraryapp.apiController;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -9,14 +24,36 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
+import scopeland.libraryapp.cache.CatalogueVersions;
 import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.entities.dtos.BookPageDto;
+import scopeland.libraryapp.entities.dtos.BookSearchCriteriaDto;
+import scopeland.libraryapp.entities.dtos.BulkImportResultDto;
+import scopeland.libraryapp.entities.dtos.CompletionsDto;
+import scopeland.libraryapp.entities.dtos.StatusChangeResultDto;
+import scopeland.libraryapp.entities.dtos.YearFacetsDto;
 import scopeland.libraryapp.enums.BookStatus;
+import scopeland.libraryapp.enums.SearchMode;
+import scopeland.libraryapp.enums.YearBucket;
 import scopeland.libraryapp.exceptions.BookNotFoundException;
+import scopeland.libraryapp.service.BookImportService;
 import scopeland.libraryapp.service.BookService;
+import scopeland.libraryapp.validation.books.IsbnNormaliser;
 import scopeland.libraryapp.validation.books.constraint.IsbnConstraint;
 
 /**
@@ -27,36 +64,217 @@ import scopeland.libraryapp.validation.books.constraint.IsbnConstraint;
 @RequestMapping("/api/books")
 public class BookController {
 
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final int MAX_STATUS_BATCH = 500;
+
     private final BookService bookService;
+    private final BookImportService bookImportService;
+    private final ObjectMapper objectMapper;
+    private final CatalogueVersions catalogueVersions;
+    private final Duration exportTimeout;
 
     /*
      * Constructor with Spring Boot Dependency Injection to access repo
      */
-    BookController(BookService bookService) {
+    BookController(BookService bookService, BookImportService bookImportService, ObjectMapper objectMapper,
+            CatalogueVersions catalogueVersions, @Value("${library.export.timeout:1h}") Duration exportTimeout) {
         this.bookService = bookService;
+        this.bookImportService = bookImportService;
+        this.objectMapper = objectMapper;
+        this.catalogueVersions = catalogueVersions;
+        this.exportTimeout = exportTimeout;
     }
 
     /*
-     * Lists all stored books
+     * Lists all stored books. Tagged with the catalogue version, so a client
+     * sending that tag back in If-None-Match gets a 304 until a book changes.
      * 
      * @return - A list of all Books
      */
     @GetMapping
-    List<Book> listBooks() {
-        return bookService.listBooks();
+    ResponseEntity<List<Book>> listBooks(WebRequest request) {
+        return unlessNotModified(request, catalogueVersions.catalogue(), bookService::listBooks);
+    }
+
+    /*
+     * Lists stored books a page at a time in isbn order, tagged with the
+     * catalogue version like the full list
+     * 
+     * @param cursor - The nextCursor from the previous page, leave out for the
+     * first page
+     * 
+     * @param size - How many books to return, defaults to 50 and is capped at 200
+     * 
+     * @return - A page of books and the cursor to fetch the next page with
+     */
+    @GetMapping("page")
+    ResponseEntity<BookPageDto> listBooksPage(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size, WebRequest request) {
+        return unlessNotModified(request, catalogueVersions.catalogue(),
+                () -> bookService.listBooksPage(cursor, size));
+    }
+
+    /*
+     * Exports the whole catalogue as newline delimited json, one book per line.
+     * Books are written as they are read from the database so memory use does not
+     * depend on the size of the catalogue. The export runs under its own timeout,
+     * library.export.timeout, rather than the app's async request timeout.
+     * 
+     * @param acceptEncoding - If the client accepts gzip the export is compressed
+     * on the fly
+     * 
+     * @param response - The response the books are written to
+     * 
+     * @return - A task that writes every book
+     */
+    @GetMapping(value = "export", produces = NDJSON_VALUE)
+    WebAsyncTask<Void> exportBooks(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        ObjectWriter writer = objectMapper.writerFor(Book.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        response.setContentType(NDJSON_VALUE);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        // Taking the response as an argument marks the request handled, so nothing
+        // more is written once the task returns
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            OutputStream out = gzip ? new GZIPOutputStream(response.getOutputStream(), 8192)
+                    : response.getOutputStream();
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                bookService.exportBooks(book -> {
+                    try {
+                        writer.writeValue(generator, book);
+                        generator.writeRaw('\n');
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+            return null;
+        });
     }
 
     /*
-     * Searches all books by Author
+     * Whether an Accept-Encoding header allows gzip, by name or by *, with a
+     * quality above zero. gzip;q=0 refuses it.
+     * 
+     * @param acceptEncoding - The header, null when it wasn't sent
+     * 
+     * @return - true if the response can be gzipped
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException ex) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzipQuality = quality;
+            } else if (name.equals("*")) {
+                anyQuality = quality;
+            }
+        }
+        return gzipQuality != null ? gzipQuality > 0 : anyQuality != null && anyQuality > 0;
+    }
+
+    /*
+     * Searches on any combination of author, title, publication years and status,
+     * for example available books by an author published 2010 to 2020. Filters
+     * left out are not applied.
+     * 
+     * @param criteria - author (start of the name), title (part of it),
+     * startYear, endYear and status, all optional query parameters
+     * 
+     * @param cursor - The nextCursor from the previous page, leave out for the
+     * first page
+     * 
+     * @param size - How many books to return, defaults to 50 and is capped at 200
+     * 
+     * @return - A page of matching books in isbn order and the cursor to fetch the
+     * next page with
+     */
+    @GetMapping("search")
+    BookPageDto searchBooks(BookSearchCriteriaDto criteria, @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return bookService.searchBooks(criteria, cursor, size);
+    }
+
+    /*
+     * Searches all books by Author, ignoring case
      * 
      * @param value - the value we want to search for
      * 
+     * @param mode - EXACT (default), PREFIX, CONTAINS or FUZZY
+     * 
      * @return - A list of all books matching the search
      */
     @GetMapping("search/author/{value}")
-    List<Book> searchBooksByAuthor(@PathVariable String value) {
+    List<Book> searchBooksByAuthor(@PathVariable String value,
+            @RequestParam(defaultValue = "EXACT") SearchMode mode) {
+        value = value.replace("+", " ");
+        return bookService.searchBooksByAuthor(value, mode);
+    }
+
+    /*
+     * Searches all books by title, tolerating a few typos in each word
+     * 
+     * @param value - words from the title, spaces may be sent as +
+     * 
+     * @return - The books with a title close to the value, closest first, at most
+     * 100
+     */
+    @GetMapping("search/title/fuzzy/{value}")
+    List<Book> searchBooksByTitleFuzzy(@PathVariable String value) {
         value = value.replace("+", " ");
-        return bookService.searchBooksByAuthor(value);
+        return bookService.searchBooksByTitleFuzzy(value);
+    }
+
+    /*
+     * Full text search over book titles and authors
+     * 
+     * @param q - the words to search for, every word must match
+     * 
+     * @param limit - the most results wanted, defaults to 20 and is capped at 100
+     * 
+     * @return - The matching books, best match first
+     */
+    @GetMapping("search/text")
+    List<Book> searchBooksByText(@RequestParam String q, @RequestParam(required = false) Integer limit) {
+        return bookService.searchBooksByText(q, limit);
+    }
+
+    /*
+     * Suggests titles and authors for what has been typed so far
+     * 
+     * @param prefix - the start of a title or author name
+     * 
+     * @param limit - how many of each to suggest, defaults to and is capped at 10
+     * 
+     * @return - The most used matching titles and authors
+     */
+    @GetMapping("autocomplete")
+    CompletionsDto autocomplete(@RequestParam String prefix, @RequestParam(required = false) Integer limit) {
+        return bookService.autocomplete(prefix, limit);
     }
 
     /*
@@ -73,6 +291,28 @@ public class BookController {
         return bookService.searchBooksInYearRange(startYear, endYear);
     }
 
+    /*
+     * Counts books per year or decade of publication
+     * 
+     * @param bucket - YEAR (default) or DECADE
+     * 
+     * @param status - only count books with this status, all books if left out
+     * 
+     * @param startYear - the first year counted, no lower limit if left out
+     * 
+     * @param endYear - the last year counted, no upper limit if left out
+     * 
+     * @return - The count for each bucket holding books, in year order, and the
+     * total
+     */
+    @GetMapping("facets/publicationYear")
+    YearFacetsDto facetByPublicationYear(@RequestParam(defaultValue = "YEAR") YearBucket bucket,
+            @RequestParam(required = false) BookStatus status,
+            @RequestParam(required = false) Integer startYear,
+            @RequestParam(required = false) Integer endYear) {
+        return bookService.facetByPublicationYear(bucket, status, startYear, endYear);
+    }
+
     /*
      * Adds a book to the database
      * 
@@ -86,15 +326,32 @@ public class BookController {
     }
 
     /*
-     * Get a book based on its isbn
+     * Adds many books at once from a JSON array, read as it arrives rather than
+     * held in memory. Books that can't be added are reported and skipped.
+     * 
+     * @param body - A JSON array of books, as sent to addBook
+     * 
+     * @return - IMPORTED, INVALID, ALREADY_EXISTS, DUPLICATE or FAILED for each
+     * book in the order sent, with totals and throughput
+     */
+    @PostMapping(value = "bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    BulkImportResultDto importBooks(InputStream body) throws IOException {
+        return bookImportService.importBooks(body);
+    }
+
+    /*
+     * Get a book based on its isbn. Tagged with the book's own version, so
+     * changes to other books don't make clients download it again.
      * 
      * @param isbn - The isbn that we want to search the database for
      * 
      * @return - The book that was being searched for
      */
     @GetMapping("/{isbn}")
-    Book getByIsbn(@PathVariable @IsbnConstraint String isbn) throws BookNotFoundException {
-        return bookService.getByIsbn(isbn);
+    ResponseEntity<Book> getByIsbn(@PathVariable @IsbnConstraint String isbn, WebRequest request)
+            throws BookNotFoundException {
+        String canonical = IsbnNormaliser.canonical(isbn);
+        return unlessNotModified(request, catalogueVersions.book(canonical), () -> bookService.getByIsbn(canonical));
     }
 
     /*
@@ -110,7 +367,7 @@ public class BookController {
     @PutMapping("/{isbn}")
     Book updateBook(@Valid @RequestBody Book updatedBook, @PathVariable @IsbnConstraint String isbn)
             throws BookNotFoundException {
-        return bookService.updateBook(updatedBook, isbn);
+        return bookService.updateBook(updatedBook, IsbnNormaliser.canonical(isbn));
     }
 
     /*
@@ -125,7 +382,25 @@ public class BookController {
     @PutMapping("/{isbn}/updateStatus/{newStatus}")
     Book updateBookStatus(@PathVariable @IsbnConstraint String isbn, @PathVariable BookStatus newStatus)
             throws Exception {
-        return bookService.updateBookStatus(isbn, newStatus);
+        return bookService.updateBookStatus(IsbnNormaliser.canonical(isbn), newStatus);
+    }
+
+    /*
+     * Update the status of a stack of books at once, such as all those scanned at
+     * the desk, in one transaction
+     * 
+     * @param isbns - The isbns of the books, at most MAX_STATUS_BATCH. Null or
+     * blank entries are NOT_FOUND, and an isbn sent twice gets an outcome each time.
+     * 
+     * @param newStatus - The status we want to update the books with
+     * 
+     * @return - UPDATED, NOT_FOUND, ALREADY_BORROWED or COPIES_HELD for each isbn in
+     * the order sent, with totals
+     */
+    @PutMapping("updateStatus/{newStatus}")
+    StatusChangeResultDto updateBookStatuses(@RequestBody @Size(max = MAX_STATUS_BATCH) List<String> isbns,
+            @PathVariable BookStatus newStatus) {
+        return bookService.updateBookStatuses(isbns.stream().map(IsbnNormaliser::canonical).toList(), newStatus);
     }
 
     /*
@@ -135,7 +410,33 @@ public class BookController {
      */
     @DeleteMapping("/{isbn}")
     void deleteBookByIsbn(@PathVariable @IsbnConstraint String isbn) {
-        bookService.deleteBookByIsbn(isbn);
+        bookService.deleteBookByIsbn(IsbnNormaliser.canonical(isbn));
     }
 
+    /*
+     * Answers a conditional GET from the version alone, only fetching the body
+     * when the client's copy is out of date. The version is read by the caller
+     * before the body, see CatalogueVersions. Responses ask clients to check back
+     * every time rather than guess how long they stay fresh.
+     * 
+     * @param request - The request, holding any If-None-Match or
+     * If-Modified-Since
+     * 
+     * @param version - The version of what the body is built from, null if
+     * unknown
+     * 
+     * @param body - Fetches the body
+     * 
+     * @return - A 304 if the client is up to date, otherwise the body
+     */
+    private static <T> ResponseEntity<T> unlessNotModified(WebRequest request, CatalogueVersions.Version version,
+            Supplier<T> body) {
+        if (version == null) {
+            return ResponseEntity.ok(body.get());
+        }
+        if (request.checkNotModified(version.eTag(), version.lastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(body.get());
+    }
 }
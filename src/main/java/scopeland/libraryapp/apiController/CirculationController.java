@@ -0,0 +1,83 @@
+package scopeland.libraryapp.apiController;
+
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import scopeland.libraryapp.entities.dtos.HoldingDto;
+import scopeland.libraryapp.service.CirculationService;
+import scopeland.libraryapp.validation.books.IsbnNormaliser;
+import scopeland.libraryapp.validation.books.constraint.IsbnConstraint;
+
+/**
+ * API Controller for lending the copies held of each book
+ **/
+@RestController
+@Validated
+@RequestMapping("/api/books")
+public class CirculationController {
+
+    private final CirculationService circulationService;
+
+    /*
+     * Constructor with Spring Boot Dependency Injection to access the service
+     */
+    CirculationController(CirculationService circulationService) {
+        this.circulationService = circulationService;
+    }
+
+    /*
+     * Gets how many copies of a book are held and on the shelf
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @return - The books copies
+     */
+    @GetMapping("/{isbn}/copies")
+    HoldingDto getHolding(@PathVariable @IsbnConstraint String isbn) {
+        return circulationService.getHolding(IsbnNormaliser.canonical(isbn));
+    }
+
+    /*
+     * Records how many copies of a book are held
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @param totalCopies - How many copies are now held, at least as many as are on
+     * loan
+     * 
+     * @return - The books copies
+     */
+    @PutMapping("/{isbn}/copies/{totalCopies}")
+    HoldingDto setTotalCopies(@PathVariable @IsbnConstraint String isbn, @PathVariable int totalCopies) {
+        return circulationService.setTotalCopies(IsbnNormaliser.canonical(isbn), totalCopies);
+    }
+
+    /*
+     * Lends a copy of a book
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @return - The books copies, after this one was lent
+     */
+    @PostMapping("/{isbn}/checkout")
+    HoldingDto checkOut(@PathVariable @IsbnConstraint String isbn) {
+        return circulationService.checkOut(IsbnNormaliser.canonical(isbn));
+    }
+
+    /*
+     * Takes back a lent copy of a book
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @return - The books copies, after this one was returned
+     */
+    @PostMapping("/{isbn}/return")
+    HoldingDto checkIn(@PathVariable @IsbnConstraint String isbn) {
+        return circulationService.checkIn(IsbnNormaliser.canonical(isbn));
+    }
+}
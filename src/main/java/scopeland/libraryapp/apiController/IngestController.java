@@ -0,0 +1,39 @@
+package scopeland.libraryapp.apiController;
+
+import java.io.IOException;
+
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import scopeland.libraryapp.entities.dtos.IngestReportDto;
+import scopeland.libraryapp.service.CatalogueIngestService;
+
+/**
+ * API Controller for loading catalogue files sent by acquisitions
+ **/
+@RestController
+@RequestMapping("/api/ingest")
+public class IngestController {
+
+    private final CatalogueIngestService catalogueIngestService;
+
+    IngestController(CatalogueIngestService catalogueIngestService) {
+        this.catalogueIngestService = catalogueIngestService;
+    }
+
+    /*
+     * Adds the books in a CSV or MARC file from the ingest directory. Running it
+     * again after a failure carries on where the failed run stopped.
+     * 
+     * @param fileName - The name of the file in the ingest directory
+     * 
+     * @return - Counts per outcome, the first rejected records and the rate of
+     * each pipeline stage
+     */
+    @PostMapping("{fileName}")
+    IngestReportDto ingest(@PathVariable String fileName) throws IOException {
+        return catalogueIngestService.ingest(fileName);
+    }
+}
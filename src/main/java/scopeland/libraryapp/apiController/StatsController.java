@@ -0,0 +1,46 @@
+package scopeland.libraryapp.apiController;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import scopeland.libraryapp.cache.BookCache;
+import scopeland.libraryapp.entities.dtos.CacheStatsDto;
+import scopeland.libraryapp.entities.dtos.CompletionStatsDto;
+import scopeland.libraryapp.search.BookCompletionIndex;
+
+/**
+ * API Controller reporting on the in-memory structures behind the catalogue
+ **/
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    private final BookCompletionIndex bookCompletionIndex;
+    private final BookCache bookCache;
+
+    StatsController(BookCompletionIndex bookCompletionIndex, BookCache bookCache) {
+        this.bookCompletionIndex = bookCompletionIndex;
+        this.bookCache = bookCache;
+    }
+
+    /*
+     * Reports the size and estimated memory use of the typeahead index
+     * 
+     * @return - The typeahead index stats
+     */
+    @GetMapping("autocomplete")
+    CompletionStatsDto autocompleteStats() {
+        return bookCompletionIndex.stats();
+    }
+
+    /*
+     * Reports the hit, miss and eviction counts of the book by isbn cache
+     * 
+     * @return - The book cache stats
+     */
+    @GetMapping("cache/books")
+    CacheStatsDto bookCacheStats() {
+        return bookCache.stats();
+    }
+}
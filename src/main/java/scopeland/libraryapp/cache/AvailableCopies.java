@@ -0,0 +1,153 @@
+package scopeland.libraryapp.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.entities.Holding;
+import scopeland.libraryapp.entities.dtos.HoldingDto;
+import scopeland.libraryapp.exceptions.HoldingNotFoundException;
+import scopeland.libraryapp.repositories.interfaces.IHoldingRepository;
+import scopeland.libraryapp.search.BookChangeListener;
+
+/*
+ * In-memory counts of the copies on the shelf for every book with a holding.
+ *
+ * A checkout reserves a copy here with a compare-and-set on the book's own
+ * counter before going to the database, so when a popular title runs out the
+ * rush of checkouts after it is turned away without a query, and checkouts of
+ * different books never wait on each other. The database's conditional UPDATE
+ * still decides who gets a copy. These counts only keep up with the writes
+ * made through this application.
+ */
+@Component
+public class AvailableCopies implements BookChangeListener {
+
+    private final IHoldingRepository holdingRepository;
+    private final ConcurrentHashMap<String, Copies> copiesByIsbn = new ConcurrentHashMap<>();
+
+    public AvailableCopies(IHoldingRepository holdingRepository) {
+        this.holdingRepository = holdingRepository;
+    }
+
+    /*
+     * Reads every holding in once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (Holding holding : holdingRepository.findAll()) {
+            add(holding.getIsbn(), holding.getTotalCopies(), holding.getAvailableCopies());
+        }
+    }
+
+    /*
+     * Starts counting the copies of a book
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @param totalCopies - How many copies are held
+     * 
+     * @param availableCopies - How many of them are on the shelf
+     */
+    public void add(String isbn, int totalCopies, int availableCopies) {
+        copiesByIsbn.put(isbn, new Copies(totalCopies, availableCopies));
+    }
+
+    /*
+     * The copies of a book as currently counted
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @return - The counts, null if the book has no holding
+     */
+    public HoldingDto find(String isbn) {
+        Copies copies = copiesByIsbn.get(isbn);
+        return copies == null ? null : new HoldingDto(isbn, copies.total, copies.available.get());
+    }
+
+    /*
+     * Takes a copy off the shelf count, if there is one
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @return - The copies left on the shelf, -1 if there were none to take
+     */
+    public int reserve(String isbn) {
+        AtomicInteger available = copies(isbn).available;
+        while (true) {
+            int current = available.get();
+            if (current <= 0) {
+                return -1;
+            }
+            if (available.compareAndSet(current, current - 1)) {
+                return current - 1;
+            }
+        }
+    }
+
+    /*
+     * Puts a copy back on the shelf count, for a return or a reservation the
+     * database turned down
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @return - The copies now on the shelf, 0 if the book has since been deleted
+     */
+    public int release(String isbn) {
+        Copies copies = copiesByIsbn.get(isbn);
+        return copies == null ? 0 : copies.available.incrementAndGet();
+    }
+
+    /*
+     * Adds or removes held copies, which are added to or taken off the shelf.
+     * Callers must not resize the same book at the same time.
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @param totalCopies - How many copies are now held
+     */
+    public void resize(String isbn, int totalCopies) {
+        Copies copies = copies(isbn);
+        copies.available.addAndGet(totalCopies - copies.total);
+        copies.total = totalCopies;
+    }
+
+    /*
+     * Copies are counted by isbn, so a change to the book itself changes nothing
+     */
+    @Override
+    public void bookSaved(Book book) {
+    }
+
+    /*
+     * Stops counting the copies of a deleted book, their holding goes with it
+     *
+     * @param isbn - The isbn of the removed book
+     */
+    @Override
+    public void bookDeleted(String isbn) {
+        copiesByIsbn.remove(isbn);
+    }
+
+    private Copies copies(String isbn) {
+        Copies copies = copiesByIsbn.get(isbn);
+        if (copies == null) {
+            throw new HoldingNotFoundException(isbn);
+        }
+        return copies;
+    }
+
+    private static final class Copies {
+        private volatile int total;
+        private final AtomicInteger available;
+
+        private Copies(int total, int available) {
+            this.total = total;
+            this.available = new AtomicInteger(available);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package scopeland.libraryapp.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.entities.dtos.CacheStatsDto;
+import scopeland.libraryapp.search.BookChangeListener;
+
+/*
+ * A bounded read-through cache of books by isbn.
+ * 
+ * Entries are dropped once the cache is full (least recently and frequently
+ * used first) or when they are older than the ttl. Writes through BookService
+ * replace a cached book with the saved copy and deletes drop it, so a cached book
+ * is never older than the last write made by this instance. Books are only
+ * cached once looked up, saves don't add new entries, so the startup load does
+ * not fill the cache with books nobody asked for.
+ * 
+ * The cache holds its own copies and hands out copies, so callers changing a
+ * returned book can't change what later callers see.
+ */
+@Component
+public class BookCache implements BookChangeListener {
+
+    private final Cache<String, Book> books;
+    private final long maxSize;
+    private final Duration ttl;
+
+    public BookCache(@Value("${library.cache.books.max-size:10000}") long maxSize,
+            @Value("${library.cache.books.ttl:10m}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.books = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /*
+     * Gets a book from the cache, loading and caching it on a miss. Concurrent
+     * misses for the same isbn share one load.
+     * 
+     * @param isbn - the isbn wanted
+     * 
+     * @param loader - looks the book up when it isn't cached
+     * 
+     * @return - A copy of the book, empty if the loader did not find it. Missing
+     * books are not cached.
+     */
+    public Optional<Book> get(String isbn, Function<String, Optional<Book>> loader) {
+        Book cached = books.get(isbn, key -> loader.apply(key).map(Book::copy).orElse(null));
+        return Optional.ofNullable(cached).map(Book::copy);
+    }
+
+    /*
+     * Replaces the cached copy of the book, if there is one
+     * 
+     * @param book - The book as it is now stored
+     */
+    @Override
+    public void bookSaved(Book book) {
+        Book snapshot = book.copy();
+        books.asMap().computeIfPresent(book.getIsbn(), (isbn, old) -> snapshot);
+    }
+
+    /*
+     * Drops the book from the cache
+     * 
+     * @param isbn - The isbn of the removed book
+     */
+    @Override
+    public void bookDeleted(String isbn) {
+        books.invalidate(isbn);
+    }
+
+    /*
+     * Runs any pending evictions first, so the size and eviction count are current
+     * 
+     * @return - Hit, miss and eviction counts since startup and the current size
+     */
+    public CacheStatsDto stats() {
+        books.cleanUp();
+        CacheStats stats = books.stats();
+        return new CacheStatsDto(stats.hitCount(), stats.missCount(), stats.evictionCount(), stats.hitRate(),
+                books.estimatedSize(), maxSize, ttl.toSeconds());
+    }
+}
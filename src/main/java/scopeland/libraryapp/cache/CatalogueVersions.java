@@ -0,0 +1,85 @@
+package scopeland.libraryapp.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.search.BookChangeListener;
+
+/*
+ * Versions of the catalogue as a whole and of each book, used as ETags and
+ * Last-Modified times so clients can ask whether anything changed without the
+ * books being read.
+ * 
+ * Every write takes the next number from one counter, and that number becomes
+ * the version of the book written and of the catalogue. Versions start again
+ * from the time of startup, so a restart, after which the database may hold
+ * anything, never matches a version handed out before it.
+ * 
+ * The version has to be read before the books it covers. Writes are committed
+ * before listeners hear about them, so a book read after its version is at least
+ * as new as that version, and at worst a client holds a newer book under an
+ * older tag and downloads it once more.
+ */
+@Component
+public class CatalogueVersions implements BookChangeListener {
+
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+    private final Map<String, Version> bookVersions = new ConcurrentHashMap<>();
+    private long counter;
+    private volatile Version catalogue = new Version(epoch + "-0", System.currentTimeMillis());
+
+    /*
+     * Gives the book and the catalogue a new version
+     * 
+     * @param book - The book as it is now stored
+     */
+    @Override
+    public synchronized void bookSaved(Book book) {
+        Version version = next();
+        bookVersions.put(book.getIsbn(), version);
+        catalogue = version;
+    }
+
+    /*
+     * Forgets the book's version and gives the catalogue a new one
+     * 
+     * @param isbn - The isbn of the removed book
+     */
+    @Override
+    public synchronized void bookDeleted(String isbn) {
+        bookVersions.remove(isbn);
+        catalogue = next();
+    }
+
+    /*
+     * @return - The version of the whole catalogue, changed by every write
+     */
+    public Version catalogue() {
+        return catalogue;
+    }
+
+    /*
+     * @param isbn - The isbn of the book
+     * 
+     * @return - The version of the book, changed by every write to it, null if
+     * there is no such book
+     */
+    public Version book(String isbn) {
+        return bookVersions.get(isbn);
+    }
+
+    private Version next() {
+        return new Version(epoch + "-" + Long.toHexString(++counter), System.currentTimeMillis());
+    }
+
+    /*
+     * @param eTag - Opaque tag, unquoted
+     * 
+     * @param lastModified - Time of the write in epoch milliseconds
+     */
+    public record Version(String eTag, long lastModified) {
+    }
+}
@@ -0,0 +1,36 @@
+package scopeland.libraryapp.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Metrics beyond those Spring Boot's actuator sets up by itself. Along with the
+ * settings in application.properties, /actuator/prometheus exposes:
+ * - http_server_requests_seconds, latency histograms per route and status
+ * - library_book_service_seconds, timings per BookService method, see @Timed
+ * - hibernate_*, statements, entity loads and flushes
+ * - hikaricp_connections_*, pool size, active connections and threads waiting
+ * for one
+ * - tomcat_threads_*, busy and max request threads
+ *
+ * Timers and counters are lock free updates of a few numbers per call, cheap
+ * enough to leave on in production.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /*
+     * Times the methods of Spring beans annotated with @Timed
+     *
+     * @param registry - where the timings are recorded
+     *
+     * @return - the aspect doing the timing
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
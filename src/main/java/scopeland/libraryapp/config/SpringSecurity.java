@@ -1,14 +1,21 @@
 package scopeland.libraryapp.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
@@ -30,6 +37,41 @@ public class SpringSecurity {
         return new BCryptPasswordEncoder();
     }
 
+    /*
+     * Security Config for the actuator endpoints, checked before the app's own:
+     * - health is open, so load balancers can reach it
+     * - prometheus needs the METRICS role, held by the scraper account, or ADMIN
+     * - the rest need ADMIN
+     * Logins are by HTTP basic with no session, as a scraper can't fill in the
+     * login form. The scraper account is only set up when
+     * library.metrics.password is.
+     * 
+     * return - the filter chain for /actuator
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorFilterChain(HttpSecurity http,
+            @Value("${library.metrics.username:prometheus}") String metricsUsername,
+            @Value("${library.metrics.password:}") String metricsPassword) throws Exception {
+        http.securityMatcher("/actuator/**")
+                .csrf().disable()
+                .authorizeHttpRequests((authorize) -> authorize.requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/prometheus").hasAnyRole("METRICS", "ADMIN")
+                        .anyRequest().hasRole("ADMIN"))
+                .httpBasic(Customizer.withDefaults())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+        if (!metricsPassword.isEmpty()) {
+            DaoAuthenticationProvider scraper = new DaoAuthenticationProvider();
+            scraper.setUserDetailsService(new InMemoryUserDetailsManager(User.withUsername(metricsUsername)
+                    .password(passwordEncoder().encode(metricsPassword))
+                    .roles("METRICS")
+                    .build()));
+            scraper.setPasswordEncoder(passwordEncoder());
+            http.authenticationProvider(scraper);
+        }
+        return http.build();
+    }
+
     /*
      * Security Config that contains:
      * - Some security config
@@ -0,0 +1,58 @@
+package scopeland.libraryapp.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import scopeland.libraryapp.monitoring.RequestStatementsInterceptor;
+import scopeland.libraryapp.monitoring.StatementCountingListener;
+
+/*
+ * Counts the SQL statements each request sends, see RequestStatementsInterceptor.
+ *
+ * The DataSource is wrapped in a datasource-proxy ProxyDataSource so every
+ * statement is seen, whether it comes from Hibernate, Spring Data or a
+ * JdbcTemplate.
+ */
+@Configuration
+public class StatementTrackingConfig implements WebMvcConfigurer {
+
+    private final RequestStatementsInterceptor requestStatementsInterceptor;
+
+    public StatementTrackingConfig(RequestStatementsInterceptor requestStatementsInterceptor) {
+        this.requestStatementsInterceptor = requestStatementsInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestStatementsInterceptor);
+    }
+
+    /*
+     * Wraps each DataSource as it is created. Static so it is registered before
+     * the DataSource is made.
+     *
+     * @return - the post processor doing the wrapping
+     */
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourceWrapper() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new StatementCountingListener())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -2,19 +2,28 @@ package scopeland.libraryapp.entities;
 
 import java.util.Objects;
 
+import org.hibernate.annotations.JavaType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import scopeland.libraryapp.enums.BookStatus;
+import scopeland.libraryapp.search.TextNormaliser;
+import scopeland.libraryapp.validation.books.IsbnNormaliser;
 import scopeland.libraryapp.validation.books.constraint.IsbnConstraint;
 
 /*
@@ -23,12 +32,19 @@ import scopeland.libraryapp.validation.books.constraint.IsbnConstraint;
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+        @Index(name = "idx_books_author_normalised", columnList = "author_normalised"),
+        @Index(name = "idx_books_publication_year", columnList = "publication_year") })
 public class Book {
 
+    /*
+     * Always canonical once set, see setIsbn, and stored as a number, see
+     * IsbnJavaType
+     */
     @Id
+    @JavaType(IsbnJavaType.class)
+    @JdbcTypeCode(SqlTypes.BIGINT)
     @NotBlank(message = "ISBN is required")
     @IsbnConstraint
     private String isbn;
@@ -39,12 +55,59 @@ public class Book {
     @NotBlank(message = "Author is required")
     private String author;
 
+    /*
+     * Case folded copy of author kept in step by setAuthor, indexed for searching
+     */
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @Column(name = "author_normalised")
+    private String authorNormalised;
+
     @NotNull(message = "Publication Year is required")
+    @Column(name = "publication_year")
     private Integer publicationYear;
 
     @NotNull(message = "Book Status is required")
     private BookStatus bookStatus;
 
+    public Book(String isbn, String title, String author, Integer publicationYear, BookStatus bookStatus) {
+        this.title = title;
+        this.publicationYear = publicationYear;
+        this.bookStatus = bookStatus;
+        setIsbn(isbn);
+        setAuthor(author);
+    }
+
+    /*
+     * Sets the isbn in its canonical ISBN-13 form, so however it was written it
+     * is stored and looked up the same way
+     * 
+     * @param isbn - the isbn as entered
+     */
+    public void setIsbn(String isbn) {
+        this.isbn = IsbnNormaliser.canonical(isbn);
+    }
+
+    /*
+     * Sets the author and keeps the normalised search column in step with it
+     * 
+     * @param author - the authors name as entered
+     */
+    public void setAuthor(String author) {
+        this.author = author;
+        this.authorNormalised = TextNormaliser.normalise(author);
+    }
+
+    /*
+     * Creates a detached copy of the book, used by in-memory indexes and caches so
+     * later changes to this instance do not leak into them
+     * 
+     * return - A new book with the same values
+     */
+    public Book copy() {
+        return new Book(this.isbn, this.title, this.author, this.publicationYear, this.bookStatus);
+    }
+
     /*
      * An override for the equals method to compare 2 books
      * Returns false if the passed in object is not a Book.
@@ -0,0 +1,55 @@
+package scopeland.libraryapp.entities;
+
+import org.hibernate.annotations.JavaType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.type.SqlTypes;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.MapsId;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/*
+ * The physical copies a branch holds of one book, stored as counts so lending a
+ * copy is a single conditional UPDATE of one row
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "holdings")
+public class Holding {
+
+    @Id
+    @JavaType(IsbnJavaType.class)
+    @JdbcTypeCode(SqlTypes.BIGINT)
+    private String isbn;
+
+    /*
+     * The catalogue record these are copies of, sharing its isbn. The database
+     * removes the holding along with the book.
+     */
+    @JsonIgnore
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "isbn")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Book book;
+
+    @Column(name = "total_copies")
+    private int totalCopies;
+
+    @Column(name = "available_copies")
+    private int availableCopies;
+}
@@ -0,0 +1,40 @@
+package scopeland.libraryapp.entities;
+
+import org.hibernate.type.SqlTypes;
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.StringJavaType;
+import org.hibernate.type.descriptor.jdbc.JdbcType;
+import org.hibernate.type.descriptor.jdbc.JdbcTypeIndicators;
+
+/*
+ * Stores an isbn, a String everywhere in Java, in a BIGINT column.
+ * 
+ * Stored isbns are always the 13 digits of an ISBN-13, see IsbnNormaliser, and
+ * start 978 or 979, so they fit a fixed 8 byte key and read back as the same
+ * digits. The primary key index holds numbers rather than strings, and sorts
+ * them in the same order.
+ */
+public class IsbnJavaType extends StringJavaType {
+
+    @Override
+    public JdbcType getRecommendedJdbcType(JdbcTypeIndicators indicators) {
+        return indicators.getJdbcType(SqlTypes.BIGINT);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <X> X unwrap(String value, Class<X> type, WrapperOptions options) {
+        if (value != null && Long.class.isAssignableFrom(type)) {
+            return (X) Long.valueOf(value);
+        }
+        return super.unwrap(value, type, options);
+    }
+
+    @Override
+    public <X> String wrap(X value, WrapperOptions options) {
+        if (value instanceof Number number) {
+            return String.valueOf(number.longValue());
+        }
+        return super.wrap(value, options);
+    }
+}
@@ -0,0 +1,24 @@
+package scopeland.libraryapp.entities.dtos;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import scopeland.libraryapp.entities.Book;
+
+/*
+ * A single page of books returned by the keyset paginated list endpoint
+ * 
+ * nextCursor is null when there are no more books after this page
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookPageDto {
+    private List<Book> books;
+    private String nextCursor;
+    private Integer size;
+}
@@ -0,0 +1,25 @@
+package scopeland.libraryapp.entities.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import scopeland.libraryapp.enums.BookStatus;
+
+/*
+ * The filters for the combined book search, any left null are not applied
+ * 
+ * author matches the start of the author name, title matches anywhere in the
+ * title, both ignoring case. The year range includes both ends.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSearchCriteriaDto {
+    private String author;
+    private String title;
+    private Integer startYear;
+    private Integer endYear;
+    private BookStatus status;
+}
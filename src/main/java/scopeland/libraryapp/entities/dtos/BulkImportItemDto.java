@@ -0,0 +1,29 @@
+package scopeland.libraryapp.entities.dtos;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import scopeland.libraryapp.enums.BulkImportStatus;
+
+/*
+ * The outcome for one book of a bulk import
+ * 
+ * index is the position of the book in the array sent, errors is left out when
+ * there are none
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkImportItemDto {
+    private Integer index;
+    private String isbn;
+    private BulkImportStatus status;
+    private List<String> errors;
+}
@@ -0,0 +1,28 @@
+package scopeland.libraryapp.entities.dtos;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import scopeland.libraryapp.enums.BulkImportStatus;
+
+/*
+ * The outcome of a bulk import, one item per book sent plus totals
+ * 
+ * counts holds how many books ended in each status, booksPerSecond covers every
+ * book received, including the ones not imported
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResultDto {
+    private List<BulkImportItemDto> items;
+    private Map<BulkImportStatus, Integer> counts;
+    private Integer received;
+    private Long elapsedMillis;
+    private Double booksPerSecond;
+}
@@ -0,0 +1,24 @@
+package scopeland.libraryapp.entities.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/*
+ * Counters for an in-process cache since startup, and its current size and
+ * limits
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsDto {
+    private Long hits;
+    private Long misses;
+    private Long evictions;
+    private Double hitRate;
+    private Long size;
+    private Long maxSize;
+    private Long ttlSeconds;
+}
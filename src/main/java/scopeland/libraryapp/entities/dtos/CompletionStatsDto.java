@@ -0,0 +1,21 @@
+package scopeland.libraryapp.entities.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/*
+ * The size of the typeahead index and roughly how much memory it uses
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompletionStatsDto {
+    private Integer titlePhrases;
+    private Integer authorPhrases;
+    private Integer nodes;
+    private Long estimatedBytes;
+    private Integer maxPhrases;
+}
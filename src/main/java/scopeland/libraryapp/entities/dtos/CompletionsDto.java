@@ -0,0 +1,20 @@
+package scopeland.libraryapp.entities.dtos;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/*
+ * Typeahead suggestions for a prefix, most used first
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompletionsDto {
+    private List<String> titles;
+    private List<String> authors;
+}
@@ -0,0 +1,19 @@
+package scopeland.libraryapp.entities.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/*
+ * How many copies of a book are held and how many of those are on the shelf
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldingDto {
+    private String isbn;
+    private Integer totalCopies;
+    private Integer availableCopies;
+}
@@ -0,0 +1,34 @@
+package scopeland.libraryapp.entities.dtos;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import scopeland.libraryapp.enums.BulkImportStatus;
+import scopeland.libraryapp.enums.IngestFormat;
+
+/*
+ * The outcome of ingesting a catalogue file
+ * 
+ * resumedFrom is the number of records skipped because an earlier run finished
+ * them, records and counts only cover this run. rejected holds the first of the
+ * records not imported, with the reason.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestReportDto {
+    private String fileName;
+    private IngestFormat format;
+    private Long resumedFrom;
+    private Long records;
+    private Map<BulkImportStatus, Long> counts;
+    private List<BulkImportItemDto> rejected;
+    private List<IngestStageDto> stages;
+    private Long elapsedMillis;
+    private Double recordsPerSecond;
+}
@@ -0,0 +1,23 @@
+package scopeland.libraryapp.entities.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/*
+ * How much one stage of the ingest pipeline did and how fast
+ * 
+ * busyMillis adds up the working time of all the stage's threads
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestStageDto {
+    private String name;
+    private Integer threads;
+    private Long records;
+    private Long busyMillis;
+    private Double recordsPerSecond;
+}
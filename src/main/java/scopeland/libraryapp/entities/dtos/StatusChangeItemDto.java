@@ -0,0 +1,19 @@
+package scopeland.libraryapp.entities.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import scopeland.libraryapp.enums.StatusChangeOutcome;
+
+/*
+ * The outcome for one isbn of a batch status change
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusChangeItemDto {
+    private String isbn;
+    private StatusChangeOutcome outcome;
+}
@@ -0,0 +1,24 @@
+package scopeland.libraryapp.entities.dtos;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import scopeland.libraryapp.enums.BookStatus;
+import scopeland.libraryapp.enums.StatusChangeOutcome;
+
+/*
+ * The outcome of a batch status change, one item per isbn sent plus totals
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusChangeResultDto {
+    private BookStatus newStatus;
+    private List<StatusChangeItemDto> items;
+    private Map<StatusChangeOutcome, Integer> counts;
+}
@@ -0,0 +1,20 @@
+package scopeland.libraryapp.entities.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/*
+ * The number of books published in one bucket of years, startYear to endYear
+ * inclusive
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class YearCountDto {
+    private Integer startYear;
+    private Integer endYear;
+    private Long count;
+}
@@ -0,0 +1,23 @@
+package scopeland.libraryapp.entities.dtos;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import scopeland.libraryapp.enums.YearBucket;
+
+/*
+ * A histogram of books by publication year, only buckets holding books are
+ * listed, in year order
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class YearFacetsDto {
+    private YearBucket bucket;
+    private List<YearCountDto> counts;
+    private Long total;
+}
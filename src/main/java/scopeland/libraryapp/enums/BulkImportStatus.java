@@ -0,0 +1,15 @@
+package scopeland.libraryapp.enums;
+
+/*
+ * What happened to one book sent to the bulk import
+ */
+public enum BulkImportStatus {
+    IMPORTED,
+    // Failed validation or could not be read as a book
+    INVALID,
+    ALREADY_EXISTS,
+    // Same isbn as an earlier book in the same import
+    DUPLICATE,
+    // Valid but the database refused it
+    FAILED
+}
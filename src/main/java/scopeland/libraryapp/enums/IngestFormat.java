@@ -0,0 +1,28 @@
+package scopeland.libraryapp.enums;
+
+import java.util.Locale;
+
+/*
+ * The catalogue file formats the ingest reads, told apart by file extension
+ */
+public enum IngestFormat {
+    CSV,
+    // MARC 21 in ISO 2709 form, .mrc or .marc
+    MARC;
+
+    /*
+     * @param fileName - The name of the catalogue file
+     * 
+     * @return - The format its extension names, null if it is not one we read
+     */
+    public static IngestFormat fromFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".mrc") || name.endsWith(".marc")) {
+            return MARC;
+        }
+        return null;
+    }
+}
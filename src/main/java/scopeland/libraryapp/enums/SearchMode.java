@@ -0,0 +1,12 @@
+package scopeland.libraryapp.enums;
+
+/*
+ * How a text search value is matched against the stored values
+ */
+public enum SearchMode {
+    EXACT,
+    PREFIX,
+    CONTAINS,
+    // Tolerates a few typos in each word, see FuzzyBookIndex
+    FUZZY
+}
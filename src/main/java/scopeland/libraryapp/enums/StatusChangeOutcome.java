@@ -0,0 +1,13 @@
+package scopeland.libraryapp.enums;
+
+/*
+ * What happened to one book in a batch status change
+ */
+public enum StatusChangeOutcome {
+    UPDATED,
+    NOT_FOUND,
+    // Asked to borrow a book that was already borrowed
+    ALREADY_BORROWED,
+    // The book has copies held, its status follows them
+    COPIES_HELD
+}
@@ -0,0 +1,28 @@
+package scopeland.libraryapp.enums;
+
+/*
+ * How publication years are grouped when counting books
+ */
+public enum YearBucket {
+    YEAR(1),
+    DECADE(10);
+
+    private final int years;
+
+    YearBucket(int years) {
+        this.years = years;
+    }
+
+    /*
+     * @param year - a publication year
+     * 
+     * @return - The first year of the bucket the year falls in
+     */
+    public int bucketStart(int year) {
+        return Math.floorDiv(year, years) * years;
+    }
+
+    public int getYears() {
+        return years;
+    }
+}
@@ -0,0 +1,11 @@
+package scopeland.libraryapp.exceptions;
+
+/*
+ * An exception to throw if the status of a book with copies held is set
+ * directly, when it follows the copies on the shelf
+ */
+public class BookCopiesHeldException extends RuntimeException {
+    public BookCopiesHeldException(String isbn) {
+        super("Book " + isbn + " has copies held, check them out and return them instead of setting its status");
+    }
+}
@@ -0,0 +1,11 @@
+package scopeland.libraryapp.exceptions;
+
+/*
+ * An exception to throw if a bulk import body is not a JSON array. Books read
+ * before the problem was found stay imported.
+ */
+public class BulkImportFormatException extends RuntimeException {
+    public BulkImportFormatException(String problem, int imported) {
+        super("Invalid bulk import, " + problem + ". " + imported + " books before it were imported");
+    }
+}
@@ -0,0 +1,10 @@
+package scopeland.libraryapp.exceptions;
+
+/*
+ * An exception to throw if no copies have been recorded for a book
+ */
+public class HoldingNotFoundException extends RuntimeException {
+    public HoldingNotFoundException(String isbn) {
+        super("No copies recorded for book " + isbn);
+    }
+}
@@ -0,0 +1,10 @@
+package scopeland.libraryapp.exceptions;
+
+/*
+ * An exception to throw if a catalogue file can't be ingested
+ */
+public class IngestFileException extends RuntimeException {
+    public IngestFileException(String problem) {
+        super("Can't ingest file, " + problem);
+    }
+}
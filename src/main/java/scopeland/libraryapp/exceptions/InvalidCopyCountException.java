@@ -0,0 +1,10 @@
+package scopeland.libraryapp.exceptions;
+
+/*
+ * An exception to throw if a book is given fewer copies than are on loan, or less than none
+ */
+public class InvalidCopyCountException extends RuntimeException {
+    public InvalidCopyCountException(String isbn, int totalCopies) {
+        super("Book " + isbn + " can't hold " + totalCopies + " copies, it needs at least as many as are on loan");
+    }
+}
@@ -0,0 +1,10 @@
+package scopeland.libraryapp.exceptions;
+
+/*
+ * An exception to throw if a paging cursor can't be decoded
+ */
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String cursor) {
+        super("Invalid page cursor " + cursor);
+    }
+}
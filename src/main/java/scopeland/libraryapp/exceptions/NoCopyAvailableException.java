@@ -0,0 +1,10 @@
+package scopeland.libraryapp.exceptions;
+
+/*
+ * An exception to throw if every copy of a book is already on loan
+ */
+public class NoCopyAvailableException extends RuntimeException {
+    public NoCopyAvailableException(String isbn) {
+        super("Every copy of book " + isbn + " is on loan");
+    }
+}
@@ -0,0 +1,10 @@
+package scopeland.libraryapp.exceptions;
+
+/*
+ * An exception to throw if a copy is returned when none of the book are on loan
+ */
+public class NoCopyOnLoanException extends RuntimeException {
+    public NoCopyOnLoanException(String isbn) {
+        super("No copies of book " + isbn + " are on loan");
+    }
+}
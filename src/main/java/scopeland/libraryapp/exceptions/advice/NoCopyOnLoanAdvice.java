@@ -0,0 +1,23 @@
+package scopeland.libraryapp.exceptions.advice;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import scopeland.libraryapp.exceptions.NoCopyOnLoanException;
+
+/*
+ * API Feedback for the NoCopyOnLoanException
+ */
+@ControllerAdvice
+public class NoCopyOnLoanAdvice {
+    @ResponseBody
+    @ExceptionHandler(NoCopyOnLoanException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity noCopyOnLoanHandler(NoCopyOnLoanException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
+}
@@ -0,0 +1,17 @@
+package scopeland.libraryapp.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/*
+ * Reads the books of a catalogue file one record at a time
+ */
+public interface BookRecordReader extends Closeable {
+
+    /*
+     * @return - The next record, null at the end of the file. A record that can't
+     * be read is returned with its problem set, only a file that can't be read
+     * any further throws.
+     */
+    RawBookRecord next() throws IOException;
+}
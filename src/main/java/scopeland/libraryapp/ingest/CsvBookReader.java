@@ -0,0 +1,140 @@
+package scopeland.libraryapp.ingest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import scopeland.libraryapp.exceptions.IngestFileException;
+
+/*
+ * Reads books from UTF-8 CSV with a header row, as spreadsheets export it.
+ * 
+ * The header names the columns, in any order and case: isbn, title, author,
+ * publicationYear (or year) and optionally bookStatus (or status). Other columns
+ * are ignored. Values may be quoted, and quoted values may hold commas, line
+ * breaks and doubled quotes. Blank lines are skipped.
+ */
+public class CsvBookReader implements BookRecordReader {
+
+    private final Reader in;
+    private final int isbnColumn;
+    private final int titleColumn;
+    private final int authorColumn;
+    private final int yearColumn;
+    private final int statusColumn;
+    private final int requiredColumns;
+    private final StringBuilder value = new StringBuilder();
+    private long number;
+
+    public CsvBookReader(InputStream input) throws IOException {
+        this.in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+        List<String> header = readRow();
+        if (header == null) {
+            throw new IngestFileException("the CSV file is empty");
+        }
+        List<String> names = header.stream().map(CsvBookReader::columnName).toList();
+        this.isbnColumn = requiredColumn(names, "isbn");
+        this.titleColumn = requiredColumn(names, "title");
+        this.authorColumn = requiredColumn(names, "author");
+        this.yearColumn = names.contains("publicationyear") ? names.indexOf("publicationyear")
+                : requiredColumn(names, "year");
+        this.statusColumn = names.contains("bookstatus") ? names.indexOf("bookstatus") : names.indexOf("status");
+        this.requiredColumns = Math.max(Math.max(isbnColumn, titleColumn), Math.max(authorColumn, yearColumn)) + 1;
+    }
+
+    @Override
+    public RawBookRecord next() throws IOException {
+        List<String> row = readRow();
+        if (row == null) {
+            return null;
+        }
+        long recordNumber = number++;
+        if (row.size() < requiredColumns) {
+            return RawBookRecord.unreadable(recordNumber,
+                    "expected at least " + requiredColumns + " columns but found " + row.size());
+        }
+        return new RawBookRecord(recordNumber, row.get(isbnColumn).trim(), row.get(titleColumn).trim(),
+                row.get(authorColumn).trim(), row.get(yearColumn).trim(),
+                statusColumn >= 0 && statusColumn < row.size() ? row.get(statusColumn).trim() : null, null);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /*
+     * Reads one row of values, following quotes across line breaks
+     * 
+     * @return - The values, null at the end of the input
+     */
+    private List<String> readRow() throws IOException {
+        List<String> row = new ArrayList<>();
+        value.setLength(0);
+        boolean quoted = false;
+        boolean anything = false;
+        int c;
+        while ((c = in.read()) != -1) {
+            anything = true;
+            if (quoted) {
+                if (c == '"') {
+                    in.mark(1);
+                    if (in.read() == '"') {
+                        value.append('"');
+                    } else {
+                        in.reset();
+                        quoted = false;
+                    }
+                } else {
+                    value.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                row.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    in.mark(1);
+                    if (in.read() != '\n') {
+                        in.reset();
+                    }
+                }
+                if (row.isEmpty() && value.length() == 0) {
+                    // Blank line
+                    anything = false;
+                    continue;
+                }
+                row.add(value.toString());
+                return row;
+            } else {
+                value.append((char) c);
+            }
+        }
+        if (!anything) {
+            return null;
+        }
+        row.add(value.toString());
+        return row;
+    }
+
+    // Ignores a byte order mark and spacing, so Publication Year and
+    // publication_year both name the year column
+    private static String columnName(String header) {
+        return header.replace("\uFEFF", "").replaceAll("[\\s_-]", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static int requiredColumn(List<String> names, String name) {
+        int column = names.indexOf(name);
+        if (column < 0) {
+            throw new IngestFileException("the CSV header has no " + name + " column");
+        }
+        return column;
+    }
+}
@@ -0,0 +1,88 @@
+package scopeland.libraryapp.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/*
+ * Remembers how far an ingest got through a file, so a run that fails part way
+ * can carry on from there.
+ * 
+ * The checkpoint sits next to the file as <name>.checkpoint and holds the number
+ * of leading records that are finished with, either stored or rejected. It also
+ * records the file's size and modified time, and is ignored if the file has
+ * changed since. Records after the checkpoint that were stored before the
+ * failure are read again and reported as already existing.
+ */
+public class IngestCheckpoint {
+
+    private final Path file;
+    private final Path checkpoint;
+    private final String fileSize;
+    private final String fileModified;
+
+    public IngestCheckpoint(Path file) throws IOException {
+        this.file = file;
+        this.checkpoint = file.resolveSibling(file.getFileName() + ".checkpoint");
+        this.fileSize = String.valueOf(Files.size(file));
+        this.fileModified = String.valueOf(Files.getLastModifiedTime(file).toMillis());
+    }
+
+    /*
+     * @return - How many records a previous run finished, 0 if there was no
+     * previous run or the file has changed since
+     */
+    public long load() throws IOException {
+        if (!Files.exists(checkpoint)) {
+            return 0;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(checkpoint)) {
+            properties.load(in);
+        }
+        if (!fileSize.equals(properties.getProperty("size"))
+                || !fileModified.equals(properties.getProperty("modified"))) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(properties.getProperty("records", "0"));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    /*
+     * Records progress, replacing the old checkpoint in one step so a crash while
+     * saving leaves the old one
+     * 
+     * @param records - How many leading records are finished with
+     */
+    public void save(long records) {
+        Properties properties = new Properties();
+        properties.setProperty("file", file.getFileName().toString());
+        properties.setProperty("size", fileSize);
+        properties.setProperty("modified", fileModified);
+        properties.setProperty("records", String.valueOf(records));
+        try {
+            Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                properties.store(out, null);
+            }
+            Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /*
+     * Removes the checkpoint once the whole file is ingested
+     */
+    public void delete() throws IOException {
+        Files.deleteIfExists(checkpoint);
+    }
+}
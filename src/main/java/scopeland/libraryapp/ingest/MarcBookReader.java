@@ -0,0 +1,187 @@
+package scopeland.libraryapp.ingest;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import scopeland.libraryapp.exceptions.IngestFileException;
+
+/*
+ * Reads books from MARC 21 records in ISO 2709 form, the usual .mrc export of
+ * library systems.
+ * 
+ * Only the fields a book needs are read: 020$a for the isbn, 245$a and $b for
+ * the title, 100$a for the author and the year from 264$c, 260$c or else the
+ * fixed data in 008. The punctuation MARC puts between fields is trimmed and
+ * personal names entered surname first are turned round, so "Chambers, Becky,"
+ * becomes "Becky Chambers". Records are UTF-8 when the leader says so, otherwise
+ * read as Latin-1 as MARC-8 has no Java charset.
+ */
+public class MarcBookReader implements BookRecordReader {
+
+    private static final byte FIELD_END = 0x1E;
+    private static final byte SUBFIELD = 0x1F;
+    private static final int LEADER_LENGTH = 24;
+    private static final Pattern ISBN = Pattern.compile("^[0-9Xx-]+");
+    private static final Pattern YEAR = Pattern.compile("\\d{4}");
+
+    private final InputStream in;
+    private long number;
+
+    public MarcBookReader(InputStream input) {
+        this.in = new BufferedInputStream(input, 1 << 16);
+    }
+
+    @Override
+    public RawBookRecord next() throws IOException {
+        int first = in.read();
+        // Some exports put line breaks between records
+        while (first == '\n' || first == '\r') {
+            first = in.read();
+        }
+        if (first == -1) {
+            return null;
+        }
+        byte[] lengthDigits = new byte[5];
+        lengthDigits[0] = (byte) first;
+        int read = in.readNBytes(lengthDigits, 1, 4);
+        int length = digits(lengthDigits, 0, 5);
+        if (read < 4 || length <= LEADER_LENGTH) {
+            throw new IngestFileException("MARC record " + number + " does not start with a record length");
+        }
+        byte[] record = new byte[length];
+        System.arraycopy(lengthDigits, 0, record, 0, 5);
+        if (in.readNBytes(record, 5, length - 5) < length - 5) {
+            throw new IngestFileException("MARC record " + number + " is cut short");
+        }
+        long recordNumber = number++;
+        try {
+            return parse(recordNumber, record);
+        } catch (RuntimeException ex) {
+            return RawBookRecord.unreadable(recordNumber, "the MARC record is malformed");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private static RawBookRecord parse(long recordNumber, byte[] record) {
+        Charset charset = record[9] == 'a' ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1;
+        int base = digits(record, 12, 5);
+        String isbn = null;
+        String title = null;
+        String author = null;
+        String published = null;
+        String distributed = null;
+        String fixedYear = null;
+        for (int entry = LEADER_LENGTH; record[entry] != FIELD_END; entry += 12) {
+            String tag = new String(record, entry, 3, StandardCharsets.US_ASCII);
+            int start = base + digits(record, entry + 7, 5);
+            // Drop the field terminator
+            String field = new String(record, start, digits(record, entry + 3, 4) - 1, charset);
+            switch (tag) {
+                case "008" -> fixedYear = field.length() >= 11 ? field.substring(7, 11) : null;
+                case "020" -> isbn = isbn != null ? isbn : isbn(subfield(field, 'a'));
+                case "100" -> author = name(field.charAt(0), subfield(field, 'a'));
+                case "245" -> title = title(subfield(field, 'a'), subfield(field, 'b'));
+                case "260" -> distributed = year(subfield(field, 'c'));
+                case "264" -> published = published != null ? published : year(subfield(field, 'c'));
+                default -> {
+                }
+            }
+        }
+        String year = published != null ? published : distributed != null ? distributed : year(fixedYear);
+        return new RawBookRecord(recordNumber, isbn, title, author, year, null, null);
+    }
+
+    /*
+     * @return - The first subfield with the code in a data field, null if there
+     * isn't one
+     */
+    private static String subfield(String field, char code) {
+        int at = field.indexOf((char) SUBFIELD);
+        while (at >= 0 && at + 1 < field.length()) {
+            int end = field.indexOf((char) SUBFIELD, at + 1);
+            if (field.charAt(at + 1) == code) {
+                return field.substring(at + 2, end < 0 ? field.length() : end);
+            }
+            at = end;
+        }
+        return null;
+    }
+
+    private static String isbn(String value) {
+        if (value == null) {
+            return null;
+        }
+        Matcher matcher = ISBN.matcher(value.trim());
+        return matcher.find() ? matcher.group() : value.trim();
+    }
+
+    private static String title(String main, String rest) {
+        if (main == null) {
+            return null;
+        }
+        return rest == null ? trimPunctuation(main) : trimPunctuation(main) + ": " + trimPunctuation(rest);
+    }
+
+    /*
+     * Turns "Surname, Forenames" round when the first indicator says the name is
+     * entered surname first
+     */
+    private static String name(char firstIndicator, String value) {
+        if (value == null) {
+            return null;
+        }
+        String name = trimPunctuation(value);
+        int comma = name.indexOf(", ");
+        if (firstIndicator == '1' && comma > 0) {
+            name = name.substring(comma + 2) + " " + name.substring(0, comma);
+        }
+        return name;
+    }
+
+    private static String year(String value) {
+        if (value == null) {
+            return null;
+        }
+        Matcher matcher = YEAR.matcher(value);
+        return matcher.find() ? matcher.group() : null;
+    }
+
+    /*
+     * Strips the ISBD punctuation MARC ends a subfield with, keeping the full stop
+     * after an initial
+     */
+    private static String trimPunctuation(String value) {
+        String trimmed = value.strip();
+        while (!trimmed.isEmpty()) {
+            char last = trimmed.charAt(trimmed.length() - 1);
+            boolean initial = last == '.' && trimmed.length() >= 2
+                    && Character.isUpperCase(trimmed.charAt(trimmed.length() - 2))
+                    && (trimmed.length() == 2 || !Character.isLetter(trimmed.charAt(trimmed.length() - 3)));
+            if ("/:;,.=".indexOf(last) < 0 || initial) {
+                break;
+            }
+            trimmed = trimmed.substring(0, trimmed.length() - 1).strip();
+        }
+        return trimmed;
+    }
+
+    private static int digits(byte[] bytes, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            if (bytes[i] < '0' || bytes[i] > '9') {
+                return -1;
+            }
+            value = value * 10 + bytes[i] - '0';
+        }
+        return value;
+    }
+}
@@ -0,0 +1,18 @@
+package scopeland.libraryapp.ingest;
+
+/*
+ * One book as read from a catalogue file, before any checks. Values are as they
+ * appear in the file, null when missing.
+ * 
+ * @param number - Position of the record in the file, from 0, not counting any
+ * header
+ * 
+ * @param problem - Why the record could not be read, null if it could
+ */
+public record RawBookRecord(long number, String isbn, String title, String author, String publicationYear,
+        String bookStatus, String problem) {
+
+    static RawBookRecord unreadable(long number, String problem) {
+        return new RawBookRecord(number, null, null, null, null, null, problem);
+    }
+}
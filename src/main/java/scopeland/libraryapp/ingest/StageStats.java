@@ -0,0 +1,47 @@
+package scopeland.libraryapp.ingest;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import scopeland.libraryapp.entities.dtos.IngestStageDto;
+
+/*
+ * Counts the records a pipeline stage handled and the time its threads spent
+ * working on them, leaving out time spent waiting on the queues either side.
+ * Safe to share between the threads of a stage.
+ */
+public class StageStats {
+
+    private final String name;
+    private final int threads;
+    private final LongAdder records = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+
+    public StageStats(String name, int threads) {
+        this.name = name;
+        this.threads = threads;
+    }
+
+    /*
+     * @param count - How many records the work covered, 0 for extra work on
+     * records already counted
+     * 
+     * @param startNanos - System.nanoTime() when the work started
+     */
+    public void record(long count, long startNanos) {
+        records.add(count);
+        busyNanos.add(System.nanoTime() - startNanos);
+    }
+
+    /*
+     * @return - The counts so far. recordsPerSecond is the rate the stage could
+     * keep up with its threads busy all the time, so the lowest rate is the stage
+     * holding the pipeline back.
+     */
+    public IngestStageDto toDto() {
+        long count = records.sum();
+        long busy = busyNanos.sum();
+        double perThreadSeconds = busy / 1e9 / threads;
+        return new IngestStageDto(name, threads, count, busy / 1_000_000,
+                perThreadSeconds > 0 ? count / perThreadSeconds : 0.0);
+    }
+}
@@ -0,0 +1,125 @@
+package scopeland.libraryapp.monitoring;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import jdk.jfr.EventType;
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.entities.Holding;
+import scopeland.libraryapp.entities.User;
+import scopeland.libraryapp.entities.dtos.BookPageDto;
+import scopeland.libraryapp.entities.dtos.StatusChangeResultDto;
+
+/*
+ * Records a ServiceCallEvent around each BookServiceImpl and UserServiceImpl
+ * method, and a RepositoryCallEvent around each repository call, so a Java
+ * Flight Recorder recording attributes its time to catalogue operations.
+ *
+ * The events are on whenever a recording is running with them enabled, and
+ * recordings can be started and stopped on a running app with jcmd. With no
+ * recording, or the events disabled, each call costs one check of a flag before
+ * it goes on as before.
+ */
+@Aspect
+@Component
+public class FlightRecorderAspect {
+
+    private static final EventType SERVICE_CALL = EventType.getEventType(ServiceCallEvent.class);
+    private static final EventType REPOSITORY_CALL = EventType.getEventType(RepositoryCallEvent.class);
+
+    @Around("execution(public * scopeland.libraryapp.service.BookServiceImpl.*(..))"
+            + " || execution(public * scopeland.libraryapp.service.UserServiceImpl.*(..))")
+    public Object serviceCall(ProceedingJoinPoint call) throws Throwable {
+        if (!SERVICE_CALL.isEnabled()) {
+            return call.proceed();
+        }
+        return record(new ServiceCallEvent(), call.getSignature().getDeclaringType(), call);
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object repositoryCall(ProceedingJoinPoint call) throws Throwable {
+        if (!REPOSITORY_CALL.isEnabled()) {
+            return call.proceed();
+        }
+        // The repository interface, not the Spring Data interface declaring the method
+        return record(new RepositoryCallEvent(), AopProxyUtils.proxiedUserInterfaces(call.getTarget())[0], call);
+    }
+
+    private Object record(LibraryOperationEvent event, Class<?> type, ProceedingJoinPoint call) throws Throwable {
+        event.type = type.getSimpleName();
+        event.operation = call.getSignature().getName();
+        event.isbn = isbn(((MethodSignature) call.getSignature()).getParameterNames(), call.getArgs());
+        event.begin();
+        try {
+            Object result = call.proceed();
+            event.rows = rows(result);
+            return result;
+        } catch (Throwable ex) {
+            event.exception = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            event.commit();
+        }
+    }
+
+    /*
+     * The isbn of the book a call is for, taken from a book argument or an
+     * argument named isbn, or id for the book and holding repositories
+     *
+     * @return - The isbn, null when the call isn't for one book
+     */
+    static String isbn(String[] parameterNames, Object[] args) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof Book book) {
+                return book.getIsbn();
+            }
+            if (args[i] instanceof Holding holding) {
+                return holding.getIsbn();
+            }
+            if (args[i] instanceof String value && parameterNames != null
+                    && ("isbn".equals(parameterNames[i]) || "id".equals(parameterNames[i]))) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * How many books, users or rows a call returned or changed
+     *
+     * @return - The count, -1 when the result has nothing to count
+     */
+    static int rows(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof BookPageDto page) {
+            return page.getBooks().size();
+        }
+        if (result instanceof StatusChangeResultDto statusChange) {
+            return statusChange.getItems().size();
+        }
+        // Modifying queries return the rows they changed
+        if (result instanceof Integer changed) {
+            return changed;
+        }
+        if (result instanceof Book || result instanceof Holding || result instanceof User) {
+            return 1;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,37 @@
+package scopeland.libraryapp.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/*
+ * The fields shared by the Java Flight Recorder events FlightRecorderAspect
+ * records around service and repository calls. The event's duration is the time
+ * spent in the call, on the thread that made it.
+ */
+@Category("Library")
+@StackTrace(false)
+abstract class LibraryOperationEvent extends Event {
+
+    @Label("Type")
+    @Description("The service or repository called")
+    String type;
+
+    @Label("Operation")
+    @Description("The method called, for repositories the kind of query")
+    String operation;
+
+    @Label("ISBN")
+    @Description("The book the call was for, when it was for one")
+    String isbn;
+
+    @Label("Rows")
+    @Description("Books, users or rows returned or changed, -1 when the call returns nothing to count")
+    int rows = -1;
+
+    @Label("Exception")
+    @Description("The exception the call threw, if any")
+    String exception;
+}
@@ -0,0 +1,15 @@
+package scopeland.libraryapp.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+ * A call to a Spring Data repository, one or a few statements sent to the
+ * database
+ */
+@Name("scopeland.library.RepositoryCall")
+@Label("Repository Call")
+@Category({ "Library", "Repository" })
+public class RepositoryCallEvent extends LibraryOperationEvent {
+}
@@ -0,0 +1,106 @@
+package scopeland.libraryapp.monitoring;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/*
+ * The SQL statements one request has sent to the database so far, counted by
+ * StatementCountingListener while the request's thread is tracking.
+ *
+ * Statements are also counted by shape, the SQL with IN lists of any length
+ * written the same, so the same query sent again and again for different values
+ * (the N+1 pattern) shows up as one shape with a high count.
+ */
+public final class RequestStatements {
+
+    // Request attribute holding the finished counts, for logging and tests
+    public static final String ATTRIBUTE = RequestStatements.class.getName();
+
+    private static final ThreadLocal<RequestStatements> CURRENT = new ThreadLocal<>();
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\?(\\s*,\\s*\\?)*\\)");
+
+    private int count;
+    private long nanos;
+    private final Map<String, Integer> countsBySql = new HashMap<>();
+
+    /*
+     * Starts counting the statements sent from this thread, replacing any counts
+     * already started
+     *
+     * @return - The new, empty counts
+     */
+    public static RequestStatements start() {
+        RequestStatements statements = new RequestStatements();
+        CURRENT.set(statements);
+        return statements;
+    }
+
+    /*
+     * @return - The counts for this thread, null when it isn't tracking
+     */
+    public static RequestStatements current() {
+        return CURRENT.get();
+    }
+
+    /*
+     * Stops counting for this thread
+     *
+     * @return - The final counts, null when it wasn't tracking
+     */
+    public static RequestStatements stop() {
+        RequestStatements statements = CURRENT.get();
+        CURRENT.remove();
+        return statements;
+    }
+
+    /*
+     * Counts one statement sent to the database, a JDBC batch counts once
+     *
+     * @param sql - the statement as sent
+     *
+     * @param elapsedNanos - how long the database took
+     */
+    void record(String sql, long elapsedNanos) {
+        count++;
+        nanos += elapsedNanos;
+        countsBySql.merge(sql, 1, Integer::sum);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    /*
+     * The statement shapes sent at least threshold times
+     *
+     * @param threshold - the fewest sends to include a shape
+     *
+     * @return - Each repeated shape and how many times it was sent
+     */
+    public Map<String, Integer> repeated(int threshold) {
+        Map<String, Integer> countsByShape = new HashMap<>();
+        countsBySql.forEach((sql, sent) -> countsByShape.merge(shape(sql), sent, Integer::sum));
+        countsByShape.values().removeIf(sent -> sent < threshold);
+        return countsByShape;
+    }
+
+    /*
+     * The SQL with whitespace runs collapsed and IN lists written as (?...)
+     */
+    static String shape(String sql) {
+        return IN_LIST.matcher(sql.strip().replaceAll("\\s+", " ")).replaceAll("(?...)");
+    }
+
+    /*
+     * The counts as a Server-Timing header value, database time in milliseconds
+     */
+    public String serverTiming() {
+        return String.format(Locale.ROOT, "db;dur=%.2f;desc=\"%d statements\"", nanos / 1e6, count);
+    }
+}
@@ -0,0 +1,71 @@
+package scopeland.libraryapp.monitoring;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * Tracks the SQL statements each request sends while its handler runs, and once
+ * it completes warns about requests over the statement budget and about
+ * statement shapes sent over and over, the likely sign of an N+1 query.
+ *
+ * The final counts are left on the request as RequestStatements.ATTRIBUTE, and
+ * ServerTimingAdvice writes them to a Server-Timing header on response bodies.
+ *
+ * A handler that goes async, such as the catalogue export, stops tracking when
+ * it hands over, as afterCompletion only runs after the async dispatch and the
+ * container thread moves on to other requests. Statements sent from the async
+ * thread aren't counted.
+ */
+@Component
+public class RequestStatementsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestStatementsInterceptor.class);
+
+    private final int statementBudget;
+    private final int repeatedStatementThreshold;
+
+    public RequestStatementsInterceptor(@Value("${library.sql.statement-budget:20}") int statementBudget,
+            @Value("${library.sql.repeated-statement-threshold:5}") int repeatedStatementThreshold) {
+        this.statementBudget = statementBudget;
+        this.repeatedStatementThreshold = repeatedStatementThreshold;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestStatements.start();
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        RequestStatements.stop();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        RequestStatements statements = RequestStatements.stop();
+        if (statements == null) {
+            return;
+        }
+        request.setAttribute(RequestStatements.ATTRIBUTE, statements);
+
+        if (statements.getCount() > statementBudget) {
+            log.warn("{} {} sent {} SQL statements, over the budget of {}", request.getMethod(),
+                    request.getRequestURI(), statements.getCount(), statementBudget);
+        }
+        for (Map.Entry<String, Integer> repeated : statements.repeated(repeatedStatementThreshold).entrySet()) {
+            log.warn("{} {} sent the same SQL {} times, probably an N+1 query: {}", request.getMethod(),
+                    request.getRequestURI(), repeated.getValue(), repeated.getKey());
+        }
+    }
+}
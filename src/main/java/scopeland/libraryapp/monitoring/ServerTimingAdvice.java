@@ -0,0 +1,40 @@
+package scopeland.libraryapp.monitoring;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/*
+ * Adds a Server-Timing header with the request's SQL statement count and
+ * database time, e.g. db;dur=1.52;desc="2 statements", to every response body
+ * written by a controller or exception handler. Browser dev tools show it
+ * alongside the request's own timing.
+ *
+ * Written just before the body, so it covers all the statements the handler
+ * sent. Views and streamed responses go without.
+ */
+@ControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String HEADER = "Server-Timing";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+            ServerHttpResponse response) {
+        RequestStatements statements = RequestStatements.current();
+        if (statements != null) {
+            response.getHeaders().add(HEADER, statements.serverTiming());
+        }
+        return body;
+    }
+}
@@ -0,0 +1,14 @@
+package scopeland.libraryapp.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+ * A call to a BookServiceImpl or UserServiceImpl method
+ */
+@Name("scopeland.library.ServiceCall")
+@Label("Service Call")
+@Category({ "Library", "Service" })
+public class ServiceCallEvent extends LibraryOperationEvent {
+}
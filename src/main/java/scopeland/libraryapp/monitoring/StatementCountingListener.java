@@ -0,0 +1,37 @@
+package scopeland.libraryapp.monitoring;
+
+import java.util.List;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+/*
+ * Hears every statement sent through the proxied DataSource and counts it
+ * against the RequestStatements of the sending thread. Threads that aren't
+ * tracking, such as startup and background work, cost one ThreadLocal read.
+ */
+public class StatementCountingListener implements QueryExecutionListener {
+
+    private static final String START = "start";
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (RequestStatements.current() != null) {
+            // ExecutionInfo only times to the millisecond
+            execInfo.addCustomValue(START, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RequestStatements statements = RequestStatements.current();
+        Long start = execInfo.getCustomValue(START, Long.class);
+        if (statements == null || start == null || queryInfoList.isEmpty()) {
+            return;
+        }
+        // A statement batch holds one query per addBatch, a prepared batch one
+        // query with many sets of values, either way one trip to the database
+        statements.record(queryInfoList.get(0).getQuery(), System.nanoTime() - start);
+    }
+}
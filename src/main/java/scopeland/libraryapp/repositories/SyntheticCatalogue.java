@@ -0,0 +1,164 @@
+package scopeland.libraryapp.repositories;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.enums.BookStatus;
+
+/*
+ * A generated catalogue of any size for benchmarks, load tests and scale testing.
+ *
+ * Each book is worked out from the seed and its index alone, using StrictMath,
+ * so the same seed gives the same catalogue on any JVM. Book i can be generated
+ * again without storing the others, and a catalogue of tens of millions needs no
+ * memory beyond the book being written.
+ *
+ * The values are spread the way a real catalogue's are:
+ * - Authors follow Zipf's law, the author ranked r has about 1/r of the books of
+ * the first, so a few have hundreds of books and most have one or two
+ * - Titles are drawn from a word list, common words far more often than rare ones
+ * - Publication years cluster around recent years and thin out going back
+ * - A set share of the books are borrowed
+ * - Isbns are consecutive 979 ISBN-13s with valid check digits
+ */
+public class SyntheticCatalogue {
+
+    public static final List<String> TITLE_WORDS = List.of("Time", "Night", "Stars", "House", "City", "Light",
+            "Road", "River", "Empire", "Memory", "Children", "Darkness", "Glass", "Season", "Planet", "Guards",
+            "Way", "Hand", "Fall", "Effect", "Fifth", "Angry", "Small", "Long", "Chilling", "Fortunate", "Mort",
+            "Left", "Winter", "Shadow", "Kingdom", "Ocean", "Machine", "Garden", "Silence", "Fire", "Storm",
+            "Mirror", "Crown", "Bridge");
+
+    private static final List<String> FIRST_NAMES = List.of("Ada", "Becky", "Carlos", "Douglas", "Elena", "Fatima",
+            "George", "Hiro", "Ines", "James", "Kemi", "Li", "Maria", "Nnedi", "Oscar", "Priya", "Quentin", "Rosa",
+            "Samuel", "Tamsyn", "Ursula", "Valerie", "William", "Xin", "Yusuf", "Zadie");
+    private static final List<String> LAST_NAMES = List.of("Adams", "Banks", "Chambers", "Dick", "Egan", "Francis",
+            "Gibson", "Herbert", "Ishiguro", "Jemisin", "King", "Le Guin", "Martine", "Novik", "Okorafor", "Pratchett",
+            "Reynolds", "Stephenson", "Tchaikovsky", "Valdes", "Wells", "Yu", "Zelazny", "Butler", "Clarke", "Delany",
+            "Leckie", "Lee", "Liu", "Mieville", "Muir", "Older", "Robinson", "Simmons", "Vinge", "Walton");
+
+    // No middle initial, one of 26 or two of 26 * 26
+    private static final int MIDDLE_COUNT = 1 + 26 + 26 * 26;
+    private static final int NAME_COUNT = FIRST_NAMES.size() * MIDDLE_COUNT * LAST_NAMES.size();
+    // Coprime to NAME_COUNT, spreads the popular authors over the names
+    private static final int NAME_STRIDE = 7_919;
+    private static final int MIN_AUTHORS = 50;
+    private static final int BOOKS_PER_AUTHOR = 4;
+
+    private static final long FIRST_ISBN = 979_100_000_000L;
+    private static final int LATEST_YEAR = 2023;
+    private static final int EARLIEST_YEAR = 1800;
+
+    private final int size;
+    private final long seed;
+    private final double borrowedRatio;
+    private final int authorCount;
+
+    /*
+     * @param size - the number of books
+     *
+     * @param seed - picks which catalogue of that size
+     *
+     * @param borrowedRatio - the share of books borrowed, from 0 to 1
+     */
+    public SyntheticCatalogue(int size, long seed, double borrowedRatio) {
+        this.size = size;
+        this.seed = seed;
+        this.borrowedRatio = borrowedRatio;
+        this.authorCount = Math.min(NAME_COUNT, Math.max(MIN_AUTHORS, size / BOOKS_PER_AUTHOR));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /*
+     * @param index - from 0 to size - 1
+     *
+     * @return - The isbn of the book at the index, isbns rise with the index
+     */
+    public String isbn(int index) {
+        return isbn13(FIRST_ISBN + index);
+    }
+
+    /*
+     * Generates the book at the index
+     *
+     * @param index - from 0 to size - 1
+     *
+     * @return - A new Book, the same one every time for the same seed and index
+     */
+    public Book book(int index) {
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + index);
+        String author = author(zipf(random, authorCount));
+
+        StringBuilder title = new StringBuilder();
+        if (random.nextInt(3) == 0) {
+            title.append("The ");
+        }
+        int words = 1 + random.nextInt(3);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                title.append(i == words - 1 && random.nextBoolean() ? " of " : " ");
+            }
+            title.append(TITLE_WORDS.get(zipf(random, TITLE_WORDS.size())));
+        }
+
+        // Half normal, most books are from the last few decades
+        int year = LATEST_YEAR - (int) Math.abs(gaussian(random) * 30);
+        BookStatus status = random.nextDouble() < borrowedRatio ? BookStatus.BORROWED : BookStatus.AVAILABLE;
+        return new Book(isbn(index), title.toString(), author, Math.max(year, EARLIEST_YEAR), status);
+    }
+
+    /*
+     * @param rank - from 0, the most prolific author, to the number of authors
+     *
+     * @return - The name of the author at that rank
+     */
+    public String author(int rank) {
+        int name = (int) ((long) rank * NAME_STRIDE % NAME_COUNT);
+        StringBuilder author = new StringBuilder(FIRST_NAMES.get(name % FIRST_NAMES.size())).append(' ');
+        name /= FIRST_NAMES.size();
+        int middle = name % MIDDLE_COUNT;
+        if (middle > 26) {
+            author.append((char) ('A' + (middle - 27) / 26)).append(". ");
+            middle = (middle - 27) % 26 + 1;
+        }
+        if (middle > 0) {
+            author.append((char) ('A' + middle - 1)).append(". ");
+        }
+        return author.append(LAST_NAMES.get(name / MIDDLE_COUNT)).toString();
+    }
+
+    public int getAuthorCount() {
+        return authorCount;
+    }
+
+    /*
+     * The ISBN-13 made by adding the check digit to the first 12 digits
+     */
+    static String isbn13(long first12Digits) {
+        String digits = Long.toString(first12Digits);
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return digits + (char) ('0' + (10 - sum % 10) % 10);
+    }
+
+    /*
+     * A rank from 0 to count - 1, rank r about 1/(r + 1) as likely as rank 0. The
+     * inverse of the continuous approximation to the Zipf distribution.
+     */
+    private static int zipf(SplittableRandom random, int count) {
+        int rank = (int) StrictMath.pow(count + 1, random.nextDouble()) - 1;
+        return Math.min(rank, count - 1);
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller rather than nextGaussian, whose algorithm isn't specified
+        double u = 1.0 - random.nextDouble();
+        return StrictMath.sqrt(-2 * StrictMath.log(u)) * StrictMath.cos(2 * StrictMath.PI * random.nextDouble());
+    }
+}
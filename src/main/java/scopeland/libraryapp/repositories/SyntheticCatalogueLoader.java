@@ -0,0 +1,92 @@
+package scopeland.libraryapp.repositories;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import scopeland.libraryapp.entities.Book;
+
+/*
+ * Fills the books table with a SyntheticCatalogue when the synthetic profile is
+ * active, for example --spring.profiles.active=synthetic
+ * --library.synthetic.size=1000000
+ *
+ * Rows are written with plain JDBC batches, a transaction per batch, rather than
+ * through bookRepository.save, which would select each book first and keep every
+ * one in the persistence context. Runs as a CommandLineRunner like
+ * DatabaseLoader, so BookIndexLoader loads the generated books into the in-memory
+ * indexes once the app is ready.
+ */
+@Component
+@Profile("synthetic")
+public class SyntheticCatalogueLoader implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticCatalogueLoader.class);
+
+    private final SyntheticCatalogue catalogue;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public SyntheticCatalogueLoader(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            @Value("${library.synthetic.size:10000}") int size,
+            @Value("${library.synthetic.seed:1}") long seed,
+            @Value("${library.synthetic.borrowed-ratio:0.1}") double borrowedRatio,
+            @Value("${library.synthetic.batch-size:5000}") int batchSize) {
+        this.catalogue = new SyntheticCatalogue(size, seed, borrowedRatio);
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(String... args) {
+        long start = System.currentTimeMillis();
+        for (int first = 0; first < catalogue.size(); first += batchSize) {
+            int from = first;
+            int count = Math.min(batchSize, catalogue.size() - first);
+            transactionTemplate.executeWithoutResult(status -> insert(from, count));
+        }
+        log.info("Generated a synthetic catalogue of {} books by {} authors in {} ms", catalogue.size(),
+                catalogue.getAuthorCount(), System.currentTimeMillis() - start);
+    }
+
+    /*
+     * The catalogue written, so callers can generate its books again to look up
+     */
+    public SyntheticCatalogue getCatalogue() {
+        return catalogue;
+    }
+
+    private void insert(int from, int count) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO books (isbn, title, author, author_normalised, publication_year, book_status) VALUES (?, ?, ?, ?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        Book book = catalogue.book(from + i);
+                        statement.setLong(1, Long.parseLong(book.getIsbn()));
+                        statement.setString(2, book.getTitle());
+                        statement.setString(3, book.getAuthor());
+                        statement.setString(4, book.getAuthorNormalised());
+                        statement.setInt(5, book.getPublicationYear());
+                        statement.setInt(6, book.getBookStatus().ordinal());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return count;
+                    }
+                });
+    }
+}
@@ -1,11 +1,22 @@
 package scopeland.libraryapp.repositories.interfaces;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
 
 import scopeland.libraryapp.entities.Book;
 
@@ -13,10 +24,11 @@ import scopeland.libraryapp.entities.Book;
  * A simple repository interface built ontop of a JPA Repository for a Book Entity and its string ISBN Primary key
  */
 @Repository
-public interface IBookRepository extends JpaRepository<Book, String> {
+public interface IBookRepository extends JpaRepository<Book, String>, IBookSearchRepository, IBookWriteRepository {
 
     /*
      * Custom method to search for books between certain dates
+     * Seeks on idx_books_publication_year rather than scanning the table
      * 
      * @param startYear - The lower search limit
      * 
@@ -29,4 +41,86 @@ public interface IBookRepository extends JpaRepository<Book, String> {
     List<Book> searchBooksInYearRange(
             @Param("startYear") Integer startYear,
             @Param("endYear") Integer endYear);
-}
\ No newline at end of file
+
+    /*
+     * Keyset pagination over the ISBN primary key.
+     * Seeks straight to the first isbn after the cursor using the primary key index
+     * rather than counting past an offset, so every page costs the same.
+     * 
+     * @param afterIsbn - Only books with an isbn after this one are returned
+     * 
+     * @param pageable - Only the page size is used, the order is always by isbn
+     * 
+     * @result - The next books in isbn order
+     */
+    @Query("SELECT b FROM Book b WHERE b.isbn > :afterIsbn ORDER BY b.isbn")
+    List<Book> findPageAfter(@Param("afterIsbn") String afterIsbn, Pageable pageable);
+
+    /*
+     * Streams every book in isbn order from a database cursor instead of loading
+     * them all into a list. Must be called inside a transaction and the stream
+     * closed when done.
+     * 
+     * @result - A stream over the whole books table
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("SELECT b FROM Book b ORDER BY b.isbn")
+    Stream<Book> streamAll();
+
+    /*
+     * Author searches against the indexed, normalised author column.
+     * Exact and prefix matches can seek on idx_books_author_normalised,
+     * contains has to scan the index but never the whole table.
+     * 
+     * @param value - An already normalised search value
+     * 
+     * @result - The list of books matching the search
+     */
+    List<Book> findByAuthorNormalised(String value);
+
+    List<Book> findByAuthorNormalisedStartingWith(String value);
+
+    List<Book> findByAuthorNormalisedContaining(String value);
+
+    /*
+     * Finds which of the isbns are already stored, in one query seeking on the
+     * primary key
+     * 
+     * @param isbns - The canonical isbns to check, as Book.getIsbn gives them, keep
+     * to a few hundred per call
+     * 
+     * @result - The isbns from the list that are stored
+     */
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+    Set<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    /*
+     * Overwrites a stored book in a single UPDATE, without loading it first. A
+     * book with copies held keeps its status, which follows the copies.
+     * 
+     * @param book - The new values, matched to the stored book by isbn
+     * 
+     * @result - 1 if the book was updated, 0 if there is no book with the isbn
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Book b SET b.title = :#{#book.title}, b.author = :#{#book.author}, "
+            + "b.authorNormalised = :#{#book.authorNormalised}, b.publicationYear = :#{#book.publicationYear}, "
+            + "b.bookStatus = CASE WHEN EXISTS (SELECT h.isbn FROM Holding h WHERE h.isbn = b.isbn) "
+            + "THEN b.bookStatus ELSE :#{#book.bookStatus} END WHERE b.isbn = :#{#book.isbn}")
+    int updateIfPresent(@Param("book") Book book);
+
+    /*
+     * Deletes a book in a single DELETE, without loading it first
+     * 
+     * @param isbn - The isbn of the book to delete
+     * 
+     * @result - 1 if the book was deleted, 0 if there is no book with the isbn
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Book b WHERE b.isbn = :isbn")
+    int deleteIfPresent(@Param("isbn") String isbn);
+}
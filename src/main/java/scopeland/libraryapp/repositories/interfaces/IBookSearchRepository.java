@@ -0,0 +1,25 @@
+package scopeland.libraryapp.repositories.interfaces;
+
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import scopeland.libraryapp.entities.Book;
+
+/*
+ * Runs a combined book search as one query, mixed into IBookRepository
+ */
+public interface IBookSearchRepository {
+
+    /*
+     * Finds the first books matching the specification in isbn order. Unlike
+     * findAll with a Pageable this never issues a count query.
+     * 
+     * @param specification - the filters to apply, null for none
+     * 
+     * @param limit - the most books to return
+     * 
+     * @result - The matching books in isbn order
+     */
+    List<Book> findFirstMatching(Specification<Book> specification, int limit);
+}
@@ -0,0 +1,41 @@
+package scopeland.libraryapp.repositories.interfaces;
+
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import scopeland.libraryapp.entities.Book;
+
+/*
+ * Criteria query implementation of IBookSearchRepository. Spring Data finds it by
+ * its name, and only looks in the package of the repository interfaces.
+ */
+public class IBookSearchRepositoryImpl implements IBookSearchRepository {
+
+    private final EntityManager entityManager;
+
+    public IBookSearchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Book> findFirstMatching(Specification<Book> specification, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = builder.createQuery(Book.class);
+        Root<Book> root = query.from(Book.class);
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, builder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.orderBy(builder.asc(root.get("isbn")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
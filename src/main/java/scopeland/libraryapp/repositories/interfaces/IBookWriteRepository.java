@@ -0,0 +1,71 @@
+package scopeland.libraryapp.repositories.interfaces;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.enums.BookStatus;
+
+/*
+ * Book writes that need more than a derived or @Query method, mixed into
+ * IBookRepository
+ */
+public interface IBookWriteRepository {
+
+    /*
+     * Inserts the book without first checking for it. save can't do this for a
+     * Book, as with an assigned id it selects the row first to choose between
+     * insert and update.
+     * 
+     * @param book - The new book
+     * 
+     * @throws DataIntegrityViolationException - if a book with the isbn is
+     * already stored
+     */
+    void insert(Book book);
+
+    /*
+     * Changes the status of a book in one conditional UPDATE, so two desks
+     * borrowing the same book at once can't both succeed. Borrowing only matches
+     * a book that isn't borrowed already, returning always matches. The book is
+     * read back in the same transaction, while the update's row lock keeps other
+     * writers out. Books with copies held are left alone, their status follows
+     * the copies, see updateHeldStatus.
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @param newStatus - The status to change to
+     * 
+     * @return - The book as updated, empty if there is no such book, it was
+     * already borrowed or it has copies held
+     */
+    Optional<Book> updateStatus(String isbn, BookStatus newStatus);
+
+    /*
+     * Changes the status of many books in one transaction, with a SELECT that
+     * locks them and a single UPDATE. Borrowing skips the books already
+     * borrowed, and books with copies held aren't found, as with updateStatus.
+     * 
+     * @param isbns - The isbns of the books
+     * 
+     * @param newStatus - The status to change to
+     * 
+     * @return - Detached copies of the books found, as they were before the
+     * change
+     */
+    List<Book> updateStatuses(Collection<String> isbns, BookStatus newStatus);
+
+    /*
+     * Sets the status of a book with copies held, as its copies go out and come
+     * back. The only status write such a book takes.
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @param newStatus - The status its copies give it
+     * 
+     * @return - The book as updated, empty if there is no such book or it has no
+     * copies held
+     */
+    Optional<Book> updateHeldStatus(String isbn, BookStatus newStatus);
+}
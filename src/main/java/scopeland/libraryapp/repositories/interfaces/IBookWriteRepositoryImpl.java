@@ -0,0 +1,88 @@
+package scopeland.libraryapp.repositories.interfaces;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.enums.BookStatus;
+
+/*
+ * EntityManager based implementation of IBookWriteRepository. Spring Data finds it by
+ * its name, and only looks in the package of the repository interfaces.
+ */
+public class IBookWriteRepositoryImpl implements IBookWriteRepository {
+
+    private static final String NOT_HELD = " AND NOT EXISTS (SELECT h.isbn FROM Holding h WHERE h.isbn = b.isbn)";
+
+    private final EntityManager entityManager;
+
+    public IBookWriteRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /*
+     * Flushes straight away so a duplicate isbn fails here, where the repository
+     * translates it, rather than at commit
+     */
+    @Override
+    @Transactional
+    public void insert(Book book) {
+        entityManager.persist(book);
+        entityManager.flush();
+    }
+
+    @Override
+    @Transactional
+    public Optional<Book> updateStatus(String isbn, BookStatus newStatus) {
+        int updated = entityManager
+                .createQuery("UPDATE Book b SET b.bookStatus = :newStatus WHERE b.isbn = :isbn" + NOT_HELD
+                        + onlyIfNotBorrowed(newStatus))
+                .setParameter("newStatus", newStatus)
+                .setParameter("isbn", isbn)
+                .executeUpdate();
+        return updated == 0 ? Optional.empty() : Optional.of(entityManager.find(Book.class, isbn));
+    }
+
+    @Override
+    @Transactional
+    public List<Book> updateStatuses(Collection<String> isbns, BookStatus newStatus) {
+        List<Book> books = entityManager.createQuery("SELECT b FROM Book b WHERE b.isbn IN :isbns" + NOT_HELD, Book.class)
+                .setParameter("isbns", isbns)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList()
+                .stream()
+                .map(Book::copy)
+                .toList();
+        if (!books.isEmpty()) {
+            entityManager
+                    .createQuery("UPDATE Book b SET b.bookStatus = :newStatus WHERE b.isbn IN :isbns" + NOT_HELD
+                            + onlyIfNotBorrowed(newStatus))
+                    .setParameter("newStatus", newStatus)
+                    .setParameter("isbns", isbns)
+                    .executeUpdate();
+        }
+        return books;
+    }
+
+    @Override
+    @Transactional
+    public Optional<Book> updateHeldStatus(String isbn, BookStatus newStatus) {
+        int updated = entityManager
+                .createQuery("UPDATE Book b SET b.bookStatus = :newStatus WHERE b.isbn = :isbn"
+                        + " AND EXISTS (SELECT h.isbn FROM Holding h WHERE h.isbn = b.isbn)")
+                .setParameter("newStatus", newStatus)
+                .setParameter("isbn", isbn)
+                .executeUpdate();
+        return updated == 0 ? Optional.empty() : Optional.of(entityManager.find(Book.class, isbn));
+    }
+
+    private static String onlyIfNotBorrowed(BookStatus newStatus) {
+        return newStatus == BookStatus.BORROWED ? " AND b.bookStatus <> :newStatus" : "";
+    }
+}
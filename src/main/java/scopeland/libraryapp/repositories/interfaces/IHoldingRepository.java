@@ -0,0 +1,77 @@
+package scopeland.libraryapp.repositories.interfaces;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import scopeland.libraryapp.entities.Holding;
+
+/*
+ * Repository for the copies held of each book, keyed by the books isbn.
+ * Lending and returning are conditional UPDATEs, so the database never lends
+ * more copies than it holds however many checkouts race for the last one.
+ */
+@Repository
+public interface IHoldingRepository extends JpaRepository<Holding, String> {
+
+    /*
+     * Records the copies of a book held for the first time, all on the shelf, in
+     * one INSERT that only finds a row to insert if the book exists
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @param totalCopies - How many copies are held
+     * 
+     * @result - 1 if recorded, 0 if there is no book with the isbn
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO holdings (isbn, total_copies, available_copies) "
+            + "SELECT b.isbn, :totalCopies, :totalCopies FROM books b WHERE b.isbn = :isbn", nativeQuery = true)
+    int insertIfBookExists(@Param("isbn") String isbn, @Param("totalCopies") int totalCopies);
+
+    /*
+     * Takes one copy off the shelf, if there is one
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @result - 1 if a copy was lent, 0 if none were available or nothing is held
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Holding h SET h.availableCopies = h.availableCopies - 1 "
+            + "WHERE h.isbn = :isbn AND h.availableCopies > 0")
+    int checkOut(@Param("isbn") String isbn);
+
+    /*
+     * Puts one copy back on the shelf, if any are on loan
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @result - 1 if a copy was returned, 0 if none were on loan or nothing is held
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Holding h SET h.availableCopies = h.availableCopies + 1 "
+            + "WHERE h.isbn = :isbn AND h.availableCopies < h.totalCopies")
+    int checkIn(@Param("isbn") String isbn);
+
+    /*
+     * Changes how many copies are held, adding or removing them from the shelf.
+     * Copies on loan can't be removed.
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @param totalCopies - How many copies are now held
+     * 
+     * @result - 1 if changed, 0 if more copies are on loan than would be held
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Holding h SET h.availableCopies = h.availableCopies + :totalCopies - h.totalCopies, "
+            + "h.totalCopies = :totalCopies WHERE h.isbn = :isbn AND h.totalCopies - h.availableCopies <= :totalCopies")
+    int updateTotalCopies(@Param("isbn") String isbn, @Param("totalCopies") int totalCopies);
+}
@@ -1,5 +1,8 @@
 package scopeland.libraryapp.repositories.interfaces;
 
+import java.util.List;
+
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import scopeland.libraryapp.entities.User;
@@ -15,4 +18,13 @@ public interface IUserRepository extends JpaRepository<User, Long> {
      */
     User findByEmail(String email);
 
+    /*
+     * Every user with their roles, fetched in the same query rather than one
+     * query for each user's roles
+     * 
+     * @result - All the users
+     */
+    @Override
+    @EntityGraph(attributePaths = "roles")
+    List<User> findAll();
 }
@@ -0,0 +1,110 @@
+package scopeland.libraryapp.repositories.specifications;
+
+import java.util.Locale;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.enums.BookStatus;
+import scopeland.libraryapp.search.TextNormaliser;
+
+/*
+ * The filters the combined book search can be built from.
+ * 
+ * Each one returns null when its value is missing, which Specification.where
+ * and and() skip, so callers can chain every filter and only the ones given end
+ * up in the WHERE clause.
+ */
+public final class BookSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private BookSpecifications() {
+    }
+
+    /*
+     * Books whose author starts with the value, ignoring case, accents and extra
+     * spaces. Compares against the normalised author column so it can seek on
+     * idx_books_author_normalised.
+     * 
+     * @param author - the start of the author name
+     */
+    public static Specification<Book> authorStartsWith(String author) {
+        String normalised = TextNormaliser.normalise(author);
+        if (normalised == null || normalised.isEmpty()) {
+            return null;
+        }
+        return (root, query, builder) -> builder.like(root.get("authorNormalised"),
+                escapeLike(normalised) + "%", LIKE_ESCAPE);
+    }
+
+    /*
+     * Books whose title contains the value, ignoring case
+     * 
+     * @param title - part of the title
+     */
+    public static Specification<Book> titleContains(String title) {
+        if (title == null || title.isBlank()) {
+            return null;
+        }
+        String pattern = "%" + escapeLike(title.trim().toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, builder) -> builder.like(builder.lower(root.get("title")), pattern, LIKE_ESCAPE);
+    }
+
+    /*
+     * Books published in or after the year, can seek on
+     * idx_books_publication_year
+     * 
+     * @param startYear - the first year wanted
+     */
+    public static Specification<Book> publishedFrom(Integer startYear) {
+        if (startYear == null) {
+            return null;
+        }
+        return (root, query, builder) -> builder.greaterThanOrEqualTo(root.get("publicationYear"), startYear);
+    }
+
+    /*
+     * Books published in or before the year, can seek on
+     * idx_books_publication_year
+     * 
+     * @param endYear - the last year wanted
+     */
+    public static Specification<Book> publishedTo(Integer endYear) {
+        if (endYear == null) {
+            return null;
+        }
+        return (root, query, builder) -> builder.lessThanOrEqualTo(root.get("publicationYear"), endYear);
+    }
+
+    /*
+     * Books with the given status
+     * 
+     * @param status - the status wanted
+     */
+    public static Specification<Book> hasStatus(BookStatus status) {
+        if (status == null) {
+            return null;
+        }
+        return (root, query, builder) -> builder.equal(root.get("bookStatus"), status);
+    }
+
+    /*
+     * Books after the isbn, the keyset for paging through results in isbn order
+     * 
+     * @param isbn - the isbn of the last book on the previous page
+     */
+    public static Specification<Book> isbnAfter(String isbn) {
+        if (isbn == null || isbn.isEmpty()) {
+            return null;
+        }
+        return (root, query, builder) -> builder.greaterThan(root.get("isbn"), isbn);
+    }
+
+    /*
+     * Stops % and _ typed by a user acting as wildcards
+     */
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,26 @@
+package scopeland.libraryapp.search;
+
+import scopeland.libraryapp.entities.Book;
+
+/*
+ * Implemented by in-memory structures that mirror the books table.
+ * 
+ * BookServiceImpl calls these after every successful write, and BookIndexLoader
+ * feeds every stored book through bookSaved once at startup.
+ */
+public interface BookChangeListener {
+
+    /*
+     * Called when a book is added or any of its fields change
+     * 
+     * @param book - The book as it is now stored
+     */
+    void bookSaved(Book book);
+
+    /*
+     * Called when a book is removed
+     * 
+     * @param isbn - The isbn of the removed book
+     */
+    void bookDeleted(String isbn);
+}
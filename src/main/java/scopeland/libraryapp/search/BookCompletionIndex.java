@@ -0,0 +1,154 @@
+package scopeland.libraryapp.search;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.entities.dtos.CompletionStatsDto;
+import scopeland.libraryapp.entities.dtos.CompletionsDto;
+
+/*
+ * Typeahead over book titles and author names, one CompletionTrie for each.
+ * 
+ * Lookups only walk the typed prefix and copy a cached list, so their cost does
+ * not depend on the size of the catalogue. The number of distinct phrases kept
+ * is capped so the memory used stays bounded, phrases past the cap are not
+ * offered until others are removed. Books using phrases already offered still
+ * count towards them at the cap.
+ */
+@Component
+public class BookCompletionIndex implements BookChangeListener {
+
+    public static final int MAX_COMPLETIONS = 10;
+
+    private static final Logger log = LoggerFactory.getLogger(BookCompletionIndex.class);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final CompletionTrie titles = new CompletionTrie(MAX_COMPLETIONS);
+    private final CompletionTrie authors = new CompletionTrie(MAX_COMPLETIONS);
+    private final Map<String, IndexedPhrases> indexedBooks = new HashMap<>();
+    private final int maxPhrases;
+    private boolean capReported = false;
+
+    /*
+     * The title and author a book was counted under, null for one refused at the
+     * cap
+     */
+    private record IndexedPhrases(String title, String author) {
+    }
+
+    public BookCompletionIndex(@Value("${library.autocomplete.max-phrases:2000000}") int maxPhrases) {
+        this.maxPhrases = maxPhrases;
+    }
+
+    /*
+     * Swaps the old title and author of the book for the new ones
+     * 
+     * @param book - The book as it is now stored
+     */
+    @Override
+    public void bookSaved(Book book) {
+        lock.writeLock().lock();
+        try {
+            IndexedPhrases old = indexedBooks.get(book.getIsbn());
+            if (old != null && book.getTitle().equals(old.title()) && book.getAuthor().equals(old.author())) {
+                return;
+            }
+            if (old != null) {
+                forget(old);
+                indexedBooks.remove(book.getIsbn());
+            }
+            if (titles.phraseCount() + authors.phraseCount() < maxPhrases) {
+                titles.add(book.getTitle());
+                authors.add(book.getAuthor());
+                indexedBooks.put(book.getIsbn(), new IndexedPhrases(book.getTitle(), book.getAuthor()));
+                return;
+            }
+            if (!capReported) {
+                log.warn("Autocomplete phrase cap of {} reached, new titles and authors will not be suggested",
+                        maxPhrases);
+                capReported = true;
+            }
+            // Phrases already offered still count the book, only new ones are refused
+            String title = titles.addExisting(book.getTitle()) ? book.getTitle() : null;
+            String author = authors.addExisting(book.getAuthor()) ? book.getAuthor() : null;
+            if (title != null || author != null) {
+                indexedBooks.put(book.getIsbn(), new IndexedPhrases(title, author));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Drops the title and author of the removed book
+     * 
+     * @param isbn - The isbn of the removed book
+     */
+    @Override
+    public void bookDeleted(String isbn) {
+        lock.writeLock().lock();
+        try {
+            IndexedPhrases old = indexedBooks.remove(isbn);
+            if (old != null) {
+                forget(old);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Completes a prefix against titles and authors
+     * 
+     * @param prefix - what has been typed so far
+     * 
+     * @param limit - how many of each to return, capped at MAX_COMPLETIONS
+     * 
+     * @return - The most used matching titles and authors
+     */
+    public CompletionsDto complete(String prefix, Integer limit) {
+        int maxResults = limit == null ? MAX_COMPLETIONS : Math.max(1, Math.min(limit, MAX_COMPLETIONS));
+        lock.readLock().lock();
+        try {
+            return new CompletionsDto(texts(titles.complete(prefix, maxResults)),
+                    texts(authors.complete(prefix, maxResults)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * @return - The size of the tries and an estimate of the memory they use
+     */
+    public CompletionStatsDto stats() {
+        lock.readLock().lock();
+        try {
+            return new CompletionStatsDto(titles.phraseCount(), authors.phraseCount(),
+                    titles.nodeCount() + authors.nodeCount(),
+                    titles.estimatedBytes() + authors.estimatedBytes(), maxPhrases);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void forget(IndexedPhrases phrases) {
+        if (phrases.title() != null) {
+            titles.remove(phrases.title());
+        }
+        if (phrases.author() != null) {
+            authors.remove(phrases.author());
+        }
+    }
+
+    private static List<String> texts(List<CompletionTrie.Completion> completions) {
+        return completions.stream().map(CompletionTrie.Completion::text).toList();
+    }
+}
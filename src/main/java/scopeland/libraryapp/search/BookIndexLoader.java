@@ -0,0 +1,49 @@
+package scopeland.libraryapp.search;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import scopeland.libraryapp.service.BookService;
+
+/*
+ * Fills every BookChangeListener from the database once the application is ready.
+ * 
+ * Runs after the CommandLineRunners (such as DatabaseLoader) so their books are
+ * included, and reads the catalogue in a single streamed pass shared by all
+ * listeners.
+ */
+@Component
+public class BookIndexLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(BookIndexLoader.class);
+
+    private final BookService bookService;
+    private final List<BookChangeListener> bookChangeListeners;
+
+    public BookIndexLoader(BookService bookService, List<BookChangeListener> bookChangeListeners) {
+        this.bookService = bookService;
+        this.bookChangeListeners = bookChangeListeners;
+    }
+
+    /*
+     * Streams every stored book into each listener
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndexes() {
+        long start = System.currentTimeMillis();
+        long[] count = { 0 };
+        bookService.exportBooks(book -> {
+            for (BookChangeListener listener : bookChangeListeners) {
+                listener.bookSaved(book);
+            }
+            count[0]++;
+        });
+        log.info("Loaded {} books into {} in-memory indexes in {} ms", count[0], bookChangeListeners.size(),
+                System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,254 @@
+package scopeland.libraryapp.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import scopeland.libraryapp.entities.Book;
+
+/*
+ * An in-memory inverted index over book titles and authors.
+ *
+ * Every term maps to a posting list of the documents containing it. A query
+ * returns the books containing every query term, ranked by the sum of
+ * idf * term weight, where the term weight is how often the term appears in the
+ * book scaled down for books with a lot of words. Queries never touch the
+ * database, the index keeps its own copy of each book.
+ *
+ * A few very common English words are left out of the index and ignored in
+ * queries. They appear in most titles so their posting lists would cover most of
+ * the catalogue, making them slow to walk while adding nothing to the ranking.
+ *
+ * Removed books leave a gap in the document ids, once more than half of the ids
+ * are gaps the index is rebuilt to keep posting lists dense.
+ */
+@Component
+public class BookSearchIndex implements BookChangeListener {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private static final int MIN_DELETED_BEFORE_COMPACT = 1024;
+    static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "at", "by", "for", "in", "of", "on",
+            "the", "to", "with");
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> docIdsByIsbn = new HashMap<>();
+    private final List<Book> docs = new ArrayList<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private int deletedDocs = 0;
+
+    /*
+     * Adds the book to the index, replacing any older copy with the same isbn
+     *
+     * @param book - The book as it is now stored
+     */
+    @Override
+    public void bookSaved(Book book) {
+        Book snapshot = book.copy();
+        lock.writeLock().lock();
+        try {
+            removeDoc(snapshot.getIsbn());
+            addDoc(snapshot);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Removes the book from the index
+     *
+     * @param isbn - The isbn of the removed book
+     */
+    @Override
+    public void bookDeleted(String isbn) {
+        lock.writeLock().lock();
+        try {
+            removeDoc(isbn);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Finds the books whose title or author contain every term in the query
+     *
+     * @param query - Free text, split into terms the same way books are
+     *
+     * @param limit - The most results wanted, clamped between 1 and MAX_LIMIT
+     *
+     * @return - The matching books, best match first
+     */
+    public List<Book> search(String query, Integer limit) {
+        int maxResults = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        String[] terms = Arrays.stream(TextNormaliser.tokenise(query))
+                .filter(term -> !STOP_WORDS.contains(term))
+                .distinct()
+                .toArray(String[]::new);
+        if (terms.length == 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            PostingList[] lists = new PostingList[terms.length];
+            for (int i = 0; i < terms.length; i++) {
+                lists[i] = postings.get(terms[i]);
+                if (lists[i] == null) {
+                    return List.of();
+                }
+            }
+
+            // Walk the rarest term and seek the others to it
+            Arrays.sort(lists, Comparator.comparingInt(PostingList::size));
+            float[] idf = new float[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                idf[i] = (float) Math.log(1.0 + (double) docIdsByIsbn.size() / lists[i].size());
+            }
+
+            PriorityQueue<ScoredDoc> best = new PriorityQueue<>(maxResults);
+            int[] cursors = new int[lists.length];
+            PostingList rarest = lists[0];
+            candidates: for (int i = 0; i < rarest.size(); i++) {
+                int docId = rarest.docIdAt(i);
+                float score = idf[0] * rarest.weightAt(i);
+                for (int j = 1; j < lists.length; j++) {
+                    cursors[j] = lists[j].seek(cursors[j], docId);
+                    if (cursors[j] == lists[j].size()) {
+                        break candidates;
+                    }
+                    if (lists[j].docIdAt(cursors[j]) != docId) {
+                        continue candidates;
+                    }
+                    score += idf[j] * lists[j].weightAt(cursors[j]);
+                }
+                // Most candidates for common terms can't make the cut, skip them without allocating
+                if (best.size() < maxResults) {
+                    best.offer(new ScoredDoc(docId, score));
+                } else if (score > best.peek().score()) {
+                    best.poll();
+                    best.offer(new ScoredDoc(docId, score));
+                }
+            }
+
+            Book[] results = new Book[best.size()];
+            for (int i = results.length - 1; i >= 0; i--) {
+                results[i] = docs.get(best.poll().docId);
+            }
+            return Arrays.asList(results);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * @return - The number of books currently indexed
+     */
+    public int documentCount() {
+        lock.readLock().lock();
+        try {
+            return docIdsByIsbn.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * @return - The number of distinct terms currently indexed
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addDoc(Book book) {
+        int docId = docs.size();
+        docs.add(book);
+        docIdsByIsbn.put(book.getIsbn(), docId);
+        termWeights(book).forEach((term, weight) -> postings.computeIfAbsent(term, key -> new PostingList())
+                .append(docId, weight));
+    }
+
+    private void removeDoc(String isbn) {
+        Integer docId = docIdsByIsbn.remove(isbn);
+        if (docId == null) {
+            return;
+        }
+        Book old = docs.set(docId, null);
+        deletedDocs++;
+        for (String term : termWeights(old).keySet()) {
+            PostingList list = postings.get(term);
+            list.remove(docId);
+            if (list.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (deletedDocs < MIN_DELETED_BEFORE_COMPACT || deletedDocs * 2 < docs.size()) {
+            return;
+        }
+        List<Book> live = new ArrayList<>(docIdsByIsbn.size());
+        for (Book book : docs) {
+            if (book != null) {
+                live.add(book);
+            }
+        }
+        docs.clear();
+        docIdsByIsbn.clear();
+        postings.clear();
+        deletedDocs = 0;
+        live.forEach(this::addDoc);
+    }
+
+    /*
+     * Counts each term across the title and author and scales by the number of
+     * words so a match in a short title outranks the same match in a long one
+     */
+    private static Map<String, Float> termWeights(Book book) {
+        Map<String, Float> weights = new LinkedHashMap<>();
+        int termCount = countTerms(TextNormaliser.tokenise(book.getTitle()), weights)
+                + countTerms(TextNormaliser.tokenise(book.getAuthor()), weights);
+        float lengthNorm = (float) Math.sqrt(Math.max(1, termCount));
+        weights.replaceAll((term, count) -> count / lengthNorm);
+        return weights;
+    }
+
+    private static int countTerms(String[] terms, Map<String, Float> counts) {
+        int counted = 0;
+        for (String term : terms) {
+            if (!STOP_WORDS.contains(term)) {
+                counts.merge(term, 1f, Float::sum);
+                counted++;
+            }
+        }
+        return counted;
+    }
+
+    /*
+     * A candidate result, ordered worst first so the priority queue can drop it
+     */
+    private record ScoredDoc(int docId, float score) implements Comparable<ScoredDoc> {
+        @Override
+        public int compareTo(ScoredDoc other) {
+            int byScore = Float.compare(score, other.score);
+            return byScore != 0 ? byScore : Integer.compare(other.docId, docId);
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package scopeland.libraryapp.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * A radix tree (path compressed trie) of phrases for prefix completion.
+ *
+ * Each phrase is stored under its normalised key with a count of how many books
+ * use it. Every node caches the best completions in its subtree (highest count
+ * first, then alphabetical), so a lookup only walks the prefix and copies the
+ * cached list. A node's cache only depends on its children's caches, so writes
+ * only touch the nodes on the phrase's path and stop at the first one whose cache
+ * does not change. An added phrase only gains count, so it is offered to each
+ * cache in turn; a removed one may have to be replaced from further down, so
+ * those caches are rebuilt by merging the children's caches.
+ *
+ * Not thread safe, callers guard it with their own lock.
+ */
+public class CompletionTrie {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Completion[] NO_COMPLETIONS = new Completion[0];
+
+    // Rough per object costs on a 64 bit JVM with compressed oops, for reporting only
+    private static final long NODE_BYTES = 40;
+    private static final long STRING_BYTES = 40;
+    private static final long ARRAY_BYTES = 16;
+    private static final long REFERENCE_BYTES = 4;
+    private static final long COMPLETION_BYTES = 24;
+
+    private final int maxCompletions;
+    private final Node root = new Node("");
+    private int phraseCount = 0;
+    private int nodeCount = 1;
+
+    /*
+     * @param maxCompletions - How many completions each node caches, the most a
+     * lookup can return
+     */
+    public CompletionTrie(int maxCompletions) {
+        this.maxCompletions = maxCompletions;
+    }
+
+    /*
+     * A phrase offered as a completion and how many books use it
+     */
+    public record Completion(String key, String text, int count) {
+    }
+
+    /*
+     * Adds one use of a phrase
+     *
+     * @param text - the phrase as it should be shown
+     */
+    public void add(String text) {
+        String key = TextNormaliser.normalise(text);
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+        List<Node> path = new ArrayList<>();
+        Node node = insertPath(key, path);
+        if (node.self == null) {
+            phraseCount++;
+            node.self = new Completion(key, text, 1);
+        } else {
+            node.self = new Completion(key, node.self.text(), node.self.count() + 1);
+        }
+        promote(path, node.self);
+    }
+
+    /*
+     * Adds one use of a phrase that is already stored, without adding nodes
+     *
+     * @param text - the phrase as it should be shown
+     *
+     * @return - whether the phrase was stored and counted
+     */
+    public boolean addExisting(String text) {
+        String key = TextNormaliser.normalise(text);
+        if (key == null || key.isEmpty()) {
+            return false;
+        }
+        List<Node> path = new ArrayList<>();
+        Node node = findPath(key, path);
+        if (node == null || node.self == null) {
+            return false;
+        }
+        node.self = new Completion(key, node.self.text(), node.self.count() + 1);
+        promote(path, node.self);
+        return true;
+    }
+
+    /*
+     * Removes one use of a phrase, dropping it once nothing uses it
+     *
+     * @param text - the phrase as it was added
+     */
+    public void remove(String text) {
+        String key = TextNormaliser.normalise(text);
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+        List<Node> path = new ArrayList<>();
+        Node node = findPath(key, path);
+        if (node == null || node.self == null) {
+            return;
+        }
+        if (node.self.count() > 1) {
+            node.self = new Completion(key, node.self.text(), node.self.count() - 1);
+        } else {
+            phraseCount--;
+            node.self = null;
+            prune(path);
+        }
+        refresh(path);
+    }
+
+    /*
+     * Looks up the best completions for a prefix
+     *
+     * @param prefix - what has been typed so far
+     *
+     * @param limit - how many completions are wanted, at most maxCompletions
+     *
+     * @return - the completions, most used first
+     */
+    public List<Completion> complete(String prefix, int limit) {
+        String key = TextNormaliser.normalise(prefix);
+        if (key == null || key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Node node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            Node child = node.child(key.charAt(matched));
+            if (child == null) {
+                return List.of();
+            }
+            String label = child.label;
+            int remaining = key.length() - matched;
+            if (remaining <= label.length()) {
+                if (!label.regionMatches(0, key, matched, remaining)) {
+                    return List.of();
+                }
+                node = child;
+                break;
+            }
+            if (!key.regionMatches(matched, label, 0, label.length())) {
+                return List.of();
+            }
+            matched += label.length();
+            node = child;
+        }
+        Completion[] top = node.top;
+        return Arrays.asList(Arrays.copyOf(top, Math.min(limit, top.length)));
+    }
+
+    public int phraseCount() {
+        return phraseCount;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /*
+     * Estimates the heap used by the tree, counting shared completion lists once
+     *
+     * @return - An approximate size in bytes
+     */
+    public long estimatedBytes() {
+        long bytes = 0;
+        List<Node> pending = new ArrayList<>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            bytes += NODE_BYTES + STRING_BYTES + node.label.length();
+            bytes += ARRAY_BYTES + node.children.length * REFERENCE_BYTES;
+            bytes += ARRAY_BYTES + node.top.length * REFERENCE_BYTES;
+            if (node.self != null) {
+                bytes += COMPLETION_BYTES + 2 * STRING_BYTES + node.self.text().length() + node.self.key().length();
+            }
+            pending.addAll(Arrays.asList(node.children));
+        }
+        return bytes;
+    }
+
+    /*
+     * Finds or creates the node for key, splitting edges as needed, and records
+     * every node walked through in path
+     */
+    private Node insertPath(String key, List<Node> path) {
+        Node node = root;
+        path.add(node);
+        int matched = 0;
+        while (matched < key.length()) {
+            Node child = node.child(key.charAt(matched));
+            if (child == null) {
+                Node leaf = new Node(key.substring(matched));
+                node.addChild(leaf);
+                nodeCount++;
+                path.add(leaf);
+                return leaf;
+            }
+            int common = commonPrefix(child.label, key, matched);
+            if (common < child.label.length()) {
+                // Split the edge so the shared part becomes its own node
+                Node split = new Node(child.label.substring(0, common));
+                node.replaceChild(child, split);
+                child.label = child.label.substring(common);
+                split.addChild(child);
+                split.top = child.top;
+                nodeCount++;
+                child = split;
+            }
+            matched += common;
+            node = child;
+            path.add(node);
+        }
+        return node;
+    }
+
+    /*
+     * Finds the node for key without changing the tree, recording the nodes
+     * walked through in path
+     */
+    private Node findPath(String key, List<Node> path) {
+        Node node = root;
+        path.add(node);
+        int matched = 0;
+        while (matched < key.length()) {
+            Node child = node.child(key.charAt(matched));
+            if (child == null || !key.startsWith(child.label, matched)) {
+                return null;
+            }
+            matched += child.label.length();
+            node = child;
+            path.add(node);
+        }
+        return node;
+    }
+
+    /*
+     * Removes nodes left empty at the end of path and merges a node that is left
+     * with a single child into that child, keeping the tree compressed
+     */
+    private void prune(List<Node> path) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            Node parent = path.get(i - 1);
+            if (node.self == null && node.children.length == 0) {
+                parent.removeChild(node);
+                nodeCount--;
+                path.remove(i);
+            } else if (node.self == null && node.children.length == 1) {
+                Node only = node.children[0];
+                only.label = node.label + only.label;
+                parent.replaceChild(node, only);
+                nodeCount--;
+                // The merged child's cache is unchanged, the refresh starts at the parent
+                path.subList(i, path.size()).clear();
+                return;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /*
+     * Offers a completion whose count went up to the caches on path, deepest
+     * first, until one does not take it
+     */
+    private void promote(List<Node> path, Completion completion) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            if (!path.get(i).offer(completion, maxCompletions)) {
+                return;
+            }
+        }
+    }
+
+    /*
+     * Rebuilds the cached completions of the nodes on path, deepest first, until
+     * one comes out unchanged
+     */
+    private void refresh(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            if (!path.get(i).rebuildTop(maxCompletions)) {
+                return;
+            }
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final Comparator<Completion> BEST_FIRST = Comparator
+            .comparingInt(Completion::count).reversed()
+            .thenComparing(Completion::key);
+
+    private static final class Node {
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        private Completion self;
+        private Completion[] top = NO_COMPLETIONS;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private Node child(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = children[mid].label.charAt(0);
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+            return null;
+        }
+
+        private void addChild(Node child) {
+            char first = child.label.charAt(0);
+            int position = 0;
+            while (position < children.length && children[position].label.charAt(0) < first) {
+                position++;
+            }
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, position);
+            grown[position] = child;
+            System.arraycopy(children, position, grown, position + 1, children.length - position);
+            children = grown;
+        }
+
+        private void replaceChild(Node oldChild, Node newChild) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == oldChild) {
+                    children[i] = newChild;
+                    return;
+                }
+            }
+        }
+
+        private void removeChild(Node child) {
+            Node[] shrunk = new Node[children.length - 1];
+            int j = 0;
+            for (Node existing : children) {
+                if (existing != child) {
+                    shrunk[j++] = existing;
+                }
+            }
+            children = shrunk;
+        }
+
+        /*
+         * Puts a completion into the cached list in order, replacing the older
+         * entry for the same phrase. Lists can be shared, so a new one is built.
+         *
+         * @return - whether the cached list changed
+         */
+        private boolean offer(Completion completion, int maxCompletions) {
+            int existing = -1;
+            for (int i = 0; i < top.length; i++) {
+                if (top[i].key().equals(completion.key())) {
+                    existing = i;
+                    break;
+                }
+            }
+            if (existing < 0 && top.length == maxCompletions
+                    && BEST_FIRST.compare(completion, top[top.length - 1]) >= 0) {
+                return false;
+            }
+            int size = Math.min(maxCompletions, existing < 0 ? top.length + 1 : top.length);
+            Completion[] offered = new Completion[size];
+            int from = 0;
+            boolean placed = false;
+            for (int to = 0; to < size; to++) {
+                if (from == existing) {
+                    from++;
+                }
+                if (!placed && (from >= top.length || BEST_FIRST.compare(completion, top[from]) < 0)) {
+                    offered[to] = completion;
+                    placed = true;
+                } else {
+                    offered[to] = top[from++];
+                }
+            }
+            top = offered;
+            return true;
+        }
+
+        /*
+         * Merges this node's own phrase with the children's cached completions.
+         * The children's lists are already sorted, so only the heads are compared
+         * and the merge stops once maxCompletions are taken. A node with no phrase
+         * and one child shares the child's list.
+         *
+         * @return - whether the cached list changed
+         */
+        private boolean rebuildTop(int maxCompletions) {
+            Completion[] previous = top;
+            if (self == null && children.length == 1) {
+                top = children[0].top;
+                return previous != top;
+            }
+            Completion[] merged = new Completion[maxCompletions];
+            int[] heads = new int[children.length];
+            boolean selfTaken = self == null;
+            int size = 0;
+            while (size < maxCompletions) {
+                Completion best = selfTaken ? null : self;
+                int from = -1;
+                for (int i = 0; i < children.length; i++) {
+                    Completion[] childTop = children[i].top;
+                    if (heads[i] < childTop.length
+                            && (best == null || BEST_FIRST.compare(childTop[heads[i]], best) < 0)) {
+                        best = childTop[heads[i]];
+                        from = i;
+                    }
+                }
+                if (best == null) {
+                    break;
+                }
+                merged[size++] = best;
+                if (from < 0) {
+                    selfTaken = true;
+                } else {
+                    heads[from]++;
+                }
+            }
+            top = size == maxCompletions ? merged : Arrays.copyOf(merged, size);
+            return !Arrays.equals(previous, top);
+        }
+    }
+}
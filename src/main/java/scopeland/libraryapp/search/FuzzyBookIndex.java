@@ -0,0 +1,205 @@
+package scopeland.libraryapp.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import scopeland.libraryapp.entities.Book;
+
+/*
+ * Typo tolerant lookup of books by the words in their author name or title.
+ *
+ * The distinct words of each field are kept in a FuzzyWordIndex, alongside the
+ * isbns of the books using each word. Every word of a query has to be close to
+ * a word of the book, where close allows no edits for words of up to two
+ * letters, one for up to five and two for anything longer. Books are ranked by
+ * the total number of edits needed, fewest first.
+ *
+ * FuzzyWordIndex can't remove words, so a word no book uses any more stays in it
+ * and is skipped when found. It only grows with the distinct words ever seen,
+ * which levels off quickly for names and titles.
+ */
+@Component
+public class FuzzyBookIndex implements BookChangeListener {
+
+    public static final int MAX_RESULTS = 100;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Field authors = new Field();
+    private final Field titles = new Field();
+    private final Map<String, Book> indexedBooks = new HashMap<>();
+
+    /*
+     * Swaps the old title and author words of the book for the new ones
+     *
+     * @param book - The book as it is now stored
+     */
+    @Override
+    public void bookSaved(Book book) {
+        lock.writeLock().lock();
+        try {
+            Book old = indexedBooks.put(book.getIsbn(), book.copy());
+            if (old != null) {
+                authors.remove(authorWords(old.getAuthor()), old.getIsbn());
+                titles.remove(titleWords(old.getTitle()), old.getIsbn());
+            }
+            authors.add(authorWords(book.getAuthor()), book.getIsbn());
+            titles.add(titleWords(book.getTitle()), book.getIsbn());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Drops the title and author words of the removed book
+     *
+     * @param isbn - The isbn of the removed book
+     */
+    @Override
+    public void bookDeleted(String isbn) {
+        lock.writeLock().lock();
+        try {
+            Book old = indexedBooks.remove(isbn);
+            if (old != null) {
+                authors.remove(authorWords(old.getAuthor()), isbn);
+                titles.remove(titleWords(old.getTitle()), isbn);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Finds books whose author name is close to the value
+     *
+     * @param value - the author name, possibly misspelled
+     *
+     * @return - The isbns of the matching books, closest first, at most
+     * MAX_RESULTS
+     */
+    public List<String> searchAuthors(String value) {
+        return search(authors, authorWords(value));
+    }
+
+    /*
+     * Finds books whose title is close to the value
+     *
+     * @param value - words from the title, possibly misspelled
+     *
+     * @return - The isbns of the matching books, closest first, at most
+     * MAX_RESULTS
+     */
+    public List<String> searchTitles(String value) {
+        return search(titles, titleWords(value));
+    }
+
+    /*
+     * How many edits a query word may be from a stored word. Short words get
+     * fewer, otherwise a three letter word would match most other three letter
+     * words.
+     */
+    static int maxEdits(String word) {
+        if (word.length() <= 2) {
+            return 0;
+        }
+        return word.length() <= 5 ? 1 : 2;
+    }
+
+    private List<String> search(Field field, String[] words) {
+        if (words.length == 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            // For each query word, the fewest edits to reach each book
+            List<Map<String, Integer>> editsByWord = new ArrayList<>(words.length);
+            for (String word : words) {
+                Map<String, Integer> edits = field.closeBooks(word);
+                if (edits.isEmpty()) {
+                    return List.of();
+                }
+                editsByWord.add(edits);
+            }
+            editsByWord.sort(Comparator.comparingInt(Map::size));
+
+            Map<String, Integer> totals = new HashMap<>();
+            candidates: for (Map.Entry<String, Integer> candidate : editsByWord.get(0).entrySet()) {
+                int total = candidate.getValue();
+                for (int i = 1; i < editsByWord.size(); i++) {
+                    Integer edits = editsByWord.get(i).get(candidate.getKey());
+                    if (edits == null) {
+                        continue candidates;
+                    }
+                    total += edits;
+                }
+                totals.put(candidate.getKey(), total);
+            }
+            return totals.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                    .limit(MAX_RESULTS)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static String[] authorWords(String author) {
+        return Arrays.stream(TextNormaliser.tokenise(author)).distinct().toArray(String[]::new);
+    }
+
+    private static String[] titleWords(String title) {
+        return Arrays.stream(TextNormaliser.tokenise(title))
+                .filter(word -> !BookSearchIndex.STOP_WORDS.contains(word))
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    /*
+     * The words of one book field and the books using each of them
+     */
+    private static final class Field {
+        private final FuzzyWordIndex words = new FuzzyWordIndex();
+        private final Map<String, Set<String>> isbnsByWord = new HashMap<>();
+
+        private void add(String[] bookWords, String isbn) {
+            for (String word : bookWords) {
+                words.add(word);
+                isbnsByWord.computeIfAbsent(word, key -> new HashSet<>()).add(isbn);
+            }
+        }
+
+        private void remove(String[] bookWords, String isbn) {
+            for (String word : bookWords) {
+                Set<String> isbns = isbnsByWord.get(word);
+                if (isbns != null) {
+                    isbns.remove(isbn);
+                    if (isbns.isEmpty()) {
+                        isbnsByWord.remove(word);
+                    }
+                }
+            }
+        }
+
+        private Map<String, Integer> closeBooks(String word) {
+            Map<String, Integer> edits = new HashMap<>();
+            for (FuzzyWordIndex.Match match : words.search(word, maxEdits(word))) {
+                Set<String> isbns = isbnsByWord.get(match.word());
+                if (isbns != null) {
+                    for (String isbn : isbns) {
+                        edits.merge(isbn, match.distance(), Math::min);
+                    }
+                }
+            }
+            return edits;
+        }
+    }
+}
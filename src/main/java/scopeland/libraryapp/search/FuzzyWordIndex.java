@@ -0,0 +1,191 @@
+package scopeland.libraryapp.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Finds every stored word within an edit distance of a query word.
+ *
+ * Each word is padded with a start and end marker and split into overlapping
+ * pairs of letters (bigrams), and every bigram keeps the ids of the words that
+ * contain it. One insertion, deletion or substitution can break at most two of
+ * a word's bigrams, so a word within k edits of the query has all but 2k of the
+ * query's distinct bigrams. Only words passing that count, and within k letters
+ * of the query's length, have their Levenshtein distance worked out, and that
+ * stops as soon as it passes k.
+ *
+ * Very short or repetitive queries can have too few distinct bigrams for the
+ * count to rule anything out, those fall back to checking every word of a
+ * suitable length.
+ *
+ * Words are never taken out, callers keep their own record of which words are
+ * still in use and ignore the rest. Not thread safe, callers guard it with their
+ * own lock.
+ */
+class FuzzyWordIndex {
+
+    private static final char START = '\u0002';
+    private static final char END = '\u0003';
+
+    private final List<String> words = new ArrayList<>();
+    private final Map<String, Integer> idsByWord = new HashMap<>();
+    private final Map<Integer, WordIds> idsByBigram = new HashMap<>();
+
+    /*
+     * A word found by a lookup and its distance from the query
+     */
+    record Match(String word, int distance) {
+    }
+
+    int size() {
+        return words.size();
+    }
+
+    /*
+     * Adds a word, doing nothing if it is already there
+     *
+     * @param word - the word to add
+     */
+    void add(String word) {
+        if (idsByWord.containsKey(word)) {
+            return;
+        }
+        int id = words.size();
+        words.add(word);
+        idsByWord.put(word, id);
+        for (int bigram : distinctBigrams(word)) {
+            idsByBigram.computeIfAbsent(bigram, key -> new WordIds()).add(id);
+        }
+    }
+
+    /*
+     * Finds every word within maxDistance edits of the query
+     *
+     * @param query - the word to look for
+     *
+     * @param maxDistance - the most insertions, deletions and substitutions allowed
+     *
+     * @return - the words found with their distances, in no particular order
+     */
+    List<Match> search(String query, int maxDistance) {
+        List<Match> matches = new ArrayList<>();
+        int[] queryBigrams = distinctBigrams(query);
+        int needed = queryBigrams.length - 2 * maxDistance;
+        if (needed <= 0) {
+            for (String word : words) {
+                addIfClose(query, word, maxDistance, matches);
+            }
+            return matches;
+        }
+
+        // Count the query's bigrams in each word of a suitable length
+        Map<Integer, Integer> shared = new HashMap<>();
+        for (int bigram : queryBigrams) {
+            WordIds ids = idsByBigram.get(bigram);
+            if (ids == null) {
+                continue;
+            }
+            for (int i = 0; i < ids.size; i++) {
+                int id = ids.ids[i];
+                if (Math.abs(words.get(id).length() - query.length()) <= maxDistance) {
+                    shared.merge(id, 1, Integer::sum);
+                }
+            }
+        }
+        shared.forEach((id, count) -> {
+            if (count >= needed) {
+                addIfClose(query, words.get(id), maxDistance, matches);
+            }
+        });
+        return matches;
+    }
+
+    private static void addIfClose(String query, String word, int maxDistance, List<Match> matches) {
+        int distance = distance(query, word, maxDistance);
+        if (distance <= maxDistance) {
+            matches.add(new Match(word, distance));
+        }
+    }
+
+    /*
+     * The bigrams of the padded word, each packed into an int, without repeats
+     */
+    private static int[] distinctBigrams(String word) {
+        Set<Integer> bigrams = new HashSet<>();
+        char previous = START;
+        for (int i = 0; i < word.length(); i++) {
+            bigrams.add(previous << 16 | word.charAt(i));
+            previous = word.charAt(i);
+        }
+        bigrams.add(previous << 16 | END);
+        return bigrams.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /*
+     * The Levenshtein distance between two words, using two rows of the usual
+     * table so it allocates two small arrays whatever the word lengths
+     */
+    static int distance(String a, String b) {
+        return distance(a, b, Integer.MAX_VALUE);
+    }
+
+    /*
+     * The Levenshtein distance between two words, giving up once it is known to
+     * be more than limit. The smallest value in a row of the table never goes
+     * down in later rows, so once it passes limit so will the answer.
+     *
+     * @return - the distance, or limit + 1 if it is more than limit
+     */
+    static int distance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        if (a.length() < b.length()) {
+            String swap = a;
+            a = b;
+            b = swap;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char c = a.charAt(i - 1);
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()] > limit ? limit + 1 : previous[b.length()];
+    }
+
+    /*
+     * The ids of the words containing one bigram, in the order they were added
+     */
+    private static final class WordIds {
+        private int[] ids = new int[4];
+        private int size = 0;
+
+        private void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            ids[size++] = id;
+        }
+    }
+}
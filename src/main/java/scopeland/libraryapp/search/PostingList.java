@@ -0,0 +1,94 @@
+package scopeland.libraryapp.search;
+
+import java.util.Arrays;
+
+/*
+ * The documents containing one search term, kept as parallel primitive arrays
+ * sorted by document id so lists can be intersected without boxing.
+ *
+ * Document ids are handed out in increasing order, so appending keeps the list
+ * sorted. Not thread safe, BookSearchIndex guards it with its lock.
+ */
+class PostingList {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] docIds = new int[INITIAL_CAPACITY];
+    private float[] weights = new float[INITIAL_CAPACITY];
+    private int size = 0;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int docIdAt(int position) {
+        return docIds[position];
+    }
+
+    float weightAt(int position) {
+        return weights[position];
+    }
+
+    /*
+     * Adds a document to the end of the list
+     *
+     * @param docId - must be larger than every id already in the list
+     *
+     * @param weight - how strongly the term describes this document
+     */
+    void append(int docId, float weight) {
+        if (size == docIds.length) {
+            int capacity = size + (size >> 1) + 1;
+            docIds = Arrays.copyOf(docIds, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+        docIds[size] = docId;
+        weights[size] = weight;
+        size++;
+    }
+
+    /*
+     * Removes a document from the list if it is there
+     *
+     * @param docId - the document to remove
+     */
+    void remove(int docId) {
+        int position = Arrays.binarySearch(docIds, 0, size, docId);
+        if (position < 0) {
+            return;
+        }
+        int tail = size - position - 1;
+        System.arraycopy(docIds, position + 1, docIds, position, tail);
+        System.arraycopy(weights, position + 1, weights, position, tail);
+        size--;
+    }
+
+    /*
+     * Finds the first position at or after from holding a document id of at least
+     * docId. Gallops forward before binary searching so walking a long list in
+     * step with a short one stays cheap.
+     *
+     * @param from - the position to start looking from
+     *
+     * @param docId - the document id being looked for
+     *
+     * @return - the position found, or size if every remaining id is smaller
+     */
+    int seek(int from, int docId) {
+        int low = from;
+        int step = 1;
+        int high = from;
+        while (high < size && docIds[high] < docId) {
+            low = high + 1;
+            high = from + step;
+            step <<= 1;
+        }
+        high = Math.min(high, size);
+        int position = Arrays.binarySearch(docIds, low, high, docId);
+        return position >= 0 ? position : -position - 1;
+    }
+}
@@ -0,0 +1,54 @@
+package scopeland.libraryapp.search;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/*
+ * Normalises free text so searches can ignore case, accents and spacing.
+ * 
+ * "  Valérie   VALDES " and "valerie valdes" both normalise to "valerie valdes"
+ */
+public final class TextNormaliser {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final String[] NO_TOKENS = new String[0];
+
+    private TextNormaliser() {
+    }
+
+    /*
+     * Case folds, strips accents and collapses whitespace
+     * 
+     * @param value - the raw text
+     * 
+     * @return - The normalised text, or null if value was null
+     */
+    public static String normalise(String value) {
+        if (value == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFKD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /*
+     * Splits text into normalised search terms, breaking on anything that is not
+     * a letter or digit
+     * 
+     * @param value - the raw text
+     * 
+     * @return - The terms in the order they appear, empty if there are none
+     */
+    public static String[] tokenise(String value) {
+        String normalised = normalise(value);
+        if (normalised == null) {
+            return NO_TOKENS;
+        }
+        String trimmed = NON_WORD.matcher(normalised).replaceAll(" ").trim();
+        return trimmed.isEmpty() ? NO_TOKENS : trimmed.split(" ");
+    }
+}
@@ -0,0 +1,151 @@
+package scopeland.libraryapp.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.entities.dtos.YearCountDto;
+import scopeland.libraryapp.entities.dtos.YearFacetsDto;
+import scopeland.libraryapp.enums.BookStatus;
+import scopeland.libraryapp.enums.YearBucket;
+
+/*
+ * Running counts of books per publication year and status.
+ *
+ * Every write moves one book between counts, so a histogram only has to add up
+ * the years asked for, one entry per distinct year rather than one per book, and
+ * never needs a GROUP BY over the books table.
+ */
+@Component
+public class YearFacetIndex implements BookChangeListener {
+
+    private static final int STATUS_COUNT = BookStatus.values().length;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Indexed by BookStatus ordinal
+    private final NavigableMap<Integer, long[]> countsByYear = new TreeMap<>();
+    private final Map<String, Counted> countedBooks = new HashMap<>();
+
+    /*
+     * Moves the book from the count it was in to the one it is in now
+     *
+     * @param book - The book as it is now stored
+     */
+    @Override
+    public void bookSaved(Book book) {
+        if (book.getPublicationYear() == null || book.getBookStatus() == null) {
+            return;
+        }
+        Counted now = new Counted(book.getPublicationYear(), book.getBookStatus());
+        lock.writeLock().lock();
+        try {
+            Counted old = countedBooks.put(book.getIsbn(), now);
+            if (now.equals(old)) {
+                return;
+            }
+            if (old != null) {
+                decrement(old);
+            }
+            countsByYear.computeIfAbsent(now.year(), key -> new long[STATUS_COUNT])[now.status().ordinal()]++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Takes the book out of its count
+     *
+     * @param isbn - The isbn of the removed book
+     */
+    @Override
+    public void bookDeleted(String isbn) {
+        lock.writeLock().lock();
+        try {
+            Counted old = countedBooks.remove(isbn);
+            if (old != null) {
+                decrement(old);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Counts books per bucket of publication years
+     *
+     * @param bucket - whether to count per year or per decade
+     *
+     * @param status - only count books with this status, null for all
+     *
+     * @param startYear - the first year counted, null for no lower limit
+     *
+     * @param endYear - the last year counted, null for no upper limit
+     *
+     * @return - One count per bucket holding books, in year order. Buckets cut by
+     * the start or end year report only the years counted.
+     */
+    public YearFacetsDto facets(YearBucket bucket, BookStatus status, Integer startYear, Integer endYear) {
+        List<YearCountDto> counts = new ArrayList<>();
+        long total = 0;
+        lock.readLock().lock();
+        try {
+            NavigableMap<Integer, long[]> years = countsByYear;
+            if (startYear != null) {
+                years = years.tailMap(startYear, true);
+            }
+            if (endYear != null) {
+                years = years.headMap(endYear, true);
+            }
+            YearCountDto current = null;
+            int currentStart = 0;
+            for (Map.Entry<Integer, long[]> year : years.entrySet()) {
+                long count = status == null ? sum(year.getValue()) : year.getValue()[status.ordinal()];
+                if (count == 0) {
+                    continue;
+                }
+                int bucketStart = bucket.bucketStart(year.getKey());
+                if (current == null || currentStart != bucketStart) {
+                    currentStart = bucketStart;
+                    int first = startYear == null ? bucketStart : Math.max(bucketStart, startYear);
+                    int last = bucketStart + bucket.getYears() - 1;
+                    current = new YearCountDto(first, endYear == null ? last : Math.min(last, endYear), 0L);
+                    counts.add(current);
+                }
+                current.setCount(current.getCount() + count);
+                total += count;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new YearFacetsDto(bucket, counts, total);
+    }
+
+    private void decrement(Counted counted) {
+        long[] counts = countsByYear.get(counted.year());
+        counts[counted.status().ordinal()]--;
+        if (sum(counts) == 0) {
+            countsByYear.remove(counted.year());
+        }
+    }
+
+    private static long sum(long[] counts) {
+        long sum = 0;
+        for (long count : counts) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    /*
+     * Where a book is counted, kept so an update can take it out again
+     */
+    private record Counted(int year, BookStatus status) {
+    }
+}
@@ -0,0 +1,94 @@
+package scopeland.libraryapp.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.enums.BulkImportStatus;
+import scopeland.libraryapp.repositories.interfaces.IBookRepository;
+import scopeland.libraryapp.search.BookChangeListener;
+
+/*
+ * Inserts batches of new books in one transaction, sent to the database as JDBC
+ * batches (hibernate.jdbc.batch_size), and tells the BookChangeListeners about
+ * the books stored. Shared by the bulk import and the catalogue ingest.
+ * 
+ * Books are persisted rather than saved, as save would select each book first
+ * to decide between insert and update.
+ */
+@Component
+public class BookBatchWriter {
+
+    private final IBookRepository bookRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final List<BookChangeListener> bookChangeListeners;
+
+    public BookBatchWriter(IBookRepository bookRepository, EntityManager entityManager,
+            PlatformTransactionManager transactionManager, List<BookChangeListener> bookChangeListeners) {
+        this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bookChangeListeners = bookChangeListeners;
+    }
+
+    /*
+     * Inserts books the caller has already checked are valid and not stored. If
+     * the database refuses the batch, say because another request stored one of
+     * the books since the check, the books are retried one by one to find which.
+     * 
+     * @param books - Sanitised, validated books with distinct isbns
+     * 
+     * @return - IMPORTED, ALREADY_EXISTS or FAILED for each book, in the same
+     * order
+     */
+    public List<BulkImportStatus> insert(List<Book> books) {
+        List<BulkImportStatus> statuses = new ArrayList<>(books.size());
+        if (books.isEmpty()) {
+            return statuses;
+        }
+        try {
+            persist(books);
+            for (Book book : books) {
+                statuses.add(imported(book));
+            }
+        } catch (PersistenceException | DataAccessException batchEx) {
+            for (Book book : books) {
+                try {
+                    persist(List.of(book));
+                    statuses.add(imported(book));
+                } catch (PersistenceException | DataAccessException ex) {
+                    statuses.add(bookRepository.existsById(book.getIsbn())
+                            ? BulkImportStatus.ALREADY_EXISTS
+                            : BulkImportStatus.FAILED);
+                }
+            }
+        }
+        return statuses;
+    }
+
+    private void persist(List<Book> books) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Book book : books) {
+                entityManager.persist(book);
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    private BulkImportStatus imported(Book book) {
+        for (BookChangeListener listener : bookChangeListeners) {
+            listener.bookSaved(book);
+        }
+        return BulkImportStatus.IMPORTED;
+    }
+}
@@ -0,0 +1,10 @@
+package scopeland.libraryapp.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import scopeland.libraryapp.entities.dtos.BulkImportResultDto;
+
+public interface BookImportService {
+    BulkImportResultDto importBooks(InputStream json) throws IOException;
+}
@@ -0,0 +1,192 @@
+package scopeland.libraryapp.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.entities.dtos.BulkImportItemDto;
+import scopeland.libraryapp.entities.dtos.BulkImportResultDto;
+import scopeland.libraryapp.enums.BulkImportStatus;
+import scopeland.libraryapp.exceptions.BulkImportFormatException;
+import scopeland.libraryapp.repositories.interfaces.IBookRepository;
+
+/*
+ * Imports a JSON array of books in one request.
+ * 
+ * The array is read one book at a time from the request body, so only a chunk
+ * of books is held at once however large the import. Each chunk costs one query
+ * to find the isbns already stored and one batched insert of the rest through
+ * BookBatchWriter. Only the small per book results are kept for the whole
+ * import.
+ */
+@Service
+public class BookImportServiceImpl implements BookImportService {
+
+    private final IBookRepository bookRepository;
+    private final BookBatchWriter bookBatchWriter;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final BookSanitiser bookSanitiser;
+    private final int chunkSize;
+
+    public BookImportServiceImpl(IBookRepository bookRepository, BookBatchWriter bookBatchWriter,
+            ObjectMapper objectMapper, Validator validator, BookSanitiser bookSanitiser,
+            @Value("${library.import.chunk-size:500}") int chunkSize) {
+        this.bookRepository = bookRepository;
+        this.bookBatchWriter = bookBatchWriter;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.bookSanitiser = bookSanitiser;
+        this.chunkSize = chunkSize;
+    }
+
+    /*
+     * Imports every new, valid book in the array. Books that are invalid, already
+     * stored or repeat an earlier isbn are skipped and reported, they don't stop
+     * the rest being imported.
+     * 
+     * @param json - A JSON array of books
+     * 
+     * @return - The outcome for each book, in the order sent, with totals
+     */
+    @Override
+    public BulkImportResultDto importBooks(InputStream json) throws IOException {
+        long start = System.nanoTime();
+        List<BulkImportItemDto> items = new ArrayList<>();
+        Set<String> seenIsbns = new HashSet<>();
+        List<Pending> chunk = new ArrayList<>(chunkSize);
+
+        try (JsonParser parser = objectMapper.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "expected a JSON array of books");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new JsonParseException(parser, "the array of books is not closed");
+                }
+                JsonNode node = parser.readValueAsTree();
+                BulkImportItemDto item = new BulkImportItemDto(items.size(), node.path("isbn").textValue(), null,
+                        null);
+                items.add(item);
+                Book book = read(node, item, seenIsbns);
+                if (book != null) {
+                    chunk.add(new Pending(item, book));
+                    if (chunk.size() >= chunkSize) {
+                        writeChunk(chunk);
+                        chunk.clear();
+                    }
+                }
+            }
+        } catch (JsonProcessingException ex) {
+            writeChunk(chunk);
+            String location = ex.getLocation() == null ? ""
+                    : " at line " + ex.getLocation().getLineNr() + " column " + ex.getLocation().getColumnNr();
+            throw new BulkImportFormatException(ex.getOriginalMessage() + location, countImported(items));
+        }
+        writeChunk(chunk);
+
+        Map<BulkImportStatus, Integer> counts = new EnumMap<>(BulkImportStatus.class);
+        for (BulkImportStatus status : BulkImportStatus.values()) {
+            counts.put(status, 0);
+        }
+        items.forEach(item -> counts.merge(item.getStatus(), 1, Integer::sum));
+        long elapsedNanos = System.nanoTime() - start;
+        double booksPerSecond = items.size() / Math.max(elapsedNanos / 1e9, 1e-9);
+        return new BulkImportResultDto(items, counts, items.size(), elapsedNanos / 1_000_000, booksPerSecond);
+    }
+
+    /*
+     * Binds and validates one element of the array
+     * 
+     * @return - The book, or null if it was rejected, in which case the item says
+     * why
+     */
+    private Book read(JsonNode node, BulkImportItemDto item, Set<String> seenIsbns) {
+        Book book;
+        try {
+            book = objectMapper.treeToValue(node, Book.class);
+        } catch (JsonProcessingException | IllegalArgumentException ex) {
+            reject(item, BulkImportStatus.INVALID, List.of(ex instanceof JsonProcessingException jsonEx
+                    ? jsonEx.getOriginalMessage()
+                    : ex.getMessage()));
+            return null;
+        }
+        if (book == null) {
+            reject(item, BulkImportStatus.INVALID, List.of("Expected a book"));
+            return null;
+        }
+        Set<ConstraintViolation<Book>> violations = validator.validate(book);
+        if (!violations.isEmpty()) {
+            reject(item, BulkImportStatus.INVALID, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .toList());
+            return null;
+        }
+        if (!seenIsbns.add(book.getIsbn())) {
+            reject(item, BulkImportStatus.DUPLICATE, null);
+            return null;
+        }
+        return bookSanitiser.sanitise(book);
+    }
+
+    /*
+     * Stores the books of a chunk that aren't stored yet, checking which are with
+     * one query
+     */
+    private void writeChunk(List<Pending> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Set<String> existing = bookRepository.findExistingIsbns(
+                chunk.stream().map(pending -> pending.book().getIsbn()).toList());
+        List<Pending> fresh = new ArrayList<>(chunk.size());
+        for (Pending pending : chunk) {
+            if (existing.contains(pending.book().getIsbn())) {
+                reject(pending.item(), BulkImportStatus.ALREADY_EXISTS, null);
+            } else {
+                fresh.add(pending);
+            }
+        }
+        List<BulkImportStatus> statuses = bookBatchWriter.insert(fresh.stream().map(Pending::book).toList());
+        for (int i = 0; i < fresh.size(); i++) {
+            fresh.get(i).item().setStatus(statuses.get(i));
+        }
+    }
+
+    private static void reject(BulkImportItemDto item, BulkImportStatus status, List<String> errors) {
+        item.setStatus(status);
+        item.setErrors(errors);
+    }
+
+    private static int countImported(List<BulkImportItemDto> items) {
+        return (int) items.stream().filter(item -> item.getStatus() == BulkImportStatus.IMPORTED).count();
+    }
+
+    /*
+     * A valid book waiting for its chunk to be written, with the item reporting
+     * on it
+     */
+    private record Pending(BulkImportItemDto item, Book book) {
+    }
+}
@@ -0,0 +1,66 @@
+package scopeland.libraryapp.service;
+
+import org.jsoup.Jsoup;
+import org.jsoup.safety.Cleaner;
+import org.jsoup.safety.Safelist;
+import org.springframework.stereotype.Component;
+
+import scopeland.libraryapp.entities.Book;
+
+/*
+ * Strips unsafe html from the free text fields of a book before it is stored,
+ * shared by every path that writes books.
+ *
+ * The result is always exactly what Jsoup.clean(value, Safelist.basic()) would
+ * return, but most titles and author names are plain text that comes back
+ * unchanged, so those are recognised in one pass over their characters and
+ * returned as they are without Jsoup parsing them. Anything else goes through
+ * the same steps as Jsoup.clean, with one Cleaner built at startup rather than a
+ * new Safelist and Cleaner per value.
+ */
+@Component
+public class BookSanitiser {
+
+    private static final Cleaner CLEANER = new Cleaner(Safelist.basic());
+
+    /*
+     * Cleans the title and author of the book in place, missing values are left
+     * for validation to report
+     * 
+     * @param book - The book about to be stored
+     * 
+     * @return - The same book, for chaining
+     */
+    public Book sanitise(Book book) {
+        book.setAuthor(clean(book.getAuthor()));
+        book.setTitle(clean(book.getTitle()));
+        return book;
+    }
+
+    static String clean(String value) {
+        if (value == null || isPlainText(value)) {
+            return value;
+        }
+        return CLEANER.clean(Jsoup.parseBodyFragment(value, "")).body().html();
+    }
+
+    /*
+     * Whether Jsoup would return the value unchanged. It must hold nothing Jsoup
+     * parses as markup or escapes (< > & and no-break spaces), nothing its pretty
+     * printer rewrites (whitespace other than single spaces between words,
+     * invisible characters) and nothing else unusual, such as control or
+     * surrogate characters, which are left to Jsoup to be safe.
+     */
+    static boolean isPlainText(String value) {
+        char previous = ' ';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < ' ' || c == '<' || c == '>' || c == '&' || (c >= '\u007F' && c <= '\u00A0') || c == '\u00AD'
+                    || c == '\u200B' || Character.isSurrogate(c) || (c == ' ' && previous == ' ')) {
+                return false;
+            }
+            previous = c;
+        }
+        return previous != ' ' || value.isEmpty();
+    }
+}
@@ -1,24 +1,50 @@
 package scopeland.libraryapp.service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.entities.dtos.BookPageDto;
+import scopeland.libraryapp.entities.dtos.BookSearchCriteriaDto;
+import scopeland.libraryapp.entities.dtos.CompletionsDto;
+import scopeland.libraryapp.entities.dtos.StatusChangeResultDto;
+import scopeland.libraryapp.entities.dtos.YearFacetsDto;
 import scopeland.libraryapp.enums.BookStatus;
+import scopeland.libraryapp.enums.SearchMode;
+import scopeland.libraryapp.enums.YearBucket;
 
 public interface BookService {
     List<Book> listBooks();
 
-    List<Book> searchBooksByAuthor(String value);
+    BookPageDto listBooksPage(String cursor, Integer size);
+
+    void exportBooks(Consumer<Book> consumer);
+
+    BookPageDto searchBooks(BookSearchCriteriaDto criteria, String cursor, Integer size);
+
+    List<Book> searchBooksByAuthor(String value, SearchMode mode);
+
+    List<Book> searchBooksByTitleFuzzy(String value);
 
     List<Book> searchBooksInYearRange(Integer startYear, Integer endYear);
 
+    YearFacetsDto facetByPublicationYear(YearBucket bucket, BookStatus status, Integer startYear, Integer endYear);
+
+    List<Book> searchBooksByText(String query, Integer limit);
+
+    CompletionsDto autocomplete(String prefix, Integer limit);
+
     Book addBook(Book newBook);
 
     Book getByIsbn(String isbn);
 
     Book updateBook(Book updatedBook, String isbn);
 
-    Book updateBookStatus(String isbn, BookStatus newStatus) throws Exception;
+    Book updateBookStatus(String isbn, BookStatus newStatus);
+
+    StatusChangeResultDto updateBookStatuses(List<String> isbns, BookStatus newStatus);
+
+    Book updateHeldBookStatus(String isbn, BookStatus newStatus);
 
     void deleteBookByIsbn(String isbn);
 }
@@ -1,53 +1,222 @@
 package scopeland.libraryapp.service;
 
-import org.jsoup.Jsoup;
-import org.jsoup.safety.Safelist;
-import org.springframework.data.domain.Example;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+
+import scopeland.libraryapp.cache.AvailableCopies;
+import scopeland.libraryapp.cache.BookCache;
 import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.entities.dtos.BookPageDto;
+import scopeland.libraryapp.entities.dtos.BookSearchCriteriaDto;
+import scopeland.libraryapp.entities.dtos.CompletionsDto;
+import scopeland.libraryapp.entities.dtos.HoldingDto;
+import scopeland.libraryapp.entities.dtos.StatusChangeItemDto;
+import scopeland.libraryapp.entities.dtos.StatusChangeResultDto;
+import scopeland.libraryapp.entities.dtos.YearFacetsDto;
 import scopeland.libraryapp.enums.BookStatus;
+import scopeland.libraryapp.enums.SearchMode;
+import scopeland.libraryapp.enums.StatusChangeOutcome;
+import scopeland.libraryapp.enums.YearBucket;
 import scopeland.libraryapp.exceptions.BookAlreadyBorrowedException;
 import scopeland.libraryapp.exceptions.BookAlreadyExistsException;
+import scopeland.libraryapp.exceptions.BookCopiesHeldException;
 import scopeland.libraryapp.exceptions.BookNotFoundException;
 import scopeland.libraryapp.exceptions.SearchByYearsEndBeforeStartException;
 import scopeland.libraryapp.repositories.interfaces.IBookRepository;
+import scopeland.libraryapp.repositories.specifications.BookSpecifications;
+import scopeland.libraryapp.search.BookChangeListener;
+import scopeland.libraryapp.search.BookCompletionIndex;
+import scopeland.libraryapp.search.BookSearchIndex;
+import scopeland.libraryapp.search.FuzzyBookIndex;
+import scopeland.libraryapp.search.TextNormaliser;
+import scopeland.libraryapp.search.YearFacetIndex;
+import scopeland.libraryapp.service.paging.BookCursor;
+import scopeland.libraryapp.validation.books.validator.IsbnValidator;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+// Every public method is timed, tagged with its name, see MetricsConfig
+@Timed("library.book.service")
 @Service
 public class BookServiceImpl implements BookService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
     private IBookRepository bookRepository;
+    private EntityManager entityManager;
+    private BookSearchIndex bookSearchIndex;
+    private BookCompletionIndex bookCompletionIndex;
+    private FuzzyBookIndex fuzzyBookIndex;
+    private YearFacetIndex yearFacetIndex;
+    private BookCache bookCache;
+    private AvailableCopies availableCopies;
+    private BookSanitiser bookSanitiser;
+    private List<BookChangeListener> bookChangeListeners;
 
-    public BookServiceImpl(IBookRepository bookRepository) {
+    public BookServiceImpl(IBookRepository bookRepository, EntityManager entityManager,
+            BookSearchIndex bookSearchIndex, BookCompletionIndex bookCompletionIndex,
+            FuzzyBookIndex fuzzyBookIndex, YearFacetIndex yearFacetIndex, BookCache bookCache,
+            AvailableCopies availableCopies, BookSanitiser bookSanitiser,
+            List<BookChangeListener> bookChangeListeners) {
         this.bookRepository = bookRepository;
-
+        this.entityManager = entityManager;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookCompletionIndex = bookCompletionIndex;
+        this.fuzzyBookIndex = fuzzyBookIndex;
+        this.yearFacetIndex = yearFacetIndex;
+        this.bookCache = bookCache;
+        this.availableCopies = availableCopies;
+        this.bookSanitiser = bookSanitiser;
+        this.bookChangeListeners = bookChangeListeners;
     }
 
     /*
      * Gets a list of all stored books
      * 
-     * @return - A list of all books stoed in the db
+     * @return - A list of all books stoed in the db, in isbn order
      */
     @Override
     public List<Book> listBooks() {
-        return bookRepository.findAll();
+        return bookRepository.findAll(Sort.by("isbn"));
     }
 
     /*
-     * Searches all books by Author
+     * Gets a single page of books ordered by isbn
+     * 
+     * @param cursor - The cursor returned with the previous page, null for the
+     * first page
+     * 
+     * @param size - The number of books wanted, clamped between 1 and
+     * MAX_PAGE_SIZE
+     * 
+     * @return - The page of books and the cursor for the next page
+     */
+    @Override
+    public BookPageDto listBooksPage(String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        // Every isbn sorts after 0
+        String afterIsbn = cursor == null || cursor.isEmpty() ? "0" : BookCursor.decode(cursor);
+
+        // Ask for one extra row so we know if there is a next page without a count query
+        List<Book> books = bookRepository.findPageAfter(afterIsbn, PageRequest.of(0, pageSize + 1));
+        return toPage(books, pageSize);
+    }
+
+    /*
+     * Searches on any combination of author, title, year range and status in one
+     * query, a page at a time in isbn order
+     * 
+     * @param criteria - The filters to apply, any left null are skipped
+     * 
+     * @param cursor - The cursor returned with the previous page, null for the
+     * first page
+     * 
+     * @param size - The number of books wanted, clamped between 1 and
+     * MAX_PAGE_SIZE
+     * 
+     * @return - The page of matching books and the cursor for the next page
+     */
+    @Override
+    public BookPageDto searchBooks(BookSearchCriteriaDto criteria, String cursor, Integer size) {
+        Integer startYear = criteria.getStartYear();
+        Integer endYear = criteria.getEndYear();
+        if (startYear != null && endYear != null && startYear > endYear) {
+            throw new SearchByYearsEndBeforeStartException(startYear, endYear);
+        }
+        int pageSize = pageSize(size);
+        String afterIsbn = cursor == null || cursor.isEmpty() ? null : BookCursor.decode(cursor);
+
+        Specification<Book> specification = Specification
+                .where(BookSpecifications.authorStartsWith(criteria.getAuthor()))
+                .and(BookSpecifications.titleContains(criteria.getTitle()))
+                .and(BookSpecifications.publishedFrom(startYear))
+                .and(BookSpecifications.publishedTo(endYear))
+                .and(BookSpecifications.hasStatus(criteria.getStatus()))
+                .and(BookSpecifications.isbnAfter(afterIsbn));
+        return toPage(bookRepository.findFirstMatching(specification, pageSize + 1), pageSize);
+    }
+
+    /*
+     * Hands every stored book to the consumer one at a time, straight off a
+     * database cursor. Each book is detached once consumed so the persistence
+     * context does not grow with the catalogue.
+     * 
+     * @param consumer - Called once per book in isbn order
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBooks(Consumer<Book> consumer) {
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            books.forEach(book -> {
+                consumer.accept(book);
+                entityManager.detach(book);
+            });
+        }
+    }
+
+    /*
+     * Searches all books by Author, ignoring case, accents and extra spaces
      * 
      * @param value - the value we want to search for
      * 
-     * @return - A list of all books matching the search
+     * @param mode - whether the author must match exactly, start with, contain
+     * or be close to the value
+     * 
+     * @return - A list of all books matching the search, closest first for fuzzy
+     * searches
      */
     @Override
-    public List<Book> searchBooksByAuthor(String value) {
-        Example<Book> searchBook = Example.of(new Book());
-        searchBook = Example.of(new Book(null, null, value, null, null));
-        return bookRepository.findAll(searchBook);
+    public List<Book> searchBooksByAuthor(String value, SearchMode mode) {
+        String normalised = TextNormaliser.normalise(value);
+        if (normalised == null || normalised.isEmpty()) {
+            return List.of();
+        }
+
+        switch (mode) {
+            case PREFIX:
+                return bookRepository.findByAuthorNormalisedStartingWith(normalised);
+            case CONTAINS:
+                return bookRepository.findByAuthorNormalisedContaining(normalised);
+            case FUZZY:
+                return findAllInOrder(fuzzyBookIndex.searchAuthors(normalised));
+            case EXACT:
+            default:
+                return bookRepository.findByAuthorNormalised(normalised);
+        }
+    }
+
+    /*
+     * Searches all books by title, tolerating a few typos in each word. Answered
+     * from the in-memory fuzzy index, then the books are fetched by isbn.
+     * 
+     * @param value - words from the title, possibly misspelled
+     * 
+     * @return - The books whose title has a word close to every given word,
+     * closest first
+     */
+    @Override
+    public List<Book> searchBooksByTitleFuzzy(String value) {
+        return findAllInOrder(fuzzyBookIndex.searchTitles(value));
     }
 
     /*
@@ -68,7 +237,59 @@ public class BookServiceImpl implements BookService {
     }
 
     /*
-     * Adds a book to the database
+     * Counts books per year or decade of publication, answered from the running
+     * counts kept in memory
+     * 
+     * @param bucket - whether to count per year or per decade
+     * 
+     * @param status - only count books with this status, null for all
+     * 
+     * @param startYear - the first year counted, null for no lower limit
+     * 
+     * @param endYear - the last year counted, null for no upper limit
+     * 
+     * @return - The count for each bucket holding books, in year order
+     */
+    @Override
+    public YearFacetsDto facetByPublicationYear(YearBucket bucket, BookStatus status, Integer startYear,
+            Integer endYear) {
+        if (startYear != null && endYear != null && startYear > endYear) {
+            throw new SearchByYearsEndBeforeStartException(startYear, endYear);
+        }
+        return yearFacetIndex.facets(bucket, status, startYear, endYear);
+    }
+
+    /*
+     * Full text search over titles and authors, answered from the in-memory index
+     * 
+     * @param query - the words we want to search for
+     * 
+     * @param limit - the most results wanted
+     * 
+     * @return - The books containing every word, best match first
+     */
+    @Override
+    public List<Book> searchBooksByText(String query, Integer limit) {
+        return bookSearchIndex.search(query, limit);
+    }
+
+    /*
+     * Typeahead for the search box, answered from the in-memory completion index
+     * 
+     * @param prefix - what has been typed so far
+     * 
+     * @param limit - how many titles and authors to suggest
+     * 
+     * @return - The most used titles and authors starting with the prefix
+     */
+    @Override
+    public CompletionsDto autocomplete(String prefix, Integer limit) {
+        return bookCompletionIndex.complete(prefix, limit);
+    }
+
+    /*
+     * Adds a book to the database in a single INSERT, a duplicate isbn is caught
+     * by the primary key rather than looked up first
      * 
      * @param newBook - The book that we want to add
      * 
@@ -76,19 +297,22 @@ public class BookServiceImpl implements BookService {
      */
     @Override
     public Book addBook(Book newBook) {
-
-        Optional<Book> book = bookRepository.findById(newBook.getIsbn());
-        if (!book.isPresent()) {
-            newBook.setAuthor(Jsoup.clean(newBook.getAuthor(), Safelist.basic()));
-            newBook.setTitle(Jsoup.clean(newBook.getTitle(), Safelist.basic()));
-            return (bookRepository.save(newBook));
-        } else {
+        bookSanitiser.sanitise(newBook);
+        try {
+            bookRepository.insert(newBook);
+        } catch (DataIntegrityViolationException ex) {
+            // Values the database can't hold also land here, only a broken key means a duplicate
+            if (!(ex.getCause() instanceof ConstraintViolationException)) {
+                throw ex;
+            }
             throw new BookAlreadyExistsException(newBook.getIsbn());
         }
+        notifyBookSaved(newBook);
+        return newBook;
     }
 
     /*
-     * Get a book based on its isbn
+     * Get a book based on its isbn, served from the book cache when it can be
      * 
      * @param isbn - The isbn that we want to search the database for
      * 
@@ -96,7 +320,7 @@ public class BookServiceImpl implements BookService {
      */
     @Override
     public Book getByIsbn(String isbn) throws BookNotFoundException {
-        Optional<Book> book = bookRepository.findById(isbn);
+        Optional<Book> book = bookCache.get(isbn, bookRepository::findById);
         if (book.isPresent()) {
             return book.get();
         } else {
@@ -105,9 +329,12 @@ public class BookServiceImpl implements BookService {
     }
 
     /*
-     * Update a book based on its isbn
+     * Update a book based on its isbn in a single UPDATE, a missing book is told by
+     * no row changing rather than looked up first. A book with copies held keeps
+     * the status its copies give it.
      * 
-     * @param isbn - The isbn that we want to update
+     * @param isbn - The isbn that we want to update, used over any isbn in the
+     * book
      * 
      * @param updatedBook - A new copy of the book we want to update the record in
      * the database with
@@ -117,18 +344,24 @@ public class BookServiceImpl implements BookService {
     @Override
     public Book updateBook(Book updatedBook, String isbn)
             throws BookNotFoundException {
-        Optional<Book> book = bookRepository.findById(isbn);
-        if (book.isPresent()) {
-            updatedBook.setAuthor(Jsoup.clean(updatedBook.getAuthor(), Safelist.basic()));
-            updatedBook.setTitle(Jsoup.clean(updatedBook.getTitle(), Safelist.basic()));
-            return bookRepository.save(updatedBook);
-        } else {
+        updatedBook.setIsbn(isbn);
+        bookSanitiser.sanitise(updatedBook);
+        if (bookRepository.updateIfPresent(updatedBook) == 0) {
             throw new BookNotFoundException(isbn);
         }
+        HoldingDto holding = availableCopies.find(isbn);
+        if (holding != null) {
+            updatedBook.setBookStatus(holding.getAvailableCopies() > 0 ? BookStatus.AVAILABLE : BookStatus.BORROWED);
+        }
+        notifyBookSaved(updatedBook);
+        return updatedBook;
     }
 
     /*
      * Update the books status allowing a book to be borrowed/returned
+     * One conditional UPDATE, so when several borrowers race for the same book
+     * exactly one of them gets it and the rest are told it's already borrowed.
+     * Books with copies held are lent through CirculationService instead.
      * 
      * @param isbn - The isbn of the book that we want to borrow/return
      * 
@@ -137,32 +370,158 @@ public class BookServiceImpl implements BookService {
      * @return - The book that was updated
      */
     @Override
-    public Book updateBookStatus(String isbn, BookStatus newStatus) throws Exception {
-        Optional<Book> book = bookRepository.findById(isbn);
+    public Book updateBookStatus(String isbn, BookStatus newStatus) {
+        Optional<Book> book = bookRepository.updateStatus(isbn, newStatus);
         if (book.isPresent()) {
-            var updatedBook = book.get();
-            if (newStatus == BookStatus.BORROWED && updatedBook.getBookStatus() == BookStatus.BORROWED) {
-                throw new BookAlreadyBorrowedException(isbn); // Already taken out
-            }
-            updatedBook.setBookStatus(newStatus);
-            return bookRepository.save(updatedBook);
+            notifyBookSaved(book.get());
+            return book.get();
+        } else if (availableCopies.find(isbn) != null) {
+            throw new BookCopiesHeldException(isbn);
+        } else if (newStatus == BookStatus.BORROWED && bookRepository.existsById(isbn)) {
+            throw new BookAlreadyBorrowedException(isbn); // Already taken out
         } else {
             throw new BookNotFoundException(isbn);
         }
     }
 
     /*
-     * Delete a book from the database
+     * Borrows or returns a stack of books at once, in one transaction of two
+     * statements however many isbns are sent
+     * 
+     * @param isbns - The isbns of the books, in the order scanned. Each one sent
+     * gets an outcome, so an isbn sent twice to be borrowed is ALREADY_BORROWED
+     * the second time and one sent twice to be returned is UPDATED both times.
+     * Null, blank or invalid isbns are NOT_FOUND.
+     * 
+     * @param newStatus - The status we want to update the books with
+     * 
+     * @return - UPDATED, NOT_FOUND, ALREADY_BORROWED or COPIES_HELD for each isbn
+     * in the order sent, with totals
+     */
+    @Override
+    public StatusChangeResultDto updateBookStatuses(List<String> isbns, BookStatus newStatus) {
+        // Anything that isn't an isbn can't be stored, so is left out of the query
+        Set<String> storable = isbns.stream()
+                .filter(isbn -> isbn != null && IsbnValidator.check(isbn) == 0)
+                .collect(Collectors.toSet());
+        Map<String, Book> found = storable.isEmpty() ? Map.of()
+                : bookRepository.updateStatuses(storable, newStatus).stream()
+                        .collect(Collectors.toMap(Book::getIsbn, Function.identity()));
+
+        List<StatusChangeItemDto> items = new ArrayList<>(isbns.size());
+        Map<StatusChangeOutcome, Integer> counts = new EnumMap<>(StatusChangeOutcome.class);
+        Map<String, Book> updated = new LinkedHashMap<>();
+        for (String isbn : isbns) {
+            // A null isbn can't be looked up, it was never stored
+            Book book = isbn == null ? null : found.get(isbn);
+            StatusChangeOutcome outcome;
+            if (book == null) {
+                outcome = isbn != null && availableCopies.find(isbn) != null ? StatusChangeOutcome.COPIES_HELD
+                        : StatusChangeOutcome.NOT_FOUND;
+            } else if (newStatus == BookStatus.BORROWED && book.getBookStatus() == BookStatus.BORROWED) {
+                outcome = StatusChangeOutcome.ALREADY_BORROWED;
+            } else {
+                book.setBookStatus(newStatus);
+                updated.put(isbn, book);
+                outcome = StatusChangeOutcome.UPDATED;
+            }
+            items.add(new StatusChangeItemDto(isbn, outcome));
+            counts.merge(outcome, 1, Integer::sum);
+        }
+        updated.values().forEach(this::notifyBookSaved);
+        return new StatusChangeResultDto(newStatus, items, counts);
+    }
+
+    /*
+     * Sets the status of a book with copies held, AVAILABLE while any copy is on
+     * the shelf and BORROWED while none are. Used by CirculationService as copies
+     * are lent and returned.
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @param newStatus - The status its copies give it
+     * 
+     * @return - The book that was updated
+     */
+    @Override
+    public Book updateHeldBookStatus(String isbn, BookStatus newStatus) {
+        Book book = bookRepository.updateHeldStatus(isbn, newStatus)
+                .orElseThrow(() -> new BookNotFoundException(isbn));
+        notifyBookSaved(book);
+        return book;
+    }
+
+    /*
+     * Delete a book from the database in a single DELETE
      * 
      * @param isbn - The isbn of the book that we want to delete
      */
     @Override
     public void deleteBookByIsbn(String isbn) {
-        Optional<Book> book = bookRepository.findById(isbn);
-        if (book.isPresent()) {
-            bookRepository.deleteById(isbn);
-        } else {
+        if (bookRepository.deleteIfPresent(isbn) == 0) {
             throw new BookNotFoundException(isbn);
         }
+        notifyBookDeleted(isbn);
+    }
+
+    private static int pageSize(Integer size) {
+        return size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /*
+     * Trims a list fetched with one extra row down to a page, using the extra row
+     * to tell whether there is a next page
+     * 
+     * @param books - up to pageSize + 1 books in isbn order
+     * 
+     * @param pageSize - the number of books wanted
+     * 
+     * @return - The page, with a cursor if there are more books after it
+     */
+    private static BookPageDto toPage(List<Book> books, int pageSize) {
+        String nextCursor = null;
+        if (books.size() > pageSize) {
+            books = books.subList(0, pageSize);
+            nextCursor = BookCursor.encode(books.get(pageSize - 1).getIsbn());
+        }
+        return new BookPageDto(books, nextCursor, pageSize);
+    }
+
+    /*
+     * Fetches books by isbn, keeping the order of the isbns given
+     * 
+     * @param isbns - the isbns wanted, in the order they should be returned
+     * 
+     * @return - The books found, any isbn no longer stored is left out
+     */
+    private List<Book> findAllInOrder(List<String> isbns) {
+        if (isbns.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Book> booksByIsbn = bookRepository.findAllById(isbns).stream()
+                .collect(Collectors.toMap(Book::getIsbn, Function.identity()));
+        return isbns.stream().map(booksByIsbn::get).filter(Objects::nonNull).toList();
+    }
+
+    /*
+     * Keeps the in-memory indexes in step with a book that was just written
+     * 
+     * @param book - the book as it is now stored
+     */
+    private void notifyBookSaved(Book book) {
+        for (BookChangeListener listener : bookChangeListeners) {
+            listener.bookSaved(book);
+        }
+    }
+
+    /*
+     * Keeps the in-memory indexes in step with a book that was just deleted
+     * 
+     * @param isbn - the isbn of the deleted book
+     */
+    private void notifyBookDeleted(String isbn) {
+        for (BookChangeListener listener : bookChangeListeners) {
+            listener.bookDeleted(isbn);
+        }
     }
 }
@@ -0,0 +1,9 @@
+package scopeland.libraryapp.service;
+
+import java.io.IOException;
+
+import scopeland.libraryapp.entities.dtos.IngestReportDto;
+
+public interface CatalogueIngestService {
+    IngestReportDto ingest(String fileName) throws IOException;
+}
@@ -0,0 +1,364 @@
+package scopeland.libraryapp.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.entities.dtos.BulkImportItemDto;
+import scopeland.libraryapp.entities.dtos.IngestReportDto;
+import scopeland.libraryapp.enums.BookStatus;
+import scopeland.libraryapp.enums.BulkImportStatus;
+import scopeland.libraryapp.enums.IngestFormat;
+import scopeland.libraryapp.exceptions.IngestFileException;
+import scopeland.libraryapp.ingest.BookRecordReader;
+import scopeland.libraryapp.ingest.CsvBookReader;
+import scopeland.libraryapp.ingest.IngestCheckpoint;
+import scopeland.libraryapp.ingest.MarcBookReader;
+import scopeland.libraryapp.ingest.RawBookRecord;
+import scopeland.libraryapp.ingest.StageStats;
+import scopeland.libraryapp.repositories.interfaces.IBookRepository;
+
+/*
+ * Ingests CSV and MARC catalogue files dropped in the ingest directory.
+ * 
+ * Each file runs through a pipeline of threads joined by bounded queues, so a
+ * fast stage waits for a slow one instead of filling memory:
+ * 
+ * parse (1 thread) -> sanitise and validate (one thread per core) -> dedupe and
+ * write (1 thread)
+ * 
+ * Parsing reads the file in order and stays on one thread. Sanitising with
+ * Jsoup and validation are where the CPU goes, so they run on every core. The
+ * writer drops isbns already seen in the file, checks the rest against the
+ * database with one query per batch and inserts each batch through
+ * BookBatchWriter.
+ * 
+ * After each batch the writer saves a checkpoint of how many leading records are
+ * finished with. Records reach the writer out of order, so it only counts a
+ * record once every record before it is finished too. A failed run can be
+ * started again and picks up from the checkpoint.
+ */
+@Service
+public class CatalogueIngestServiceImpl implements CatalogueIngestService {
+
+    private static final int MAX_REJECTED_REPORTED = 100;
+    // Marks the end of a queue
+    private static final RawBookRecord END_OF_RECORDS = new RawBookRecord(-1, null, null, null, null, null, null);
+    private static final Checked END_OF_CHECKED = new Checked(-1, null, null, null, null);
+
+    private final Path directory;
+    private final int workers;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final IBookRepository bookRepository;
+    private final BookBatchWriter bookBatchWriter;
+    private final BookSanitiser bookSanitiser;
+    private final Validator validator;
+    private final Set<Path> running = ConcurrentHashMap.newKeySet();
+
+    public CatalogueIngestServiceImpl(@Value("${library.ingest.directory:ingest}") String directory,
+            @Value("${library.ingest.workers:0}") int workers,
+            @Value("${library.ingest.queue-capacity:1024}") int queueCapacity,
+            @Value("${library.import.chunk-size:500}") int batchSize,
+            IBookRepository bookRepository, BookBatchWriter bookBatchWriter, BookSanitiser bookSanitiser,
+            Validator validator) {
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.workers = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.bookRepository = bookRepository;
+        this.bookBatchWriter = bookBatchWriter;
+        this.bookSanitiser = bookSanitiser;
+        this.validator = validator;
+    }
+
+    /*
+     * Ingests a catalogue file, carrying on from where an earlier failed run got
+     * to
+     * 
+     * @param fileName - The name of a .csv, .mrc or .marc file in the ingest
+     * directory
+     * 
+     * @return - Counts per outcome, the first rejected records and the rate of
+     * each stage
+     */
+    @Override
+    public IngestReportDto ingest(String fileName) throws IOException {
+        IngestFormat format = IngestFormat.fromFileName(fileName);
+        if (format == null) {
+            throw new IngestFileException(fileName + " is not a .csv, .mrc or .marc file");
+        }
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.getParent().equals(directory) || !Files.isRegularFile(file)) {
+            throw new IngestFileException("there is no file " + fileName + " in the ingest directory");
+        }
+        if (!running.add(file)) {
+            throw new IngestFileException(fileName + " is already being ingested");
+        }
+        try {
+            return new Run(file, format).ingest();
+        } finally {
+            running.remove(file);
+        }
+    }
+
+    /*
+     * Turns a record into a book and checks it, on one of the worker threads
+     */
+    private Checked check(RawBookRecord raw, StageStats sanitise, StageStats validate) {
+        if (raw.problem() != null) {
+            return Checked.rejected(raw, BulkImportStatus.INVALID, List.of(raw.problem()));
+        }
+        long start = System.nanoTime();
+        List<String> errors = new ArrayList<>();
+        Integer year = null;
+        boolean yearUnreadable = false;
+        if (raw.publicationYear() != null && !raw.publicationYear().isBlank()) {
+            try {
+                year = Integer.valueOf(raw.publicationYear().trim());
+            } catch (NumberFormatException ex) {
+                yearUnreadable = true;
+                errors.add("publicationYear: " + raw.publicationYear() + " is not a year");
+            }
+        }
+        BookStatus status = BookStatus.AVAILABLE;
+        if (raw.bookStatus() != null && !raw.bookStatus().isBlank()) {
+            try {
+                status = BookStatus.valueOf(raw.bookStatus().trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                errors.add("bookStatus: " + raw.bookStatus() + " is not a book status");
+            }
+        }
+        Book book = bookSanitiser.sanitise(new Book(raw.isbn(), raw.title(), raw.author(), year, status));
+        sanitise.record(1, start);
+
+        start = System.nanoTime();
+        for (ConstraintViolation<Book> violation : validator.validate(book)) {
+            String property = violation.getPropertyPath().toString();
+            // An unreadable year is already reported
+            if (!(yearUnreadable && property.equals("publicationYear"))) {
+                errors.add(property + ": " + violation.getMessage());
+            }
+        }
+        validate.record(1, start);
+        if (!errors.isEmpty()) {
+            return Checked.rejected(raw, BulkImportStatus.INVALID, errors.stream().sorted().toList());
+        }
+        return new Checked(raw.number(), book.getIsbn(), book, null, null);
+    }
+
+    /*
+     * The state of one ingest of one file
+     */
+    private final class Run {
+        private final Path file;
+        private final IngestFormat format;
+        private final IngestCheckpoint checkpoint;
+        private final BlockingQueue<RawBookRecord> parsed = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<Checked> checked = new ArrayBlockingQueue<>(queueCapacity);
+        private final StageStats parse = new StageStats("parse", 1);
+        private final StageStats sanitise = new StageStats("sanitise", workers);
+        private final StageStats validate = new StageStats("validate", workers);
+        private final StageStats dedupe = new StageStats("dedupe", 1);
+        private final StageStats write = new StageStats("write", 1);
+
+        // Only touched by the writer thread, read once it has finished
+        private final Map<BulkImportStatus, Long> counts = new EnumMap<>(BulkImportStatus.class);
+        private final List<BulkImportItemDto> rejected = new ArrayList<>();
+        private final PriorityQueue<Long> finishedOutOfOrder = new PriorityQueue<>();
+        private long resumedFrom;
+        private long finished;
+        private long records;
+
+        private Run(Path file, IngestFormat format) throws IOException {
+            this.file = file;
+            this.format = format;
+            this.checkpoint = new IngestCheckpoint(file);
+            for (BulkImportStatus status : BulkImportStatus.values()) {
+                counts.put(status, 0L);
+            }
+        }
+
+        private IngestReportDto ingest() throws IOException {
+            long start = System.nanoTime();
+            resumedFrom = checkpoint.load();
+            finished = resumedFrom;
+
+            ExecutorService executor = Executors.newFixedThreadPool(workers + 2,
+                    new CustomizableThreadFactory("ingest-"));
+            ExecutorCompletionService<Void> stages = new ExecutorCompletionService<>(executor);
+            try {
+                stages.submit(() -> {
+                    parseAll();
+                    return null;
+                });
+                for (int i = 0; i < workers; i++) {
+                    stages.submit(() -> {
+                        checkAll();
+                        return null;
+                    });
+                }
+                stages.submit(() -> {
+                    writeAll();
+                    return null;
+                });
+                // Any stage failing stops the rest, the checkpoint keeps what was done
+                for (int i = 0; i < workers + 2; i++) {
+                    stages.take().get();
+                }
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof IOException ioEx) {
+                    throw ioEx;
+                }
+                if (ex.getCause() instanceof RuntimeException runtimeEx) {
+                    throw runtimeEx;
+                }
+                throw new IllegalStateException(ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Ingest of " + file.getFileName() + " was interrupted", ex);
+            } finally {
+                executor.shutdownNow();
+            }
+            checkpoint.delete();
+
+            long elapsedNanos = System.nanoTime() - start;
+            return new IngestReportDto(file.getFileName().toString(), format, resumedFrom, records, counts,
+                    rejected,
+                    List.of(parse.toDto(), sanitise.toDto(), validate.toDto(), dedupe.toDto(), write.toDto()),
+                    elapsedNanos / 1_000_000, records / Math.max(elapsedNanos / 1e9, 1e-9));
+        }
+
+        private void parseAll() throws IOException, InterruptedException {
+            try (InputStream input = Files.newInputStream(file); BookRecordReader reader = open(input)) {
+                long start = System.nanoTime();
+                RawBookRecord raw;
+                while ((raw = reader.next()) != null) {
+                    if (raw.number() >= resumedFrom) {
+                        parse.record(1, start);
+                        parsed.put(raw);
+                    }
+                    start = System.nanoTime();
+                }
+            }
+            for (int i = 0; i < workers; i++) {
+                parsed.put(END_OF_RECORDS);
+            }
+        }
+
+        private BookRecordReader open(InputStream input) throws IOException {
+            return format == IngestFormat.CSV ? new CsvBookReader(input) : new MarcBookReader(input);
+        }
+
+        private void checkAll() throws InterruptedException {
+            RawBookRecord raw;
+            while ((raw = parsed.take()) != END_OF_RECORDS) {
+                checked.put(check(raw, sanitise, validate));
+            }
+            checked.put(END_OF_CHECKED);
+        }
+
+        private void writeAll() throws InterruptedException {
+            Set<String> seenIsbns = new HashSet<>();
+            List<Checked> batch = new ArrayList<>(batchSize);
+            int workersFinished = 0;
+            while (workersFinished < workers) {
+                Checked next = checked.take();
+                if (next == END_OF_CHECKED) {
+                    workersFinished++;
+                    continue;
+                }
+                records++;
+                if (next.book() == null) {
+                    done(next, next.status(), next.errors());
+                    continue;
+                }
+                long start = System.nanoTime();
+                boolean duplicate = !seenIsbns.add(next.isbn());
+                dedupe.record(1, start);
+                if (duplicate) {
+                    done(next, BulkImportStatus.DUPLICATE, null);
+                } else {
+                    batch.add(next);
+                    if (batch.size() >= batchSize) {
+                        writeBatch(batch);
+                    }
+                }
+            }
+            writeBatch(batch);
+        }
+
+        private void writeBatch(List<Checked> batch) {
+            if (!batch.isEmpty()) {
+                long start = System.nanoTime();
+                Set<String> existing = bookRepository.findExistingIsbns(batch.stream().map(Checked::isbn).toList());
+                dedupe.record(0, start);
+
+                List<Checked> fresh = new ArrayList<>(batch.size());
+                for (Checked book : batch) {
+                    if (existing.contains(book.isbn())) {
+                        done(book, BulkImportStatus.ALREADY_EXISTS, null);
+                    } else {
+                        fresh.add(book);
+                    }
+                }
+                start = System.nanoTime();
+                List<BulkImportStatus> statuses = bookBatchWriter.insert(fresh.stream().map(Checked::book).toList());
+                write.record(fresh.size(), start);
+                for (int i = 0; i < fresh.size(); i++) {
+                    done(fresh.get(i), statuses.get(i), null);
+                }
+                batch.clear();
+            }
+            checkpoint.save(finished);
+        }
+
+        private void done(Checked record, BulkImportStatus status, List<String> errors) {
+            counts.merge(status, 1L, Long::sum);
+            if (status != BulkImportStatus.IMPORTED && rejected.size() < MAX_REJECTED_REPORTED) {
+                rejected.add(new BulkImportItemDto((int) record.number(), record.isbn(), status, errors));
+            }
+            finishedOutOfOrder.add(record.number());
+            while (!finishedOutOfOrder.isEmpty() && finishedOutOfOrder.peek() == finished) {
+                finishedOutOfOrder.poll();
+                finished++;
+            }
+        }
+    }
+
+    /*
+     * A record after the worker stage, holding the book if it passed or why it
+     * didn't. A passed record carries the book's canonical isbn, so spellings of
+     * one ISBN dedupe together and match the stored key.
+     */
+    private record Checked(long number, String isbn, Book book, BulkImportStatus status, List<String> errors) {
+        private static Checked rejected(RawBookRecord raw, BulkImportStatus status, List<String> errors) {
+            return new Checked(raw.number(), raw.isbn(), null, status, errors);
+        }
+    }
+}
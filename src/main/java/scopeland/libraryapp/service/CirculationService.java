@@ -0,0 +1,13 @@
+package scopeland.libraryapp.service;
+
+import scopeland.libraryapp.entities.dtos.HoldingDto;
+
+public interface CirculationService {
+    HoldingDto getHolding(String isbn);
+
+    HoldingDto setTotalCopies(String isbn, int totalCopies);
+
+    HoldingDto checkOut(String isbn);
+
+    HoldingDto checkIn(String isbn);
+}
@@ -0,0 +1,215 @@
+package scopeland.libraryapp.service;
+
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import scopeland.libraryapp.cache.AvailableCopies;
+import scopeland.libraryapp.entities.Holding;
+import scopeland.libraryapp.entities.dtos.HoldingDto;
+import scopeland.libraryapp.enums.BookStatus;
+import scopeland.libraryapp.exceptions.BookNotFoundException;
+import scopeland.libraryapp.exceptions.HoldingNotFoundException;
+import scopeland.libraryapp.exceptions.InvalidCopyCountException;
+import scopeland.libraryapp.exceptions.NoCopyAvailableException;
+import scopeland.libraryapp.exceptions.NoCopyOnLoanException;
+import scopeland.libraryapp.repositories.interfaces.IHoldingRepository;
+
+/*
+ * Lends and returns the copies held of each book.
+ *
+ * Checkouts and returns take no locks, a copy is reserved on the book's
+ * in-memory counter in AvailableCopies and then taken in the database with one
+ * conditional UPDATE. Only the rarer writes, changing how many copies are held
+ * and flipping the book's status when its last copy goes out or its first comes
+ * back, lock the book, on one of a fixed set of lock stripes so books sharing a
+ * stripe are the only ones that can wait on each other.
+ *
+ * Should the database turn down a checkout the counter allowed, the counter is
+ * read again from the book's holding, so a drifted count corrects itself.
+ */
+@Service
+public class CirculationServiceImpl implements CirculationService {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final IHoldingRepository holdingRepository;
+    private final BookService bookService;
+    private final AvailableCopies availableCopies;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public CirculationServiceImpl(IHoldingRepository holdingRepository, BookService bookService,
+            AvailableCopies availableCopies) {
+        this.holdingRepository = holdingRepository;
+        this.bookService = bookService;
+        this.availableCopies = availableCopies;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /*
+     * Gets how many copies of a book are held and on the shelf
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @return - The books copies
+     */
+    @Override
+    public HoldingDto getHolding(String isbn) {
+        HoldingDto holding = availableCopies.find(isbn);
+        if (holding == null) {
+            throw new HoldingNotFoundException(isbn);
+        }
+        return holding;
+    }
+
+    /*
+     * Records how many copies of a book are held, adding to or taking from the
+     * shelf. The book's status is then kept to AVAILABLE while any copy is on the
+     * shelf and BORROWED while none are.
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @param totalCopies - How many copies are now held, at least as many as are on
+     * loan
+     * 
+     * @return - The books copies
+     */
+    @Override
+    public HoldingDto setTotalCopies(String isbn, int totalCopies) {
+        if (totalCopies < 0) {
+            throw new InvalidCopyCountException(isbn, totalCopies);
+        }
+        synchronized (lockFor(isbn)) {
+            if (availableCopies.find(isbn) != null) {
+                if (holdingRepository.updateTotalCopies(isbn, totalCopies) == 0) {
+                    throw new InvalidCopyCountException(isbn, totalCopies);
+                }
+                availableCopies.resize(isbn, totalCopies);
+            } else {
+                if (holdingRepository.insertIfBookExists(isbn, totalCopies) == 0) {
+                    throw new BookNotFoundException(isbn);
+                }
+                availableCopies.add(isbn, totalCopies, totalCopies);
+            }
+            updateBookStatus(isbn);
+            return getHolding(isbn);
+        }
+    }
+
+    /*
+     * Lends a copy of a book
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @return - The books copies, after this one was lent
+     */
+    @Override
+    public HoldingDto checkOut(String isbn) {
+        int left = availableCopies.reserve(isbn);
+        if (left < 0) {
+            throw new NoCopyAvailableException(isbn);
+        }
+        int updated;
+        try {
+            updated = holdingRepository.checkOut(isbn);
+        } catch (RuntimeException ex) {
+            release(isbn);
+            throw ex;
+        }
+        if (updated == 0) {
+            resync(isbn);
+            throw new NoCopyAvailableException(isbn);
+        }
+        releaseOnRollback(isbn);
+        if (left == 0) {
+            updateBookStatus(isbn);
+        }
+        return getHolding(isbn);
+    }
+
+    /*
+     * Takes back a lent copy of a book
+     * 
+     * @param isbn - The isbn of the book
+     * 
+     * @return - The books copies, after this one was returned
+     */
+    @Override
+    public HoldingDto checkIn(String isbn) {
+        getHolding(isbn);
+        if (holdingRepository.checkIn(isbn) == 0) {
+            throw new NoCopyOnLoanException(isbn);
+        }
+        release(isbn);
+        return getHolding(isbn);
+    }
+
+    private void release(String isbn) {
+        if (availableCopies.release(isbn) == 1) {
+            updateBookStatus(isbn);
+        }
+    }
+
+    /*
+     * Counts the copies again from the book's holding, when the database turned
+     * down a copy that was counted as on the shelf, and sets the status from the
+     * new counts
+     */
+    private void resync(String isbn) {
+        synchronized (lockFor(isbn)) {
+            Optional<Holding> holding = holdingRepository.findById(isbn);
+            if (holding.isEmpty()) {
+                return;
+            }
+            availableCopies.add(isbn, holding.get().getTotalCopies(), holding.get().getAvailableCopies());
+            updateBookStatus(isbn);
+        }
+    }
+
+    /*
+     * Puts the copy back on the count if the checkout was part of a caller's
+     * transaction that rolls back. The status written with it rolls back too, so
+     * only the count needs restoring.
+     */
+    private void releaseOnRollback(String isbn) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    availableCopies.release(isbn);
+                }
+            }
+        });
+    }
+
+    /*
+     * Sets the book's status from its counted copies. Runs under the book's lock
+     * and reads the counts inside it, so when the last copy going out races the
+     * first coming back, whichever runs second leaves the right status.
+     */
+    private void updateBookStatus(String isbn) {
+        synchronized (lockFor(isbn)) {
+            HoldingDto holding = availableCopies.find(isbn);
+            if (holding == null) {
+                return;
+            }
+            try {
+                bookService.updateHeldBookStatus(isbn,
+                        holding.getAvailableCopies() > 0 ? BookStatus.AVAILABLE : BookStatus.BORROWED);
+            } catch (BookNotFoundException ex) {
+                // The book has been deleted since
+            }
+        }
+    }
+
+    private Object lockFor(String isbn) {
+        return locks[Math.floorMod(isbn.hashCode(), LOCK_STRIPES)];
+    }
+}
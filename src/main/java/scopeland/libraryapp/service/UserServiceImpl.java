@@ -2,6 +2,7 @@ package scopeland.libraryapp.service;
 
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import scopeland.libraryapp.entities.Role;
 import scopeland.libraryapp.entities.User;
@@ -34,6 +35,7 @@ public class UserServiceImpl implements UserService {
      * 
      * @param userDto - The user to be saved
      */
+    @Transactional
     public void saveUser(UserDto userDto) {
         User user = new User();
         user.setName(userDto.getFirstName() + " " + userDto.getLastName());
@@ -43,7 +45,7 @@ public class UserServiceImpl implements UserService {
         user.setPassword(passwordEncoder.encode(userDto.getPassword()));
 
         // Assign the access role (Only Admin at this point)
-        Role role = roleRepository.findByName("ADMIN");
+        Role role = roleRepository.findByName("ROLE_ADMIN");
         if (role == null) {
             role = checkRoleExist();
         }
@@ -0,0 +1,70 @@
+package scopeland.libraryapp.service.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import scopeland.libraryapp.exceptions.InvalidCursorException;
+
+/*
+ * Encodes and decodes the opaque cursor used for keyset pagination of books.
+ * 
+ * The cursor wraps the sort key (the ISBN primary key) of the last book on a page.
+ * It is versioned so the sort key can change later without breaking old clients
+ * in a confusing way, an unknown version is simply rejected.
+ */
+public final class BookCursor {
+
+    private static final String VERSION_PREFIX = "v1:";
+
+    private BookCursor() {
+    }
+
+    /*
+     * Builds the cursor pointing after the given isbn
+     * 
+     * @param isbn - the isbn of the last book on the current page
+     * 
+     * @return - An opaque url safe cursor
+     */
+    public static String encode(String isbn) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((VERSION_PREFIX + isbn).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /*
+     * Reads the isbn back out of a cursor
+     * 
+     * @param cursor - the cursor previously returned by encode
+     * 
+     * @return - The isbn the next page should start after
+     */
+    public static String decode(String cursor) throws InvalidCursorException {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException(cursor);
+        }
+
+        if (!decoded.startsWith(VERSION_PREFIX) || !isIsbn13(decoded, VERSION_PREFIX.length())) {
+            throw new InvalidCursorException(cursor);
+        }
+        return decoded.substring(VERSION_PREFIX.length());
+    }
+
+    /*
+     * Isbns are stored as 13 digits, anything else could never have come from a
+     * page and can't be compared with the stored keys
+     */
+    private static boolean isIsbn13(String decoded, int start) {
+        if (decoded.length() - start != 13) {
+            return false;
+        }
+        for (int i = start; i < decoded.length(); i++) {
+            if (decoded.charAt(i) < '0' || decoded.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,57 @@
+package scopeland.libraryapp.validation.books;
+
+import scopeland.libraryapp.validation.books.validator.IsbnValidator;
+
+/*
+ * Turns the different ways of writing an isbn into the one form stored, the 13
+ * digits of the ISBN-13 with no dashes or spaces. "978-0-06-295904-1",
+ * "978 0062959041" and the ISBN-10 "0-06-295904-2" all become "9780062959041",
+ * so they find the same book with a single primary key lookup.
+ */
+public final class IsbnNormaliser {
+
+    private IsbnNormaliser() {
+    }
+
+    /*
+     * The canonical form of an isbn
+     * 
+     * @param isbn - the isbn as sent
+     * 
+     * @return - The 13 digit ISBN-13, or the isbn unchanged if it isn't a valid
+     * ISBN so validation can report what was wrong with it as sent
+     */
+    public static String canonical(String isbn) {
+        if (isbn == null || IsbnValidator.check(isbn) != 0) {
+            return isbn;
+        }
+        // Already canonical, the usual case
+        if (isbn.length() == 13 && isbn.indexOf('-') < 0 && isbn.indexOf(' ') < 0) {
+            return isbn;
+        }
+
+        char[] digits = new char[13];
+        int length = 0;
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c != '-' && c != ' ') {
+                digits[length++] = c;
+            }
+        }
+        if (length == 13) {
+            return new String(digits);
+        }
+
+        // An ISBN-10 is the ISBN-13 without the 978 prefix, under its own check digit
+        System.arraycopy(digits, 0, digits, 3, 9);
+        digits[0] = '9';
+        digits[1] = '7';
+        digits[2] = '8';
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (digits[i] - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        digits[12] = (char) ('0' + (10 - sum % 10) % 10);
+        return new String(digits);
+    }
+}
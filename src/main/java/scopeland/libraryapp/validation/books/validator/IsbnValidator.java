@@ -7,16 +7,20 @@ import scopeland.libraryapp.validation.books.constraint.IsbnConstraint;
 /*
  * Validates an ISBN is valid
  * 
- * This is a very simple ISBN Validator.
- * Since I am not a Java developer I though it would be good experience to write a custom validator
- * ISBNs are not this simple, they have check digits and you could apply a very strict regex to them
- * They should only have spaces or dashes, a maximum of 3 and not a mix of both
- * If I was to actually use an ISBN in a production app I would just use the pre-built validator:
- * https://docs.jboss.org/hibernate/stable/validator/api/org/hibernate/validator/constraints/ISBN.html
+ * An ISBN is 10 or 13 digits, optionally split up by dashes or spaces, where the
+ * last digit is a check digit worked out from the others. An ISBN-10 check digit
+ * of 10 is written as X.
+ * 
+ * Runs on every request carrying an isbn, so the checks are made in a single
+ * pass over the characters without copying the string or using a regex.
  */
 public class IsbnValidator implements
         ConstraintValidator<IsbnConstraint, String> {
 
+    public static final int LENGTH_INVALID = 1;
+    public static final int FORMAT_INVALID = 2;
+    public static final int CHECK_DIGIT_INVALID = 4;
+
     @Override
     public void initialize(IsbnConstraint isbn) {
     }
@@ -31,45 +35,85 @@ public class IsbnValidator implements
     @Override
     public boolean isValid(String isbn, ConstraintValidatorContext context) {
 
-        context.disableDefaultConstraintViolation();
+        // A missing isbn is reported by @NotBlank
+        if (isbn == null) {
+            return true;
+        }
+
+        int problems = check(isbn);
+        if (problems == 0) {
+            return true;
+        }
 
-        var isLengthValid = isLengthValid(isbn);
-        var isFormatValid = isFormatValid(isbn);
+        context.disableDefaultConstraintViolation();
 
-        if (!isLengthValid) {
+        if ((problems & LENGTH_INVALID) != 0) {
             context.buildConstraintViolationWithTemplate("ISBN must be 10 or 13 digits long")
                     .addConstraintViolation();
         }
 
-        if (!isFormatValid) {
+        if ((problems & FORMAT_INVALID) != 0) {
             context.buildConstraintViolationWithTemplate("ISBN must only contain numbers, dashes and spaces")
                     .addConstraintViolation();
         }
 
-        return isLengthValid && isFormatValid;
-    }
+        if ((problems & CHECK_DIGIT_INVALID) != 0) {
+            context.buildConstraintViolationWithTemplate("ISBN check digit is wrong")
+                    .addConstraintViolation();
+        }
 
-    /*
-     * A method to check the length of the isbn is valid
-     * 
-     * @param isbn - the isbn being validated
-     * 
-     * @returns - Whether the length is valid or not
-     */
-    private boolean isLengthValid(String isbn) {
-        isbn = isbn.replaceAll("-", "");
-        isbn = isbn.replaceAll(" ", "");
-        return isbn.length() == 10 || isbn.length() == 13;
+        return false;
     }
 
     /*
-     * A method to check the format of the isbn is valid
+     * Checks the length, the characters used and the check digit in one pass.
+     * Dashes and spaces are skipped, anything else counts towards the length. The
+     * check digit is only checked when the length and characters are right.
      * 
-     * @param isbn - the isbn being validated
+     * @param isbn - the isbn being checked
      * 
-     * @returns - Whether the format is valid or not
+     * @returns - 0 if valid, otherwise any of LENGTH_INVALID, FORMAT_INVALID and
+     * CHECK_DIGIT_INVALID
      */
-    private boolean isFormatValid(String isbn) {
-        return isbn.matches("^([0-9]|-| )*$");
+    public static int check(String isbn) {
+        int length = 0;
+        boolean formatValid = true;
+        boolean endsInX = false;
+        // Weighted 10 down to 1 for an ISBN-10, alternately 1 and 3 for an ISBN-13
+        int sum10 = 0;
+        int sum13 = 0;
+
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            if (c >= '0' && c <= '9' && !endsInX) {
+                int digit = c - '0';
+                sum10 += (10 - length) * digit;
+                sum13 += (length % 2 == 0 ? 1 : 3) * digit;
+            } else if ((c == 'X' || c == 'x') && length == 9) {
+                endsInX = true;
+                sum10 += 10;
+            } else {
+                formatValid = false;
+            }
+            length++;
+        }
+
+        if (endsInX && length != 10) {
+            formatValid = false;
+        }
+        int problems = 0;
+        if (length != 10 && length != 13) {
+            problems |= LENGTH_INVALID;
+        }
+        if (!formatValid) {
+            problems |= FORMAT_INVALID;
+        }
+        if (problems == 0 && (length == 10 ? sum10 % 11 : sum13 % 10) != 0) {
+            problems |= CHECK_DIGIT_INVALID;
+        }
+        return problems;
     }
-}
\ No newline at end of file
+}
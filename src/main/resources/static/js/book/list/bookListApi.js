@@ -1,14 +1,18 @@
+// Cursor for the next page of the book list, null when there are no more pages
+var nextBookPageCursor = null;
+
 /* 
  * List Books
- * Calls the List books api endpoint
- * On Success: Updates Book, List shows success popup
+ * Calls the paged List books api endpoint for the first page
+ * On Success: Updates Book List, shows success popup
  */
 function listBooks()
 {
     clearSearchErrorText();
-    axios.get("/api/books")
+    axios.get("/api/books/page")
     .then((response) => {
-        buildBookList(response.data);
+        buildBookList(response.data.books);
+        updateNextBookPage(response.data.nextCursor);
         if(response.status === 200){
             showSuccess(`Books Loaded`);
         }
@@ -17,6 +21,66 @@ function listBooks()
     })
 }
 
+/* 
+ * Load More Books
+ * Calls the paged List books api endpoint for the page after the one shown
+ * On Success: Appends to the Book List
+ */
+function loadMoreBooks()
+{
+    if(nextBookPageCursor === null){
+        return;
+    }
+    axios.get("/api/books/page", { params: { cursor: nextBookPageCursor } })
+    .then((response) => {
+        appendBookList(response.data.books);
+        updateNextBookPage(response.data.nextCursor);
+    }).catch(error => {
+        var message = error.response.data;
+    })
+}
+
+/* 
+ * Search by Keywords
+ * Calls the full text search api endpoint over titles and authors
+ * On Success: Updates Book List with the best matches first, shows success popup
+ */
+function searchText()
+{
+    clearSearchErrorText();
+    var text = document.getElementById("search-text").value;
+    axios.get(`/api/books/search/text`, { params: { q: text } })
+    .then((response) => {
+        buildBookList(response.data);
+        updateNextBookPage(null);
+        if(response.status === 200){
+            showSuccess(`Search Complete`);
+        }
+    }).catch(error => {
+        updateSearchErrorText("search-text", error?.response?.data);
+    })
+}
+
+/* 
+ * Suggest Completions
+ * Calls the autocomplete api endpoint with what has been typed so far
+ * On Success: Fills the keyword search suggestions with matching titles and authors
+ */
+function suggestCompletions()
+{
+    var prefix = document.getElementById("search-text").value;
+    if(prefix.trim().length === 0){
+        buildCompletionList([]);
+        return;
+    }
+    axios.get(`/api/books/autocomplete`, { params: { prefix: prefix, limit: 5 } })
+    .then((response) => {
+        buildCompletionList(response.data.titles.concat(response.data.authors));
+    }).catch(error => {
+        buildCompletionList([]);
+    })
+}
+
 /* 
  * Search by Author
  * Calls the search author api endpoint
@@ -26,10 +90,12 @@ function searchAuthor()
 {
     clearSearchErrorText();
     var author = document.getElementById("search-author").value;
+    var mode = document.getElementById("search-author-mode").value;
     author = author.replace(" ", "+");
-    axios.get((`/api/books/search/author/${author}`))
+    axios.get(`/api/books/search/author/${author}`, { params: { mode: mode } })
     .then((response) => {
         buildBookList(response.data);
+        updateNextBookPage(null);
         if(response.status === 200){
             showSuccess(`Search Complete`);
         }
@@ -53,10 +119,36 @@ function searchPublicationYearRange()
     axios.get(`/api/books/search/publicationYear/range/${startYear}/${endYear}`)
     .then((response) => {
         buildBookList(response.data);
+        updateNextBookPage(null);
         if(response.status === 200){
             showSuccess(`Search Complete`);
         }
     }).catch(error => {
         updateSearchErrorText("search-year", error?.response?.data);
     })
-}
\ No newline at end of file
+}
+
+/* 
+ * Count by Publication Year Range
+ * Calls the Publication Year facets api endpoint as the range is typed
+ * On Success: Shows how many books the range holds before searching it
+ */
+function countPublicationYearRange()
+{
+    var startYear = document.getElementById("search-year-start").value;
+    var endYear = document.getElementById("search-year-end").value;
+    var params = { bucket: "DECADE" };
+    if(startYear !== ""){
+        params.startYear = startYear;
+    }
+    if(endYear !== ""){
+        params.endYear = endYear;
+    }
+
+    axios.get(`/api/books/facets/publicationYear`, { params: params })
+    .then((response) => {
+        updateYearCount(response.data);
+    }).catch(error => {
+        updateYearCount(null);
+    })
+}
@@ -8,6 +8,32 @@ function buildBookList(books){
     });
 }
 
+// Adds more books to the end of the existing Book list ui
+function appendBookList(books){
+    books.forEach(book => {
+        $('#books').append($(getBookListEntryRow(book)));
+    });
+}
+
+// Stores the cursor for the next page and only shows load more if there is one
+function updateNextBookPage(cursor){
+    nextBookPageCursor = cursor;
+    $('#load-more-button').toggle(cursor !== null);
+}
+
+// Fills the keyword search suggestions
+function buildCompletionList(completions){
+    $('#search-text-completions').empty();
+    completions.forEach(completion => {
+        $('#search-text-completions').append($('<option>').attr('value', completion));
+    });
+}
+
+// Shows how many books fall in the typed year range, blank if it can't be counted
+function updateYearCount(facets){
+    $('#search-year-count').text(facets === null ? '' : `${facets.total} books`);
+}
+
 // Builds the book list title row UI
 function getBookListTitleRow() {
     return `<tr class="book-list-row book-list-title-row"> 
@@ -0,0 +1,61 @@
+package scopeland.libraryapp.apiController;
+
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static scopeland.libraryapp.monitoring.StatementMatchers.*;
+
+import scopeland.libraryapp.LibraryappApplication;
+import scopeland.libraryapp.entities.dtos.UserDto;
+import scopeland.libraryapp.service.UserService;
+
+/*
+ * Integration tests for the user pages
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, classes = LibraryappApplication.class)
+@AutoConfigureMockMvc(addFilters = false)
+@TestPropertySource(locations = "classpath:application-integrationtest.properties", properties = {
+		"spring.datasource.url=jdbc:h2:mem:authtestdb" })
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class AuthControllerTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private UserService userService;
+
+	// region List Users
+
+	/*
+	 * Listing users loads their roles with them, not with a query per user
+	 */
+	@Test
+	public void givenManyUsers_whenListUsers_thenOneStatement() throws Exception {
+
+		// Arrange
+		for (int i = 0; i < 8; i++) {
+			userService.saveUser(new UserDto(null, "Reader", "Number" + i, "reader" + i + "@scopeland.com", "password"));
+		}
+
+		// Act
+		var results = mvc.perform(get("/api/users"));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(statementCount(1))
+				.andExpect(noRepeatedStatements(2));
+	}
+	// endregion
+}
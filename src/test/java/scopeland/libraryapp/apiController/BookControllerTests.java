@@ -1,10 +1,16 @@
 package scopeland.libraryapp.apiController;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
@@ -13,9 +19,17 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
+import com.jayway.jsonpath.JsonPath;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.hamcrest.Matchers.containsString;
+import static scopeland.libraryapp.monitoring.StatementMatchers.*;
 
 import scopeland.libraryapp.LibraryappApplication;
 import scopeland.libraryapp.entities.Book;
@@ -23,7 +37,12 @@ import scopeland.libraryapp.enums.BookStatus;
 import scopeland.libraryapp.exceptions.BookAlreadyBorrowedException;
 import scopeland.libraryapp.exceptions.BookAlreadyExistsException;
 import scopeland.libraryapp.exceptions.BookNotFoundException;
+import scopeland.libraryapp.exceptions.BulkImportFormatException;
+import scopeland.libraryapp.exceptions.InvalidCursorException;
 import scopeland.libraryapp.exceptions.SearchByYearsEndBeforeStartException;
+import scopeland.libraryapp.monitoring.RequestStatements;
+import scopeland.libraryapp.monitoring.ServerTimingAdvice;
+import scopeland.libraryapp.validation.books.validator.IsbnValidatorTests;
 
 /*
  * A collection of integration tests for the booking controller
@@ -42,7 +61,7 @@ public class BookControllerTests {
 	// region List Books
 	/*
 	 * Test the list books command
-	 * - First item in json has a valid value
+	 * - First item in json has a valid value, books are listed in isbn order
 	 * - Expect the 3 items we added to be in the json (no more or no less)
 	 */
 	@Test
@@ -58,8 +77,221 @@ public class BookControllerTests {
 		// Assert
 		results.andExpect(status().isOk())
 				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
-				.andExpect(jsonPath("$[0].isbn").value("9781473619791"))
+				.andExpect(jsonPath("$[0].isbn").value("9780062877239"))
+				.andExpect(jsonPath("$.length()").value(3));
+	}
+
+	/*
+	 * Sending back the catalogue tag gets a 304 with no body until a book changes
+	 */
+	@Test
+	public void givenCatalogueETag_whenListBooksAgain_thenNotModifiedUntilBookChanges()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		var first = mvc.perform(get("/api/books")).andReturn().getResponse();
+		String eTag = first.getHeader(HttpHeaders.ETAG);
+
+		// Act
+		var unchanged = mvc.perform(get("/api/books").header(HttpHeaders.IF_NONE_MATCH, eTag));
+		mvc.perform(put("/api/books/9781473619791/updateStatus/BORROWED"));
+		var changed = mvc.perform(get("/api/books").header(HttpHeaders.IF_NONE_MATCH, eTag));
+
+		// Assert
+		assertTrue(eTag.startsWith("\""));
+		assertEquals(1, first.getHeaders(HttpHeaders.ETAG).size());
+		assertEquals("no-cache", first.getHeader(HttpHeaders.CACHE_CONTROL));
+		assertNotNull(first.getHeader(HttpHeaders.LAST_MODIFIED));
+		unchanged.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, eTag))
+				.andExpect(content().string(""));
+		changed.andExpect(status().isOk())
 				.andExpect(jsonPath("$.length()").value(3));
+		assertNotEquals(eTag, changed.andReturn().getResponse().getHeader(HttpHeaders.ETAG));
+	}
+	// endregion
+
+	// region List Books Page
+
+	/*
+	 * Test the paged list books command returns the first page in isbn order
+	 * with a cursor for the next page
+	 */
+	@Test
+	public void givenBooks_whenListBooksPage_thenFirstPageAndCursorReturned()
+			throws Exception {
+
+		// Arrange - Already handled by Database Loader
+
+		// Act
+		var results = mvc.perform(get("/api/books/page?size=2")
+				.contentType(MediaType.APPLICATION_JSON));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$.books.length()").value(2))
+				.andExpect(jsonPath("$.books[0].isbn").value("9780062877239"))
+				.andExpect(jsonPath("$.books[1].isbn").value("9780062959041"))
+				.andExpect(jsonPath("$.nextCursor").isNotEmpty());
+	}
+
+	/*
+	 * Test following the cursor returns the remaining books and no further cursor
+	 */
+	@Test
+	public void givenCursor_whenListBooksPage_thenNextPageReturned()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		var firstPage = mvc.perform(get("/api/books/page?size=2")
+				.contentType(MediaType.APPLICATION_JSON))
+				.andReturn().getResponse().getContentAsString();
+		String cursor = JsonPath.read(firstPage, "$.nextCursor");
+
+		// Act
+		var results = mvc.perform(get("/api/books/page")
+				.param("size", "2")
+				.param("cursor", cursor)
+				.contentType(MediaType.APPLICATION_JSON));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$.books.length()").value(1))
+				.andExpect(jsonPath("$.books[0].isbn").value("9781473619791"))
+				.andExpect(jsonPath("$.nextCursor").doesNotExist());
+	}
+
+	/*
+	 * Test the page size is capped so a client can't ask for the whole table
+	 */
+	@Test
+	public void givenHugePageSize_whenListBooksPage_thenPageSizeCapped()
+			throws Exception {
+
+		// Arrange - Already handled by Database Loader
+
+		// Act
+		var results = mvc.perform(get("/api/books/page?size=100000")
+				.contentType(MediaType.APPLICATION_JSON));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$.size").value(200))
+				.andExpect(jsonPath("$.books.length()").value(3));
+	}
+
+	/*
+	 * Test a cursor we did not issue is rejected with a bad request
+	 */
+	@Test
+	public void givenInvalidCursor_whenListBooksPage_thenReturnError()
+			throws Exception {
+
+		// Arrange - Nothing to arrange
+
+		// Act
+		var results = mvc.perform(get("/api/books/page?cursor=not-a-cursor")
+				.contentType(MediaType.APPLICATION_JSON));
+
+		// Assert
+		results.andExpect(status().isBadRequest())
+				.andExpect(result -> assertTrue(
+						result.getResolvedException() instanceof InvalidCursorException));
+	}
+	// endregion
+
+	// region Export Books
+
+	/*
+	 * Test the export streams every book as one json object per line
+	 */
+	@Test
+	public void givenBooks_whenExportBooks_thenOneJsonLinePerBook()
+			throws Exception {
+
+		// Arrange - Already handled by Database Loader
+
+		// Act
+		var asyncResult = mvc.perform(get("/api/books/export"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		var results = mvc.perform(asyncDispatch(asyncResult));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(BookController.NDJSON_VALUE))
+				.andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+		String[] lines = results.andReturn().getResponse().getContentAsString().split("\n");
+		assertEquals(3, lines.length);
+		assertEquals("9780062877239", JsonPath.read(lines[0], "$.isbn"));
+	}
+
+	/*
+	 * Test the export is gzipped on the fly when the client accepts it
+	 */
+	@Test
+	public void givenAcceptGzip_whenExportBooks_thenBodyIsGzipped()
+			throws Exception {
+
+		// Arrange - Already handled by Database Loader
+
+		// Act
+		var asyncResult = mvc.perform(get("/api/books/export")
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		var results = mvc.perform(asyncDispatch(asyncResult));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+		byte[] body = results.andReturn().getResponse().getContentAsByteArray();
+		try (var gunzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+			String[] lines = new String(gunzip.readAllBytes(), StandardCharsets.UTF_8).split("\n");
+			assertEquals(3, lines.length);
+		}
+	}
+
+	/*
+	 * Test the export is not gzipped when the client refuses gzip with q=0
+	 */
+	@Test
+	public void givenGzipRefused_whenExportBooks_thenBodyIsNotGzipped()
+			throws Exception {
+
+		// Arrange - Already handled by Database Loader
+
+		// Act
+		var asyncResult = mvc.perform(get("/api/books/export")
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		var results = mvc.perform(asyncDispatch(asyncResult));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+		String[] lines = results.andReturn().getResponse().getContentAsString().split("\n");
+		assertEquals(3, lines.length);
+	}
+
+	/*
+	 * Test the export runs under its own timeout rather than the app's async
+	 * request timeout
+	 */
+	@Test
+	public void givenExportTimeout_whenExportBooks_thenExportHasItsOwnTimeout()
+			throws Exception {
+
+		// Act
+		var asyncResult = mvc.perform(get("/api/books/export"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		// Assert
+		assertEquals(Duration.ofHours(1).toMillis(), asyncResult.getRequest().getAsyncContext().getTimeout());
+		mvc.perform(asyncDispatch(asyncResult)).andExpect(status().isOk());
 	}
 	// endregion
 
@@ -96,7 +328,7 @@ public class BookControllerTests {
 		// Arrange - Already handled by Database Loader
 
 		// Act
-		var results = mvc.perform(get("/api/books/9781473619123")
+		var results = mvc.perform(get("/api/books/9781473619128")
 				.contentType(MediaType.APPLICATION_JSON));
 
 		// Assert
@@ -104,6 +336,82 @@ public class BookControllerTests {
 				.andExpect(result -> assertTrue(
 						result.getResolvedException() instanceof BookNotFoundException));
 	}
+
+	/*
+	 * Looking the same book up twice loads it once and serves it from the cache
+	 * after, missing books are not cached
+	 */
+	@Test
+	public void givenBookLookedUp_whenGetBookByIsbnAgain_thenServedFromCache()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		mvc.perform(get("/api/books/9781473619791"));
+
+		// Act
+		var results = mvc.perform(get("/api/books/9781473619791"));
+		mvc.perform(get("/api/books/9781473619128"));
+		var stats = mvc.perform(get("/api/stats/cache/books"));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$.title").value("The Long Way to a Small Angry Planet"));
+		stats.andExpect(status().isOk())
+				.andExpect(jsonPath("$.hits").value(1))
+				.andExpect(jsonPath("$.misses").value(2))
+				.andExpect(jsonPath("$.size").value(1));
+	}
+
+	/*
+	 * Updating or deleting a cached book is seen by the next lookup
+	 */
+	@Test
+	public void givenCachedBook_whenUpdatedThenDeleted_thenGetBookByIsbnUpToDate()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		mvc.perform(get("/api/books/9781473619791"));
+
+		// Act
+		mvc.perform(put("/api/books/9781473619791/updateStatus/BORROWED"));
+		var updatedResults = mvc.perform(get("/api/books/9781473619791"));
+		mvc.perform(delete("/api/books/9781473619791"));
+		var deletedResults = mvc.perform(get("/api/books/9781473619791"));
+
+		// Assert
+		updatedResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.bookStatus").value("BORROWED"));
+		deletedResults.andExpect(status().isBadRequest())
+				.andExpect(result -> assertTrue(
+						result.getResolvedException() instanceof BookNotFoundException));
+	}
+
+	/*
+	 * A book's tag only changes when that book does, and a 304 is answered
+	 * without looking the book up
+	 */
+	@Test
+	public void givenBookETag_whenGetBookByIsbnAgain_thenNotModifiedUntilThatBookChanges()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		String eTag = mvc.perform(get("/api/books/9781473619791")).andReturn().getResponse()
+				.getHeader(HttpHeaders.ETAG);
+
+		// Act
+		mvc.perform(put("/api/books/9780062877239/updateStatus/AVAILABLE"));
+		var otherChanged = mvc.perform(get("/api/books/9781473619791").header(HttpHeaders.IF_NONE_MATCH, eTag));
+		var stats = mvc.perform(get("/api/stats/cache/books"));
+		mvc.perform(put("/api/books/9781473619791/updateStatus/BORROWED"));
+		var bookChanged = mvc.perform(get("/api/books/9781473619791").header(HttpHeaders.IF_NONE_MATCH, eTag));
+
+		// Assert
+		otherChanged.andExpect(status().isNotModified());
+		stats.andExpect(jsonPath("$.hits").value(0))
+				.andExpect(jsonPath("$.misses").value(1));
+		bookChanged.andExpect(status().isOk())
+				.andExpect(jsonPath("$.bookStatus").value("BORROWED"));
+	}
 	// endregion
 
 	// region Add Book
@@ -116,7 +424,7 @@ public class BookControllerTests {
 			throws Exception {
 
 		// Arrange - Some handled by Database Loader
-		Book newBook = new Book("9781473619800", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
+		Book newBook = new Book("9781473619807", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
 				BookStatus.AVAILABLE);
 
 		// Act
@@ -139,7 +447,7 @@ public class BookControllerTests {
 			throws Exception {
 
 		// Arrange - Some handled by Database Loader
-		Book newBook = new Book("9781473614148", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
+		Book newBook = new Book("9781473614147", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
 				BookStatus.AVAILABLE);
 
 		// Act
@@ -164,7 +472,7 @@ public class BookControllerTests {
 			throws Exception {
 
 		// Arrange - Already handled by Database Loader
-		Book newBook = new Book("9781473614133", null, "Douglas Adams", 1979,
+		Book newBook = new Book("9781473614130", null, "Douglas Adams", 1979,
 				BookStatus.AVAILABLE);
 
 		// Act
@@ -184,7 +492,7 @@ public class BookControllerTests {
 			throws Exception {
 
 		// Arrange - Some handled by Database Loader
-		Book newBook = new Book("9781473614133", "The Hitchhiker's Guide to the Galaxy", null, 1979,
+		Book newBook = new Book("9781473614130", "The Hitchhiker's Guide to the Galaxy", null, 1979,
 				BookStatus.AVAILABLE);
 
 		// Act
@@ -204,7 +512,7 @@ public class BookControllerTests {
 			throws Exception {
 
 		// Arrange - Some handled by Database Loader
-		Book newBook = new Book("9781473614133", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", null,
+		Book newBook = new Book("9781473614130", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", null,
 				BookStatus.AVAILABLE);
 
 		// Act
@@ -224,7 +532,7 @@ public class BookControllerTests {
 			throws Exception {
 
 		// Arrange - Some handled by Database Loader
-		Book newBook = new Book("9781473614133", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
+		Book newBook = new Book("9781473614130", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
 				null);
 
 		// Act
@@ -246,13 +554,13 @@ public class BookControllerTests {
 		// Arrange - Some handled by Database Loader
 		Book isbn9Book = new Book("123456789", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
 				BookStatus.AVAILABLE);
-		Book isbn10Book = new Book("1234567891", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
+		Book isbn10Book = new Book("123456789X", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
 				BookStatus.AVAILABLE);
 		Book isbn11Book = new Book("12345678912", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
 				BookStatus.AVAILABLE);
 		Book isbn12Book = new Book("123456789123", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
 				BookStatus.AVAILABLE);
-		Book isbn13Book = new Book("1234567891234", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
+		Book isbn13Book = new Book("1234567891231", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
 				BookStatus.AVAILABLE);
 		Book isbn14Book = new Book("12345678912345", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
 				BookStatus.AVAILABLE);
@@ -299,174 +607,675 @@ public class BookControllerTests {
 				BookStatus.AVAILABLE);
 
 		// Act
-		var addResults = mvc.perform(post("/api/books")
-				.contentType(MediaType.APPLICATION_JSON)
-				.content(newBook.mapToJson()));
+		var addResults = mvc.perform(post("/api/books")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(newBook.mapToJson()));
+
+		// Assert
+		addResults.andExpect(status().isBadRequest());
+	}
+
+	/*
+	 * Test the add books returns a 400 when an isbn has the wrong check digit
+	 */
+	@Test
+	public void givenBooksWithWrongCheckDigit_whenAddBook_thenStatus400()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		Book newBook = new Book("9781473614148", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
+				BookStatus.AVAILABLE);
+
+		// Act
+		var addResults = mvc.perform(post("/api/books")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(newBook.mapToJson()));
+
+		// Assert
+		addResults.andExpect(status().isBadRequest());
+	}
+
+	/*
+	 * Test the add books returns a 200 when as isbn has dashes in it
+	 */
+	@Test
+	public void givenBooksWitDashesInIsbn_whenAddBook_thenStatus200()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		Book newBook = new Book("978-1478614135", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
+				BookStatus.AVAILABLE);
+
+		// Act
+		var addResults = mvc.perform(post("/api/books")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(newBook.mapToJson().replace("9781478614135", "978-1478614135")));
+
+		// Assert
+		addResults.andExpect(status().isOk());
+	}
+
+	/*
+	 * However an isbn is written, including as the ISBN-10, it is stored as the
+	 * ISBN-13 digits and finds the same book
+	 */
+	@Test
+	public void givenIsbnWrittenDifferently_whenGetOrAddBook_thenSameBook()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		String isbn10Book = "{\"isbn\":\"1-4736-1979-3\",\"title\":\"The Long Way to a Small Angry Planet\","
+				+ "\"author\":\"Becky Chambers\",\"publicationYear\":2014,\"bookStatus\":\"AVAILABLE\"}";
+
+		// Act
+		var dashedResults = mvc.perform(get("/api/books/978-1-4736-1979-1"));
+		var isbn10Results = mvc.perform(get("/api/books/1473619793"));
+		var addResults = mvc.perform(post("/api/books")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(isbn10Book));
+
+		// Assert
+		dashedResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.isbn").value("9781473619791"));
+		isbn10Results.andExpect(status().isOk())
+				.andExpect(jsonPath("$.isbn").value("9781473619791"));
+		addResults.andExpect(status().isBadRequest())
+				.andExpect(result -> assertTrue(
+						result.getResolvedException() instanceof BookAlreadyExistsException));
+	}
+
+	/*
+	 * Test the add books returns a 200 when as isbn has a space in it
+	 */
+	@Test
+	public void givenBooksWithspacesInIsbn_whenAddBook_thenStatus200()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		Book newBook = new Book("978 1476141336", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
+				BookStatus.AVAILABLE);
+
+		// Act
+		var addResults = mvc.perform(post("/api/books")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(newBook.mapToJson().replace("9781476141336", "978 1476141336")));
+
+		// Assert
+		addResults.andExpect(status().isOk());
+	}
+
+	/*
+	 * Test the add books command does not add a book when it throws a 400
+	 * Separated this check out from the base test as it has a dependency on the
+	 * list endpoint as well.
+	 */
+	@Test
+	public void givenInvalidBook_whenAddBook_thenBookNotAddedToList()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		Book newBook = new Book("9781473614147", null, "Douglas Adams", 1979,
+				BookStatus.AVAILABLE);
+
+		// Act
+		mvc.perform(post("/api/books")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(newBook.mapToJson()));
+
+		var listResults = mvc.perform(get("/api/books")
+				.contentType(MediaType.APPLICATION_JSON));
+
+		// Assert
+		listResults.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$.length()").value(3));
+	}
+
+	/*
+	 * Test the add books command does not add or update a book if a book with the
+	 * isbn being added already exists. Depends on get command, throws
+	 * BookAlreadyExistsException
+	 */
+	@Test
+	public void givenAlreadyExistingBook_whenAddBook_thenThrowsVookAlreadyExistsError()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		Book newBook = new Book("9781473619791", "The Long Way to a Small Angry Planet", "Becky Chambers", 2018,
+				BookStatus.AVAILABLE);
+
+		// Act
+		var addResults = mvc.perform(post("/api/books")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(newBook.mapToJson()));
+
+		addResults.andExpect(status().isBadRequest())
+				.andExpect(result -> assertTrue(
+						result.getResolvedException() instanceof BookAlreadyExistsException));
+		// Assert
+
+	}
+
+	/*
+	 * Test the add books command does not add or update a book if a book with the
+	 * isbn being added already exists. Separated as Depends on get command
+	 */
+	@Test
+	public void givenAlreadyExistingBook_whenAddBook_thenBookNotAddedToListAndExistingBookNotUpdated()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		Book newBook = new Book("9781473619791", "The Long Way to a Small Angry Planet", "Becky Chambers", 2018,
+				BookStatus.AVAILABLE);
+
+		// Act
+		var addResults = mvc.perform(post("/api/books")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(newBook.mapToJson()));
+
+		mvc.perform(get("/api/books/9781473619791")
+				.contentType(MediaType.APPLICATION_JSON));
+
+		addResults.andExpect(status().isBadRequest())
+				.andExpect(result -> assertTrue(
+						result.getResolvedException() instanceof BookAlreadyExistsException));
+	}
+	// endregion Add Book
+
+	// region Bulk Import
+
+	/*
+	 * Every book gets its own outcome, and the new ones are stored and searchable
+	 */
+	@Test
+	public void givenMixedBooks_whenBulkImport_thenEachBookReportedAndNewBooksAdded()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		String books = "["
+				+ new Book("9780345391803", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
+						BookStatus.AVAILABLE).mapToJson() + ","
+				+ new Book("9781473619791", "The Long Way to a Small Angry Planet", "Becky Chambers", 2014,
+						BookStatus.AVAILABLE).mapToJson() + ","
+				+ new Book("9780345391803", "Another Guide", "Douglas Adams", 1980, BookStatus.AVAILABLE).mapToJson()
+				+ ","
+				+ new Book("9780575079212", null, "Terry Pratchett", 1983, BookStatus.AVAILABLE).mapToJson() + ","
+				+ new Book("97805750792ab", "Mort", "Terry Pratchett", 1987, BookStatus.AVAILABLE).mapToJson() + ","
+				+ "{\"isbn\":\"9780552131063\",\"title\":\"Mort\",\"author\":\"Terry Pratchett\","
+				+ "\"publicationYear\":\"soon\",\"bookStatus\":\"AVAILABLE\"},"
+				+ new Book("9780552166591", "Guards! Guards!", "Terry Pratchett", 1989, BookStatus.BORROWED).mapToJson()
+				+ "]";
+
+		// Act
+		var results = mvc.perform(post("/api/books/bulk")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(books));
+		var listResults = mvc.perform(get("/api/books"));
+		var searchResults = mvc.perform(get("/api/books/search/text?q=guards"));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$.received").value(7))
+				.andExpect(jsonPath("$.items[0].status").value("IMPORTED"))
+				.andExpect(jsonPath("$.items[1].status").value("ALREADY_EXISTS"))
+				.andExpect(jsonPath("$.items[2].status").value("DUPLICATE"))
+				.andExpect(jsonPath("$.items[3].status").value("INVALID"))
+				.andExpect(jsonPath("$.items[3].errors[0]").value("title: Title is required"))
+				.andExpect(jsonPath("$.items[4].status").value("INVALID"))
+				.andExpect(jsonPath("$.items[5].status").value("INVALID"))
+				.andExpect(jsonPath("$.items[5].isbn").value("9780552131063"))
+				.andExpect(jsonPath("$.items[6].status").value("IMPORTED"))
+				.andExpect(jsonPath("$.counts.IMPORTED").value(2))
+				.andExpect(jsonPath("$.counts.INVALID").value(3));
+		listResults.andExpect(jsonPath("$.length()").value(5));
+		searchResults.andExpect(jsonPath("$[0].isbn").value("9780552166591"));
+	}
+
+	/*
+	 * Hyphenated and ISBN-10 spellings are matched on the stored isbn, so they
+	 * are deduped within the import and against the catalogue
+	 */
+	@Test
+	public void givenIsbnSpellings_whenBulkImport_thenMatchedOnCanonicalIsbn()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		String books = "["
+				+ new Book("9781473619791", "The Long Way to a Small Angry Planet", "Becky Chambers", 2014,
+						BookStatus.AVAILABLE).mapToJson().replace("9781473619791", "978-1-4736-1979-1") + ","
+				+ new Book("9780345391803", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
+						BookStatus.AVAILABLE).mapToJson().replace("9780345391803", "0-345-39180-2") + ","
+				+ new Book("9780345391803", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
+						BookStatus.AVAILABLE).mapToJson()
+				+ "]";
+
+		// Act
+		var results = mvc.perform(post("/api/books/bulk")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(books));
+		var bookResults = mvc.perform(get("/api/books/9780345391803"));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items[0].status").value("ALREADY_EXISTS"))
+				.andExpect(jsonPath("$.items[1].status").value("IMPORTED"))
+				.andExpect(jsonPath("$.items[2].status").value("DUPLICATE"));
+		bookResults.andExpect(status().isOk());
+	}
+
+	/*
+	 * Imports larger than a chunk are stored across several batches
+	 */
+	@Test
+	public void givenManyBooks_whenBulkImport_thenAllImported()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		StringBuilder books = new StringBuilder("[");
+		for (int i = 0; i < 1200; i++) {
+			if (i > 0) {
+				books.append(',');
+			}
+			books.append(new Book(IsbnValidatorTests.isbn13(979100000000L + i), "Book " + i, "Author " + (i % 50),
+					1900 + i % 120, BookStatus.AVAILABLE).mapToJson());
+		}
+		books.append(']');
+
+		// Act
+		var results = mvc.perform(post("/api/books/bulk")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(books.toString()));
+		var countResults = mvc.perform(get("/api/books/facets/publicationYear"));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$.counts.IMPORTED").value(1200))
+				.andExpect(jsonPath("$.items.length()").value(1200));
+		countResults.andExpect(jsonPath("$.total").value(1203));
+	}
+
+	/*
+	 * A body that isn't an array of books is refused
+	 */
+	@Test
+	public void givenBodyNotAnArray_whenBulkImport_thenReturnError()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		String book = new Book("9780345391803", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
+				BookStatus.AVAILABLE).mapToJson();
+
+		// Act
+		var results = mvc.perform(post("/api/books/bulk")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(book));
+
+		// Assert
+		results.andExpect(status().isBadRequest())
+				.andExpect(result -> assertTrue(
+						result.getResolvedException() instanceof BulkImportFormatException));
+	}
+	// endregion
+
+	// region Combined Search
+
+	/*
+	 * When we combine author, year range and status filters
+	 * only books matching all of them are returned
+	 */
+	@Test
+	public void givenBooks_whenSearchAuthorYearsAndStatus_thenOnlyBooksMatchingAllReturned()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		mvc.perform(put("/api/books/9780062959041/updateStatus/BORROWED"));
+
+		// Act
+		var results = mvc.perform(get("/api/books/search")
+				.param("author", "becky")
+				.param("startYear", "2010")
+				.param("endYear", "2020")
+				.param("status", "AVAILABLE")
+				.contentType(MediaType.APPLICATION_JSON));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$.books.length()").value(1))
+				.andExpect(jsonPath("$.books[0].isbn").value("9781473619791"))
+				.andExpect(jsonPath("$.nextCursor").doesNotExist());
+	}
+
+	/*
+	 * When we search by part of a title with paging
+	 * the cursor leads to the rest of the matches
+	 */
+	@Test
+	public void givenTitleFilter_whenSearchWithCursor_thenNextPageReturned()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		var firstPage = mvc.perform(get("/api/books/search?title=T&size=1")
+				.contentType(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$.books[0].isbn").value("9780062877239"))
+				.andReturn().getResponse().getContentAsString();
+		String cursor = JsonPath.read(firstPage, "$.nextCursor");
+
+		// Act
+		var results = mvc.perform(get("/api/books/search")
+				.param("title", "T")
+				.param("size", "5")
+				.param("cursor", cursor)
+				.contentType(MediaType.APPLICATION_JSON));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$.books.length()").value(2))
+				.andExpect(jsonPath("$.books[0].isbn").value("9780062959041"))
+				.andExpect(jsonPath("$.books[1].isbn").value("9781473619791"));
+	}
+
+	/*
+	 * When we search with wildcard characters
+	 * they are matched literally rather than matching everything
+	 */
+	@Test
+	public void givenWildcardCharacters_whenSearch_thenMatchedLiterally()
+			throws Exception {
+
+		// Arrange - Already handled by Database Loader
+
+		// Act
+		var results = mvc.perform(get("/api/books/search?title=%25&author=_")
+				.contentType(MediaType.APPLICATION_JSON));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$.books.length()").value(0));
+	}
+
+	/*
+	 * When we search with an end year before a start year
+	 * we get a SearchByYearsEndBeforeStartException exception telling us this
+	 */
+	@Test
+	public void givenEndYearBeforeStartYear_whenSearch_thenThrowError()
+			throws Exception {
+
+		// Arrange - Nothing to arrange
+
+		// Act
+		var results = mvc.perform(get("/api/books/search?startYear=2019&endYear=2017")
+				.contentType(MediaType.APPLICATION_JSON));
+
+		// Assert
+		results.andExpect(status().isBadRequest())
+				.andExpect(result -> assertTrue(
+						result.getResolvedException() instanceof SearchByYearsEndBeforeStartException));
+	}
+	// endregion
+
+	// region Search Books by Author
+
+	/*
+	 * When we search for an author with books
+	 * An array with multiple entries is returned
+	 */
+	@Test
+	public void givenBooks_whenSearchForValidAuthor_thenStatus200AndListReturned()
+			throws Exception {
+
+		// Arrange - Already handled by Database Loader
+
+		// Act
+		var results = mvc.perform(get("/api/books/search/author/Becky+Chambers")
+				.contentType(MediaType.APPLICATION_JSON));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$[0].author").value("Becky Chambers"))
+				.andExpect(jsonPath("$[1].author").value("Becky Chambers"))
+				.andExpect(jsonPath("$.length()").value(2));
+	}
+
+	/*
+	 * When we search for an author with no books
+	 * An array with no entries is returned
+	 */
+	@Test
+	public void givenBooks_whenSearchForAuthorReturnsNoResults_thenStatus200AndEmptyListReturned()
+			throws Exception {
+
+		// Arrange - Already handled by Database Loader
+
+		// Act
+		var results = mvc.perform(get("/api/books/search/author/joe")
+				.contentType(MediaType.APPLICATION_JSON));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$.length()").value(0));
+	}
+
+	/*
+	 * When we search for an author with different case and spacing
+	 * the books are still found
+	 */
+	@Test
+	public void givenBooks_whenSearchForAuthorIgnoringCase_thenStatus200AndListReturned()
+			throws Exception {
+
+		// Arrange - Already handled by Database Loader
+
+		// Act
+		var results = mvc.perform(get("/api/books/search/author/bECKY++chambers")
+				.contentType(MediaType.APPLICATION_JSON));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].author").value("Becky Chambers"))
+				.andExpect(jsonPath("$.length()").value(2));
+	}
+
+	/*
+	 * When we search for the start of an author name in prefix mode
+	 * their books are returned
+	 */
+	@Test
+	public void givenBooks_whenSearchForAuthorPrefix_thenStatus200AndListReturned()
+			throws Exception {
+
+		// Arrange - Already handled by Database Loader
+
+		// Act
+		var results = mvc.perform(get("/api/books/search/author/val?mode=PREFIX")
+				.contentType(MediaType.APPLICATION_JSON));
 
 		// Assert
-		addResults.andExpect(status().isBadRequest());
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].author").value("Valerie Valdes"))
+				.andExpect(jsonPath("$.length()").value(1));
 	}
 
 	/*
-	 * Test the add books returns a 200 when as isbn has dashes in it
+	 * When we search for part of an author name in contains mode
+	 * their books are returned, but not in exact mode
 	 */
 	@Test
-	public void givenBooksWitDashesInIsbn_whenAddBook_thenStatus200()
+	public void givenBooks_whenSearchForAuthorContains_thenOnlyContainsModeMatches()
 			throws Exception {
 
-		// Arrange - Some handled by Database Loader
-		Book newBook = new Book("978-1478614133", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
-				BookStatus.AVAILABLE);
+		// Arrange - Already handled by Database Loader
 
 		// Act
-		var addResults = mvc.perform(post("/api/books")
-				.contentType(MediaType.APPLICATION_JSON)
-				.content(newBook.mapToJson()));
+		var containsResults = mvc.perform(get("/api/books/search/author/chamb?mode=CONTAINS")
+				.contentType(MediaType.APPLICATION_JSON));
+		var exactResults = mvc.perform(get("/api/books/search/author/chamb")
+				.contentType(MediaType.APPLICATION_JSON));
 
 		// Assert
-		addResults.andExpect(status().isOk());
+		containsResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2));
+		exactResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(0));
 	}
 
 	/*
-	 * Test the add books returns a 200 when as isbn has a space in it
+	 * When we search for a misspelled author name in fuzzy mode
+	 * their books are still returned
 	 */
 	@Test
-	public void givenBooksWithspacesInIsbn_whenAddBook_thenStatus200()
+	public void givenBooks_whenSearchForMisspelledAuthorFuzzy_thenStatus200AndListReturned()
 			throws Exception {
 
-		// Arrange - Some handled by Database Loader
-		Book newBook = new Book("978 1476141339", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
-				BookStatus.AVAILABLE);
+		// Arrange - Already handled by Database Loader
 
 		// Act
-		var addResults = mvc.perform(post("/api/books")
-				.contentType(MediaType.APPLICATION_JSON)
-				.content(newBook.mapToJson()));
+		var results = mvc.perform(get("/api/books/search/author/Valery+Valdez?mode=FUZZY")
+				.contentType(MediaType.APPLICATION_JSON));
 
 		// Assert
-		addResults.andExpect(status().isOk());
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].isbn").value("9780062877239"))
+				.andExpect(jsonPath("$.length()").value(1));
 	}
 
 	/*
-	 * Test the add books command does not add a book when it throws a 400
-	 * Separated this check out from the base test as it has a dependency on the
-	 * list endpoint as well.
+	 * When we search for a misspelled title in fuzzy mode
+	 * the book is returned, including books added through the api
 	 */
 	@Test
-	public void givenInvalidBook_whenAddBook_thenBookNotAddedToList()
+	public void givenBooks_whenSearchForMisspelledTitleFuzzy_thenStatus200AndListReturned()
 			throws Exception {
 
-		// Arrange - Some handled by Database Loader
-		Book newBook = new Book("9781473614141", null, "Douglas Adams", 1979,
-				BookStatus.AVAILABLE);
-
-		// Act
+		// Arrange
+		Book newBook = new Book("9781473614147", "Chilling Effects", "Douglas Adams", 1979, BookStatus.AVAILABLE);
 		mvc.perform(post("/api/books")
 				.contentType(MediaType.APPLICATION_JSON)
 				.content(newBook.mapToJson()));
 
-		var listResults = mvc.perform(get("/api/books")
+		// Act
+		var results = mvc.perform(get("/api/books/search/title/fuzzy/Chiling+Effect")
 				.contentType(MediaType.APPLICATION_JSON));
 
 		// Assert
-		listResults.andExpect(status().isOk())
-				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
-				.andExpect(jsonPath("$.length()").value(3));
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].isbn").value("9780062877239"))
+				.andExpect(jsonPath("$[1].isbn").value("9781473614147"))
+				.andExpect(jsonPath("$.length()").value(2));
 	}
+	// endregion
+
+	// region Search Books by Text
 
 	/*
-	 * Test the add books command does not add or update a book if a book with the
-	 * isbn being added already exists. Depends on get command, throws
-	 * BookAlreadyExistsException
+	 * When we search for words from a title and author
+	 * the matching book is returned
 	 */
 	@Test
-	public void givenAlreadyExistingBook_whenAddBook_thenThrowsVookAlreadyExistsError()
+	public void givenBooks_whenSearchByText_thenStatus200AndMatchingBooksReturned()
 			throws Exception {
 
-		// Arrange - Some handled by Database Loader
-		Book newBook = new Book("9781473619791", "The Long Way to a Small Angry Planet", "Becky Chambers", 2018,
-				BookStatus.AVAILABLE);
+		// Arrange - Already handled by Database Loader
 
 		// Act
-		var addResults = mvc.perform(post("/api/books")
-				.contentType(MediaType.APPLICATION_JSON)
-				.content(newBook.mapToJson()));
+		var results = mvc.perform(get("/api/books/search/text?q=Angry planet chambers")
+				.contentType(MediaType.APPLICATION_JSON));
 
-		addResults.andExpect(status().isBadRequest())
-				.andExpect(result -> assertTrue(
-						result.getResolvedException() instanceof BookAlreadyExistsException));
 		// Assert
-
+		results.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$[0].isbn").value("9781473619791"))
+				.andExpect(jsonPath("$.length()").value(1));
 	}
 
 	/*
-	 * Test the add books command does not add or update a book if a book with the
-	 * isbn being added already exists. Separated as Depends on get command
+	 * When a book is added, updated or deleted through the api
+	 * the text search reflects it straight away
 	 */
 	@Test
-	public void givenAlreadyExistingBook_whenAddBook_thenBookNotAddedToListAndExistingBookNotUpdated()
+	public void givenBookChanges_whenSearchByText_thenIndexUpToDate()
 			throws Exception {
 
 		// Arrange - Some handled by Database Loader
-		Book newBook = new Book("9781473619791", "The Long Way to a Small Angry Planet", "Becky Chambers", 2018,
+		Book newBook = new Book("9781473614147", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
 				BookStatus.AVAILABLE);
+		Book updatedBook = new Book("9780062877239", "Flight of the Aurora", "Valerie Valdes", 2021,
+				BookStatus.BORROWED);
 
 		// Act
-		var addResults = mvc.perform(post("/api/books")
+		mvc.perform(post("/api/books")
 				.contentType(MediaType.APPLICATION_JSON)
 				.content(newBook.mapToJson()));
+		mvc.perform(put("/api/books/9780062877239")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(updatedBook.mapToJson()));
+		mvc.perform(delete("/api/books/9781473619791"));
 
-		mvc.perform(get("/api/books/9781473619791")
-				.contentType(MediaType.APPLICATION_JSON));
-
-		addResults.andExpect(status().isBadRequest())
-				.andExpect(result -> assertTrue(
-						result.getResolvedException() instanceof BookAlreadyExistsException));
+		// Assert
+		mvc.perform(get("/api/books/search/text?q=galaxy"))
+				.andExpect(jsonPath("$.length()").value(1));
+		mvc.perform(get("/api/books/search/text?q=aurora"))
+				.andExpect(jsonPath("$.length()").value(1));
+		mvc.perform(get("/api/books/search/text?q=chilling"))
+				.andExpect(jsonPath("$.length()").value(0));
+		mvc.perform(get("/api/books/search/text?q=angry"))
+				.andExpect(jsonPath("$.length()").value(0));
 	}
-	// endregion Add Book
+	// endregion
 
-	// region Search Books by Author
+	// region Autocomplete
 
 	/*
-	 * When we search for an author with books
-	 * An array with multiple entries is returned
+	 * When we type the start of a title or author
+	 * matching titles and authors are suggested
 	 */
 	@Test
-	public void givenBooks_whenSearchForValidAuthor_thenStatus200AndListReturned()
+	public void givenBooks_whenAutocomplete_thenTitlesAndAuthorsSuggested()
 			throws Exception {
 
 		// Arrange - Already handled by Database Loader
 
 		// Act
-		var results = mvc.perform(get("/api/books/search/author/Becky+Chambers")
+		var titleResults = mvc.perform(get("/api/books/autocomplete?prefix=chill")
+				.contentType(MediaType.APPLICATION_JSON));
+		var authorResults = mvc.perform(get("/api/books/autocomplete?prefix=BECKY")
 				.contentType(MediaType.APPLICATION_JSON));
 
 		// Assert
-		results.andExpect(status().isOk())
-				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
-				.andExpect(jsonPath("$[0].author").value("Becky Chambers"))
-				.andExpect(jsonPath("$[1].author").value("Becky Chambers"))
-				.andExpect(jsonPath("$.length()").value(2));
+		titleResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.titles[0]").value("Chilling Effect"))
+				.andExpect(jsonPath("$.authors.length()").value(0));
+		authorResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.authors[0]").value("Becky Chambers"))
+				.andExpect(jsonPath("$.authors.length()").value(1));
 	}
 
 	/*
-	 * When we search for an author with no books
-	 * An array with no entries is returned
+	 * When a book is added its title is suggested and the stats report it
 	 */
 	@Test
-	public void givenBooks_whenSearchForAuthorReturnsNoResults_thenStatus200AndEmptyListReturned()
+	public void givenNewBook_whenAutocomplete_thenNewTitleSuggested()
 			throws Exception {
 
-		// Arrange - Already handled by Database Loader
+		// Arrange - Some handled by Database Loader
+		Book newBook = new Book("9781473614147", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
+				BookStatus.AVAILABLE);
 
 		// Act
-		var results = mvc.perform(get("/api/books/search/author/joe")
-				.contentType(MediaType.APPLICATION_JSON));
+		mvc.perform(post("/api/books")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(newBook.mapToJson()));
+		var results = mvc.perform(get("/api/books/autocomplete?prefix=the hitch"));
+		var stats = mvc.perform(get("/api/stats/autocomplete"));
 
 		// Assert
 		results.andExpect(status().isOk())
-				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
-				.andExpect(jsonPath("$.length()").value(0));
+				.andExpect(jsonPath("$.titles[0]").value("The Hitchhiker's Guide to the Galaxy"));
+		stats.andExpect(status().isOk())
+				.andExpect(jsonPath("$.titlePhrases").value(4))
+				.andExpect(jsonPath("$.authorPhrases").value(3));
 	}
 	// endregion
 
@@ -595,6 +1404,85 @@ public class BookControllerTests {
 
 	// endregion
 
+	// region Publication Year Facets
+
+	/*
+	 * When we ask for decade facets
+	 * we get a count per decade holding books and the total
+	 */
+	@Test
+	public void givenBooks_whenFacetByDecade_thenCountPerDecadeReturned()
+			throws Exception {
+
+		// Arrange - Already handled by Database Loader
+
+		// Act
+		var results = mvc.perform(get("/api/books/facets/publicationYear?bucket=DECADE")
+				.contentType(MediaType.APPLICATION_JSON));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$.bucket").value("DECADE"))
+				.andExpect(jsonPath("$.counts.length()").value(1))
+				.andExpect(jsonPath("$.counts[0].startYear").value(2010))
+				.andExpect(jsonPath("$.counts[0].endYear").value(2019))
+				.andExpect(jsonPath("$.counts[0].count").value(3))
+				.andExpect(jsonPath("$.total").value(3));
+	}
+
+	/*
+	 * When books are added, borrowed and deleted through the api
+	 * the year facets for a status and range follow straight away
+	 */
+	@Test
+	public void givenBookChanges_whenFacetByYearForStatus_thenCountsUpToDate()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		Book newBook = new Book("9781473614147", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 2018,
+				BookStatus.BORROWED);
+
+		// Act
+		mvc.perform(post("/api/books")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(newBook.mapToJson()));
+		mvc.perform(put("/api/books/9780062959041/updateStatus/BORROWED"));
+		mvc.perform(delete("/api/books/9780062877239"));
+		var results = mvc.perform(get("/api/books/facets/publicationYear")
+				.param("status", "BORROWED")
+				.param("startYear", "2015")
+				.param("endYear", "2020")
+				.contentType(MediaType.APPLICATION_JSON));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$.counts.length()").value(1))
+				.andExpect(jsonPath("$.counts[0].startYear").value(2018))
+				.andExpect(jsonPath("$.counts[0].count").value(2))
+				.andExpect(jsonPath("$.total").value(2));
+	}
+
+	/*
+	 * When we ask for facets with an end year before the start year
+	 * we get a SearchByYearsEndBeforeStartException exception telling us this
+	 */
+	@Test
+	public void givenEndYearBeforeStartYear_whenFacetByYear_thenThrowError()
+			throws Exception {
+
+		// Arrange - Nothing to arrange
+
+		// Act
+		var results = mvc.perform(get("/api/books/facets/publicationYear?startYear=2019&endYear=2017")
+				.contentType(MediaType.APPLICATION_JSON));
+
+		// Assert
+		results.andExpect(status().isBadRequest())
+				.andExpect(result -> assertTrue(
+						result.getResolvedException() instanceof SearchByYearsEndBeforeStartException));
+	}
+	// endregion
+
 	// region Update Book
 	/*
 	 * Test the update books command updates a book, we return a 200.
@@ -733,11 +1621,11 @@ public class BookControllerTests {
 			throws Exception {
 
 		// Arrange - Some handled by Database Loader
-		Book newBook = new Book("9781473614140", "The Hitchiker's Guide to the Galaxy", "Douglas Adams", 1979,
+		Book newBook = new Book("9781473614147", "The Hitchiker's Guide to the Galaxy", "Douglas Adams", 1979,
 				BookStatus.AVAILABLE);
 
 		// Act
-		mvc.perform(put("/api/books/9781473614140")
+		mvc.perform(put("/api/books/9781473614147")
 				.contentType(MediaType.APPLICATION_JSON)
 				.content(newBook.mapToJson()));
 
@@ -761,11 +1649,11 @@ public class BookControllerTests {
 			throws Exception {
 
 		// Arrange - Some handled by Database Loader
-		Book newBook = new Book("9781473614140", "The Hitchiker's Guide to the Galaxy", "Douglas Adams", 1979,
+		Book newBook = new Book("9781473614147", "The Hitchiker's Guide to the Galaxy", "Douglas Adams", 1979,
 				BookStatus.AVAILABLE);
 
 		// Act
-		var updateResults = mvc.perform(put("/api/books/9781473614140")
+		var updateResults = mvc.perform(put("/api/books/9781473614147")
 				.contentType(MediaType.APPLICATION_JSON)
 				.content(newBook.mapToJson()));
 
@@ -832,7 +1720,7 @@ public class BookControllerTests {
 		// Arrange - Some handled by Database Loader
 
 		// Act
-		var updateResults = mvc.perform(put("/api/books/1111111111111/updateStatus/BORROWED")
+		var updateResults = mvc.perform(put("/api/books/1111111111116/updateStatus/BORROWED")
 				.contentType(MediaType.APPLICATION_JSON));
 
 		// Assert
@@ -860,6 +1748,110 @@ public class BookControllerTests {
 				.andExpect(result -> assertTrue(
 						result.getResolvedException() instanceof BookAlreadyBorrowedException));
 	}
+	/*
+	 * A batch borrow reports each isbn in the order scanned, and only the books it
+	 * could borrow change
+	 */
+	@Test
+	public void givenMixedBooks_whenUpdateBookStatusBatch_thenOutcomePerIsbn()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+
+		// Act
+		var updateResults = mvc.perform(put("/api/books/updateStatus/BORROWED")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[\"9781473619791\", \"9780062877239\", \"1111111111111\", \"9781473619791\"]"));
+		var borrowedResults = mvc.perform(get("/api/books/search?status=BORROWED"));
+
+		// Assert
+		updateResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.newStatus").value("BORROWED"))
+				.andExpect(jsonPath("$.items[0].isbn").value("9781473619791"))
+				.andExpect(jsonPath("$.items[0].outcome").value("UPDATED"))
+				.andExpect(jsonPath("$.items[1].outcome").value("ALREADY_BORROWED"))
+				.andExpect(jsonPath("$.items[2].outcome").value("NOT_FOUND"))
+				.andExpect(jsonPath("$.items[3].outcome").value("ALREADY_BORROWED"))
+				.andExpect(jsonPath("$.counts.UPDATED").value(1))
+				.andExpect(jsonPath("$.counts.ALREADY_BORROWED").value(2))
+				.andExpect(jsonPath("$.counts.NOT_FOUND").value(1));
+		borrowedResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.books.length()").value(2));
+	}
+
+	/*
+	 * Null and blank entries in a batch are reported as not found, the rest of the
+	 * batch still goes through
+	 */
+	@Test
+	public void givenNullAndBlankIsbns_whenUpdateBookStatusBatch_thenNotFound()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+
+		// Act
+		var updateResults = mvc.perform(put("/api/books/updateStatus/BORROWED")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[\"9781473619791\", null, \" \"]"));
+		var nullOnlyResults = mvc.perform(put("/api/books/updateStatus/AVAILABLE")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[null]"));
+
+		// Assert
+		updateResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items[0].outcome").value("UPDATED"))
+				.andExpect(jsonPath("$.items[1].outcome").value("NOT_FOUND"))
+				.andExpect(jsonPath("$.items[2].outcome").value("NOT_FOUND"))
+				.andExpect(jsonPath("$.counts.UPDATED").value(1))
+				.andExpect(jsonPath("$.counts.NOT_FOUND").value(2));
+		nullOnlyResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items[0].outcome").value("NOT_FOUND"));
+	}
+
+	/*
+	 * Hyphenated and ISBN-10 spellings in a batch are found under the stored isbn
+	 */
+	@Test
+	public void givenIsbnSpellings_whenUpdateBookStatusBatch_thenBooksFound()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+
+		// Act
+		var updateResults = mvc.perform(put("/api/books/updateStatus/BORROWED")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[\"978-0-06-295904-1\", \"1473619793\"]"));
+
+		// Assert
+		updateResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items[0].isbn").value("9780062959041"))
+				.andExpect(jsonPath("$.items[1].isbn").value("9781473619791"))
+				.andExpect(jsonPath("$.counts.UPDATED").value(2));
+	}
+
+	/*
+	 * A batch return makes every book found available
+	 */
+	@Test
+	public void givenBorrowedBooks_whenReturnBatch_thenAllAvailable()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		mvc.perform(put("/api/books/9781473619791/updateStatus/BORROWED"));
+
+		// Act
+		var updateResults = mvc.perform(put("/api/books/updateStatus/AVAILABLE")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[\"9781473619791\", \"9780062877239\"]"));
+		var availableResults = mvc.perform(get("/api/books/search?status=AVAILABLE"));
+
+		// Assert
+		updateResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.counts.UPDATED").value(2));
+		availableResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.books.length()").value(3));
+	}
+
 	// endregion
 
 	// region Delete Book
@@ -890,7 +1882,7 @@ public class BookControllerTests {
 		// Arrange - Some handled by Database Loade
 
 		// Act
-		var deleteResults = mvc.perform(delete("/api/books/9781473619000")
+		var deleteResults = mvc.perform(delete("/api/books/9781473619005")
 				.contentType(MediaType.APPLICATION_JSON));
 
 		// Assert
@@ -920,4 +1912,74 @@ public class BookControllerTests {
 
 	}
 	// endregion
+
+	// region SQL Statements
+
+	/*
+	 * A page of books is one query, reported in the Server-Timing header
+	 */
+	@Test
+	public void givenBooks_whenListBooksPage_thenOneStatementInServerTiming() throws Exception {
+
+		// Act
+		var results = mvc.perform(get("/api/books/page?size=2"));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(statementCount(1))
+				.andExpect(header().string(ServerTimingAdvice.HEADER, containsString("desc=\"1 statements\"")));
+	}
+
+	/*
+	 * A second lookup of the same book is answered from the cache without a query
+	 */
+	@Test
+	public void givenBookLookedUp_whenGetByIsbnAgain_thenNoStatements() throws Exception {
+
+		// Act
+		var firstResults = mvc.perform(get("/api/books/9780062959041"));
+		var secondResults = mvc.perform(get("/api/books/9780062959041"));
+
+		// Assert
+		firstResults.andExpect(status().isOk()).andExpect(statementCount(1));
+		secondResults.andExpect(status().isOk()).andExpect(statementCount(0));
+	}
+
+	/*
+	 * Changing the status of many books costs the same few statements as one,
+	 * not a query per book
+	 */
+	@Test
+	public void givenManyIsbns_whenBatchUpdateStatus_thenNoStatementPerBook() throws Exception {
+
+		// Act
+		var results = mvc.perform(put("/api/books/updateStatus/BORROWED")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[\"9781473619791\",\"9780062959041\",\"9780062877239\",\"9781473614147\"]"));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(statementCountAtMost(2))
+				.andExpect(noRepeatedStatements(2));
+	}
+
+	/*
+	 * The export goes async, so its container thread stops counting statements
+	 * when it hands over rather than carrying the counts into its next request
+	 */
+	@Test
+	public void givenExport_whenAsyncStarted_thenThreadStopsCounting() throws Exception {
+
+		// Act
+		var asyncResult = mvc.perform(get("/api/books/export"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		RequestStatements afterHandOver = RequestStatements.current();
+		mvc.perform(asyncDispatch(asyncResult)).andExpect(status().isOk());
+
+		// Assert
+		assertNull(afterHandOver);
+		assertNull(RequestStatements.current());
+	}
+	// endregion
 }
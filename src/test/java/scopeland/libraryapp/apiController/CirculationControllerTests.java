@@ -0,0 +1,255 @@
+package scopeland.libraryapp.apiController;
+
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import scopeland.libraryapp.LibraryappApplication;
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.enums.BookStatus;
+import scopeland.libraryapp.exceptions.BookCopiesHeldException;
+import scopeland.libraryapp.exceptions.HoldingNotFoundException;
+import scopeland.libraryapp.exceptions.InvalidCopyCountException;
+import scopeland.libraryapp.exceptions.NoCopyAvailableException;
+import scopeland.libraryapp.exceptions.NoCopyOnLoanException;
+
+/*
+ * Integration tests for lending the copies held of each book
+ * Initial test data generated from the DatabaseLoader
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, classes = LibraryappApplication.class)
+@AutoConfigureMockMvc(addFilters = false)
+// Own database, as a context left cached by another test class keeps testdb alive
+@TestPropertySource(locations = "classpath:application-integrationtest.properties", properties = {
+		"spring.datasource.url=jdbc:h2:mem:circulationtestdb" })
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class CirculationControllerTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	// region Copies
+
+	/*
+	 * Recording copies puts them all on the shelf
+	 */
+	@Test
+	public void givenBook_whenSetCopies_thenAllCopiesAvailable() throws Exception {
+
+		// Arrange - Already handled by Database Loader
+
+		// Act
+		var setResults = mvc.perform(put("/api/books/9781473619791/copies/3"));
+		var getResults = mvc.perform(get("/api/books/9781473619791/copies"));
+
+		// Assert
+		setResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalCopies").value(3))
+				.andExpect(jsonPath("$.availableCopies").value(3));
+		getResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.isbn").value("9781473619791"))
+				.andExpect(jsonPath("$.availableCopies").value(3));
+	}
+
+	/*
+	 * Copies can't be removed while they're on loan, and a book without copies
+	 * recorded can't be lent
+	 */
+	@Test
+	public void givenCopiesOnLoan_whenTooFewCopies_thenBadRequest() throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		mvc.perform(put("/api/books/9781473619791/copies/2"));
+		mvc.perform(post("/api/books/9781473619791/checkout"));
+		mvc.perform(post("/api/books/9781473619791/checkout"));
+
+		// Act
+		var shrinkResults = mvc.perform(put("/api/books/9781473619791/copies/1"));
+		var growResults = mvc.perform(put("/api/books/9781473619791/copies/4"));
+		var noHoldingResults = mvc.perform(post("/api/books/9780062959041/checkout"));
+
+		// Assert
+		shrinkResults.andExpect(status().isBadRequest())
+				.andExpect(result -> assertTrue(
+						result.getResolvedException() instanceof InvalidCopyCountException));
+		growResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalCopies").value(4))
+				.andExpect(jsonPath("$.availableCopies").value(2));
+		noHoldingResults.andExpect(status().isBadRequest())
+				.andExpect(result -> assertTrue(
+						result.getResolvedException() instanceof HoldingNotFoundException));
+	}
+
+	/*
+	 * Hyphenated and ISBN-10 spellings in the path reach the same holding
+	 */
+	@Test
+	public void givenIsbnSpellings_whenSetCopiesAndCheckOut_thenSameHolding() throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		mvc.perform(put("/api/books/978-1-4736-1979-1/copies/2"));
+
+		// Act
+		var checkOutResults = mvc.perform(post("/api/books/1473619793/checkout"));
+		var holdingResults = mvc.perform(get("/api/books/9781473619791/copies"));
+
+		// Assert
+		checkOutResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.isbn").value("9781473619791"))
+				.andExpect(jsonPath("$.availableCopies").value(1));
+		holdingResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.availableCopies").value(1));
+		assertEquals(1, availableCopies("9781473619791"));
+	}
+	// endregion
+
+	// region Checkout and Return
+
+	/*
+	 * The book shows as borrowed once its last copy is out, and available again
+	 * when one comes back
+	 */
+	@Test
+	public void givenCopies_whenAllCheckedOutThenOneReturned_thenStatusFollows() throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		mvc.perform(put("/api/books/9781473619791/copies/2"));
+
+		// Act
+		mvc.perform(post("/api/books/9781473619791/checkout"));
+		var lastResults = mvc.perform(post("/api/books/9781473619791/checkout"));
+		var borrowedBook = mvc.perform(get("/api/books/9781473619791"));
+		var noneLeftResults = mvc.perform(post("/api/books/9781473619791/checkout"));
+		var returnResults = mvc.perform(post("/api/books/9781473619791/return"));
+		var availableBook = mvc.perform(get("/api/books/9781473619791"));
+
+		// Assert
+		lastResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.availableCopies").value(0));
+		borrowedBook.andExpect(jsonPath("$.bookStatus").value("BORROWED"));
+		noneLeftResults.andExpect(status().isBadRequest())
+				.andExpect(result -> assertTrue(
+						result.getResolvedException() instanceof NoCopyAvailableException));
+		returnResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.availableCopies").value(1));
+		availableBook.andExpect(jsonPath("$.bookStatus").value("AVAILABLE"));
+	}
+
+	/*
+	 * Nothing can be returned while every copy is on the shelf, and deleting the
+	 * book deletes its copies
+	 */
+	@Test
+	public void givenNoCopiesOnLoan_whenReturnThenDelete_thenBadRequest() throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		mvc.perform(put("/api/books/9781473619791/copies/1"));
+
+		// Act
+		var returnResults = mvc.perform(post("/api/books/9781473619791/return"));
+		mvc.perform(delete("/api/books/9781473619791"));
+		var deletedResults = mvc.perform(get("/api/books/9781473619791/copies"));
+
+		// Assert
+		returnResults.andExpect(status().isBadRequest())
+				.andExpect(result -> assertTrue(
+						result.getResolvedException() instanceof NoCopyOnLoanException));
+		deletedResults.andExpect(status().isBadRequest())
+				.andExpect(result -> assertTrue(
+						result.getResolvedException() instanceof HoldingNotFoundException));
+	}
+
+	// endregion
+
+	// region Status
+
+	/*
+	 * The status of a book with copies held can't be set directly, so it never
+	 * disagrees with the copies on the shelf, singly or in a batch
+	 */
+	@Test
+	public void givenMultiCopyBook_whenSetStatus_thenStatusFollowsCopies() throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		mvc.perform(put("/api/books/9781473619791/copies/3"));
+		mvc.perform(post("/api/books/9781473619791/checkout"));
+
+		// Act
+		var borrowResults = mvc.perform(put("/api/books/9781473619791/updateStatus/BORROWED"));
+		var batchResults = mvc.perform(put("/api/books/updateStatus/BORROWED")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[\"9781473619791\",\"9780062959041\"]"));
+
+		// Assert
+		borrowResults.andExpect(status().isBadRequest())
+				.andExpect(result -> assertTrue(
+						result.getResolvedException() instanceof BookCopiesHeldException));
+		batchResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items[0].outcome").value("COPIES_HELD"))
+				.andExpect(jsonPath("$.items[1].outcome").value("UPDATED"));
+		assertEquals(2, availableCopies("9781473619791"));
+		assertEquals("AVAILABLE", storedStatus("9781473619791"));
+		mvc.perform(get("/api/books/9781473619791")).andExpect(jsonPath("$.bookStatus").value("AVAILABLE"));
+	}
+
+	/*
+	 * A book with every copy on loan can't be made available, and editing it
+	 * keeps the status its copies give it
+	 */
+	@Test
+	public void givenAllCopiesOnLoan_whenSetStatusOrEdit_thenStaysBorrowed() throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		mvc.perform(put("/api/books/9781473619791/copies/1"));
+		mvc.perform(post("/api/books/9781473619791/checkout"));
+		Book editedBook = new Book("9781473619791", "The Long Way to a Small Angry Planet", "Becky Chambers", 2015,
+				BookStatus.AVAILABLE);
+
+		// Act
+		var availableResults = mvc.perform(put("/api/books/9781473619791/updateStatus/AVAILABLE"));
+		var editResults = mvc.perform(put("/api/books/9781473619791")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(editedBook.mapToJson()));
+
+		// Assert
+		availableResults.andExpect(status().isBadRequest())
+				.andExpect(result -> assertTrue(
+						result.getResolvedException() instanceof BookCopiesHeldException));
+		editResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.publicationYear").value(2015))
+				.andExpect(jsonPath("$.bookStatus").value("BORROWED"));
+		assertEquals(0, availableCopies("9781473619791"));
+		assertEquals("BORROWED", storedStatus("9781473619791"));
+	}
+
+	// endregion
+
+	private int availableCopies(String isbn) {
+		return jdbcTemplate.queryForObject("SELECT available_copies FROM holdings WHERE isbn = ?", Integer.class,
+				Long.parseLong(isbn));
+	}
+
+	private String storedStatus(String isbn) {
+		int ordinal = jdbcTemplate.queryForObject("SELECT book_status FROM books WHERE isbn = ?", Integer.class,
+				Long.parseLong(isbn));
+		return BookStatus.values()[ordinal].name();
+	}
+}
@@ -0,0 +1,249 @@
+package scopeland.libraryapp.apiController;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import scopeland.libraryapp.LibraryappApplication;
+import scopeland.libraryapp.exceptions.IngestFileException;
+import scopeland.libraryapp.ingest.IngestCheckpoint;
+import scopeland.libraryapp.ingest.MarcBookReaderTests;
+import scopeland.libraryapp.validation.books.validator.IsbnValidatorTests;
+
+/*
+ * Integration tests for ingesting catalogue files
+ * Initial test data generated from the DatabaseLoader
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, classes = LibraryappApplication.class)
+@AutoConfigureMockMvc(addFilters = false)
+// Own database, as a context left cached by another test class keeps testdb alive
+@TestPropertySource(locations = "classpath:application-integrationtest.properties", properties = {
+		"spring.datasource.url=jdbc:h2:mem:ingesttestdb", "library.ingest.workers=3",
+		"library.import.chunk-size=100" })
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class IngestControllerTests {
+
+	@TempDir
+	static Path ingestDirectory;
+
+	@Autowired
+	private MockMvc mvc;
+
+	@DynamicPropertySource
+	static void ingestProperties(DynamicPropertyRegistry registry) {
+		registry.add("library.ingest.directory", () -> ingestDirectory.toString());
+	}
+
+	// region Ingest CSV
+
+	/*
+	 * Every row is imported or counted against the reason it wasn't, and html is
+	 * stripped like it is for books added through the api
+	 */
+	@Test
+	public void givenCsvFile_whenIngest_thenNewBooksAddedAndRestReported()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		write("acquisitions.csv", "ISBN,Title,Author,Publication Year,Status\n"
+				+ "9780345391803,The Hitchhiker's Guide to the Galaxy,Douglas Adams,1979,AVAILABLE\n"
+				+ "9781473619791,The Long Way to a Small Angry Planet,Becky Chambers,2014,AVAILABLE\n"
+				+ "9780345391803,The Hitchhiker's Guide to the Galaxy,Douglas Adams,1979,\n"
+				+ "97803453918ab,Not a Book,Nobody,2000,\n"
+				+ "\"9780552166591\",\"Guards! Guards!<script>alert(1)</script>\",\"Terry Pratchett\",1989,borrowed\n"
+				+ "9780552131063,\"Mort, a Discworld Novel\",Terry Pratchett,soon,\n");
+
+		// Act
+		var results = mvc.perform(post("/api/ingest/acquisitions.csv"));
+		var bookResults = mvc.perform(get("/api/books/9780552166591"));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$.format").value("CSV"))
+				.andExpect(jsonPath("$.records").value(6))
+				.andExpect(jsonPath("$.counts.IMPORTED").value(2))
+				.andExpect(jsonPath("$.counts.ALREADY_EXISTS").value(1))
+				.andExpect(jsonPath("$.counts.DUPLICATE").value(1))
+				.andExpect(jsonPath("$.counts.INVALID").value(2))
+				.andExpect(jsonPath("$.rejected.length()").value(4))
+				.andExpect(jsonPath("$.stages[*].name").value(
+						org.hamcrest.Matchers.contains("parse", "sanitise", "validate", "dedupe", "write")));
+		bookResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.title").value("Guards! Guards!"))
+				.andExpect(jsonPath("$.bookStatus").value("BORROWED"));
+		assertFalse(Files.exists(ingestDirectory.resolve("acquisitions.csv.checkpoint")));
+	}
+
+	/*
+	 * Hyphenated, spaced and ISBN-10 spellings are matched on the stored isbn, so
+	 * they are deduped within the file and against the catalogue
+	 */
+	@Test
+	public void givenIsbnSpellings_whenIngest_thenMatchedOnCanonicalIsbn()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		write("spellings.csv", "ISBN,Title,Author,Publication Year,Status\n"
+				+ "978-1-4736-1979-1,The Long Way to a Small Angry Planet,Becky Chambers,2014,\n"
+				+ "0-345-39180-2,The Hitchhiker's Guide to the Galaxy,Douglas Adams,1979,\n"
+				+ "9780345391803,The Hitchhiker's Guide to the Galaxy,Douglas Adams,1979,\n"
+				+ "978 0 552 16659 1,Guards! Guards!,Terry Pratchett,1989,\n");
+
+		// Act
+		var results = mvc.perform(post("/api/ingest/spellings.csv"));
+		var bookResults = mvc.perform(get("/api/books/9780345391803"));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$.records").value(4))
+				.andExpect(jsonPath("$.counts.IMPORTED").value(2))
+				.andExpect(jsonPath("$.counts.ALREADY_EXISTS").value(1))
+				.andExpect(jsonPath("$.counts.DUPLICATE").value(1))
+				.andExpect(jsonPath("$.rejected[*].isbn").value(
+						org.hamcrest.Matchers.containsInAnyOrder("9781473619791", "9780345391803")));
+		bookResults.andExpect(status().isOk())
+				.andExpect(jsonPath("$.title").value("The Hitchhiker's Guide to the Galaxy"));
+		mvc.perform(get("/api/books/9780552166591")).andExpect(status().isOk());
+	}
+
+	/*
+	 * Files spanning many batches and workers have every record accounted for
+	 */
+	@Test
+	public void givenLargeCsvFile_whenIngest_thenEveryRecordCounted()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		StringBuilder csv = new StringBuilder("isbn,title,author,publicationYear\n");
+		for (int i = 0; i < 1500; i++) {
+			String year = i % 7 == 0 ? "unknown" : String.valueOf(1900 + i % 120);
+			csv.append(IsbnValidatorTests.isbn13(979100000000L + i)).append(",Book ").append(i)
+					.append(",Author ").append(i % 40)
+					.append(',').append(year).append('\n');
+		}
+		write("large.csv", csv.toString());
+
+		// Act
+		var results = mvc.perform(post("/api/ingest/large.csv"));
+		var countResults = mvc.perform(get("/api/books/facets/publicationYear"));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$.records").value(1500))
+				.andExpect(jsonPath("$.counts.IMPORTED").value(1285))
+				.andExpect(jsonPath("$.counts.INVALID").value(215))
+				.andExpect(jsonPath("$.rejected.length()").value(100));
+		countResults.andExpect(jsonPath("$.total").value(1288));
+	}
+
+	/*
+	 * A run after a failure skips the records the checkpoint says were finished
+	 */
+	@Test
+	public void givenCheckpoint_whenIngest_thenResumesAfterFinishedRecords()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		Path file = write("resumed.csv", "isbn,title,author,publicationYear\n"
+				+ "9780345391803,The Hitchhiker's Guide to the Galaxy,Douglas Adams,1979\n"
+				+ "9780552166591,Guards! Guards!,Terry Pratchett,1989\n"
+				+ "9780552131063,Mort,Terry Pratchett,1987\n");
+		new IngestCheckpoint(file).save(2);
+
+		// Act
+		var results = mvc.perform(post("/api/ingest/resumed.csv"));
+		var skippedResults = mvc.perform(get("/api/books/9780345391803"));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$.resumedFrom").value(2))
+				.andExpect(jsonPath("$.records").value(1))
+				.andExpect(jsonPath("$.counts.IMPORTED").value(1));
+		skippedResults.andExpect(status().isBadRequest());
+		assertFalse(Files.exists(ingestDirectory.resolve("resumed.csv.checkpoint")));
+	}
+
+	/*
+	 * Only files in the ingest directory can be ingested
+	 */
+	@Test
+	public void givenFileOutsideIngestDirectory_whenIngest_thenReturnError()
+			throws Exception {
+
+		// Act
+		var missingResults = mvc.perform(post("/api/ingest/missing.csv"));
+		var outsideResults = mvc.perform(post("/api/ingest/..%2Fsecrets.csv"));
+
+		// Assert
+		missingResults.andExpect(status().isBadRequest())
+				.andExpect(result -> assertTrue(
+						result.getResolvedException() instanceof IngestFileException));
+		outsideResults.andExpect(status().isBadRequest());
+	}
+	// endregion
+
+	// region Ingest MARC
+
+	/*
+	 * Books are read from their MARC fields
+	 */
+	@Test
+	public void givenMarcFile_whenIngest_thenBooksAdded()
+			throws Exception {
+
+		// Arrange - Some handled by Database Loader
+		ByteArrayOutputStream marc = new ByteArrayOutputStream();
+		marc.writeBytes(MarcBookReaderTests.marcRecord(
+				"020", "  \u001Fa9780441013593",
+				"100", "1 \u001FaHerbert, Frank,\u001Feauthor.",
+				"245", "10\u001FaDune /\u001FcFrank Herbert.",
+				"264", " 1\u001FaNew York :\u001FbAce,\u001Fc2005."));
+		marc.writeBytes(MarcBookReaderTests.marcRecord(
+				"020", "  \u001Fa9781473619791",
+				"100", "1 \u001FaChambers, Becky.",
+				"245", "14\u001FaThe long way to a small, angry planet.",
+				"264", " 1\u001Fc2014."));
+		Files.write(ingestDirectory.resolve("acquisitions.mrc"), marc.toByteArray());
+
+		// Act
+		var results = mvc.perform(post("/api/ingest/acquisitions.mrc"));
+		var bookResults = mvc.perform(get("/api/books/9780441013593"));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(jsonPath("$.format").value("MARC"))
+				.andExpect(jsonPath("$.counts.IMPORTED").value(1))
+				.andExpect(jsonPath("$.counts.ALREADY_EXISTS").value(1));
+		bookResults.andExpect(jsonPath("$.title").value("Dune"))
+				.andExpect(jsonPath("$.author").value("Frank Herbert"))
+				.andExpect(jsonPath("$.publicationYear").value(2005))
+				.andExpect(jsonPath("$.bookStatus").value("AVAILABLE"));
+	}
+	// endregion
+
+	private static Path write(String fileName, String content) throws IOException {
+		return Files.writeString(ingestDirectory.resolve(fileName), content, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,114 @@
+package scopeland.libraryapp.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.entities.dtos.CacheStatsDto;
+import scopeland.libraryapp.enums.BookStatus;
+
+/*
+ * Unit tests for the book cache, no Spring context needed
+ */
+public class BookCacheTests {
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	/*
+	 * Changing a returned book does not change the cached one
+	 */
+	@Test
+	public void givenCachedBook_whenReturnedBookChanged_thenCachedBookUnchanged() {
+
+		// Arrange
+		BookCache cache = new BookCache(10, Duration.ofMinutes(10));
+		cache.get("9781473619791", this::load).get().setTitle("Changed");
+
+		// Act
+		Book book = cache.get("9781473619791", this::load).get();
+
+		// Assert
+		assertEquals("The Long Way to a Small Angry Planet", book.getTitle());
+		assertEquals(1, loads.get());
+	}
+
+	/*
+	 * Saves only refresh books already cached, and deletes drop them
+	 */
+	@Test
+	public void givenWrites_whenGet_thenCacheKeptInStep() {
+
+		// Arrange
+		BookCache cache = new BookCache(10, Duration.ofMinutes(10));
+		cache.get("9781473619791", this::load);
+
+		// Act
+		cache.bookSaved(new Book("9781473619791", "The Long Way to a Small Angry Planet", "Becky Chambers", 2014,
+				BookStatus.BORROWED));
+		cache.bookSaved(new Book("9780062877239", "Chilling Effect", "Valerie Valdes", 2019, BookStatus.BORROWED));
+		Book saved = cache.get("9781473619791", this::load).get();
+		long sizeAfterSaves = cache.stats().getSize();
+		cache.bookDeleted("9781473619791");
+		cache.get("9781473619791", this::load);
+
+		// Assert
+		assertEquals(BookStatus.BORROWED, saved.getBookStatus());
+		assertEquals(1L, sizeAfterSaves);
+		assertEquals(2, loads.get());
+	}
+
+	/*
+	 * Books not found are looked up again every time
+	 */
+	@Test
+	public void givenMissingBook_whenGet_thenNotCached() {
+
+		// Arrange
+		BookCache cache = new BookCache(10, Duration.ofMinutes(10));
+
+		// Act
+		Optional<Book> first = cache.get("9780062959041", isbn -> {
+			loads.incrementAndGet();
+			return Optional.empty();
+		});
+		Optional<Book> second = cache.get("9780062959041", this::load);
+
+		// Assert
+		assertTrue(first.isEmpty());
+		assertTrue(second.isPresent());
+		assertEquals(2, loads.get());
+	}
+
+	/*
+	 * A full cache evicts entries to stay within its size
+	 */
+	@Test
+	public void givenFullCache_whenMoreBooksLoaded_thenEntriesEvicted() {
+
+		// Arrange
+		BookCache cache = new BookCache(2, Duration.ofMinutes(10));
+
+		// Act
+		for (int i = 0; i < 50; i++) {
+			cache.get(String.valueOf(9780000000000L + i), this::load);
+		}
+		CacheStatsDto stats = cache.stats();
+
+		// Assert
+		assertEquals(2L, stats.getSize());
+		assertEquals(48L, stats.getEvictions());
+		assertEquals(50L, stats.getMisses());
+	}
+
+	private Optional<Book> load(String isbn) {
+		loads.incrementAndGet();
+		return Optional.of(new Book(isbn, "The Long Way to a Small Angry Planet", "Becky Chambers", 2014,
+				BookStatus.AVAILABLE));
+	}
+}
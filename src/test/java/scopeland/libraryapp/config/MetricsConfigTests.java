@@ -0,0 +1,99 @@
+package scopeland.libraryapp.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.anonymous;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import scopeland.libraryapp.LibraryappApplication;
+
+/*
+ * Checks a Prometheus scrape, logged in as the scraper account, reports the
+ * request, service and database metrics, and that the actuator endpoints other
+ * than health need a login
+ * Initial test data generated from the DatabaseLoader
+ */
+@SpringBootTest(classes = LibraryappApplication.class)
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@TestPropertySource(locations = "classpath:application-integrationtest.properties", properties = {
+		"spring.datasource.url=jdbc:h2:mem:metricstestdb", "library.metrics.password=" + MetricsConfigTests.SCRAPER_PASSWORD })
+@DirtiesContext(classMode = ClassMode.AFTER_CLASS)
+public class MetricsConfigTests {
+
+	static final String SCRAPER_PASSWORD = "scrape-secret";
+
+	@Autowired
+	private MockMvc mvc;
+
+	/*
+	 * After a book lookup the scrape holds its route's latency histogram, the
+	 * service method timing, hibernate statistics and connection pool gauges
+	 */
+	@Test
+	@WithMockUser(roles = "ADMIN")
+	public void givenBookRequest_whenScraped_thenRequestServiceAndDatabaseMetrics() throws Exception {
+
+		// Arrange
+		mvc.perform(get("/api/books/9780062959041")).andExpect(status().isOk());
+
+		// Act
+		var results = mvc.perform(get("/actuator/prometheus").with(httpBasic("prometheus", SCRAPER_PASSWORD)));
+
+		// Assert
+		results.andExpect(status().isOk())
+				.andExpect(content().string(containsString("http_server_requests_seconds_bucket{")))
+				.andExpect(content().string(containsString("uri=\"/api/books/{isbn}\"")))
+				.andExpect(content().string(containsString("library_book_service_seconds_count{")))
+				.andExpect(content().string(containsString("method=\"getByIsbn\"")))
+				.andExpect(content().string(containsString("hibernate_statements_total{")))
+				.andExpect(content().string(containsString("hibernate_flushes_total{")))
+				.andExpect(content().string(containsString("hikaricp_connections_pending{")));
+	}
+
+	/*
+	 * Health is open, the scrape needs the scraper's login and the other actuator
+	 * endpoints an admin's
+	 */
+	@Test
+	public void givenNoLogin_whenActuatorEndpoints_thenOnlyHealthOpen() throws Exception {
+
+		// Act
+		var healthResults = mvc.perform(get("/actuator/health").with(anonymous()));
+		var scrapeResults = mvc.perform(get("/actuator/prometheus").with(anonymous()));
+		var wrongPasswordResults = mvc.perform(get("/actuator/prometheus").with(httpBasic("prometheus", "guess")));
+		var metricsResults = mvc.perform(get("/actuator/metrics").with(anonymous()));
+
+		// Assert
+		healthResults.andExpect(status().isOk());
+		scrapeResults.andExpect(status().isUnauthorized());
+		wrongPasswordResults.andExpect(status().isUnauthorized());
+		metricsResults.andExpect(status().isUnauthorized());
+	}
+
+	/*
+	 * The scraper account can only scrape
+	 */
+	@Test
+	public void givenScraperLogin_whenMetricsEndpoint_thenForbidden() throws Exception {
+
+		// Act
+		var results = mvc.perform(get("/actuator/metrics").with(httpBasic("prometheus", SCRAPER_PASSWORD)));
+
+		// Assert
+		results.andExpect(status().isForbidden());
+	}
+}
@@ -0,0 +1,72 @@
+package scopeland.libraryapp.entities;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import scopeland.libraryapp.enums.BookStatus;
+
+/*
+ * JMH measurements of writing and reading one book as JSON. Book.mapToJson
+ * builds a new ObjectMapper every call, shown against a mapper built once as
+ * Spring MVC does for responses. Not a test, run main with the test classpath
+ * or mvn -Pbenchmarks verify.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookJsonBenchmark {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final ObjectWriter WRITER = MAPPER.writerFor(Book.class);
+	private static final ObjectReader READER = MAPPER.readerFor(Book.class);
+
+	private Book book;
+	private String json;
+
+	@Setup
+	public void setUp() throws JsonProcessingException {
+		book = new Book("9781473619791", "The Long Way to a Small, Angry Planet", "Becky Chambers", 2014,
+				BookStatus.AVAILABLE);
+		json = WRITER.writeValueAsString(book);
+	}
+
+	@Benchmark
+	public String mapToJson() throws JsonProcessingException {
+		return book.mapToJson();
+	}
+
+	@Benchmark
+	public String sharedWriter() throws JsonProcessingException {
+		return WRITER.writeValueAsString(book);
+	}
+
+	@Benchmark
+	public Book sharedReader() throws JsonProcessingException {
+		return READER.readValue(json);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(BookJsonBenchmark.class.getSimpleName()).build()).run();
+	}
+}
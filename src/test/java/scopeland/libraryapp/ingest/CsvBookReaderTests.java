@@ -0,0 +1,85 @@
+package scopeland.libraryapp.ingest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import scopeland.libraryapp.exceptions.IngestFileException;
+
+/*
+ * Unit tests for reading books from CSV, no Spring context needed
+ */
+public class CsvBookReaderTests {
+
+	/*
+	 * Columns are found by header name in any order, quoted values keep their
+	 * commas, quotes and line breaks
+	 */
+	@Test
+	public void givenQuotedValues_whenRead_thenValuesKept() throws IOException {
+
+		// Arrange
+		String csv = "\uFEFFPublication Year,Author,ISBN,Title,Status\r\n"
+				+ "2014,Becky Chambers,9781473619791,\"The Long Way to a Small, Angry Planet\",AVAILABLE\r\n"
+				+ "\r\n"
+				+ "2019,Valerie Valdes,9780062877239,\"Chilling \"\"Effect\"\"\nPart One\",\r\n";
+
+		// Act
+		try (CsvBookReader reader = reader(csv)) {
+			RawBookRecord first = reader.next();
+			RawBookRecord second = reader.next();
+
+			// Assert
+			assertEquals(0, first.number());
+			assertEquals("9781473619791", first.isbn());
+			assertEquals("The Long Way to a Small, Angry Planet", first.title());
+			assertEquals("2014", first.publicationYear());
+			assertEquals("AVAILABLE", first.bookStatus());
+			assertEquals(1, second.number());
+			assertEquals("Chilling \"Effect\"\nPart One", second.title());
+			assertEquals("", second.bookStatus());
+			assertNull(reader.next());
+		}
+	}
+
+	/*
+	 * A short row is reported on its own and the rows after it still read
+	 */
+	@Test
+	public void givenShortRow_whenRead_thenRowReportedAndReadingContinues() throws IOException {
+
+		// Arrange
+		String csv = "isbn,title,author,year\n9781473619791,Only a title\n9780062877239,Chilling Effect,Valerie Valdes,2019";
+
+		// Act
+		try (CsvBookReader reader = reader(csv)) {
+			RawBookRecord shortRow = reader.next();
+			RawBookRecord fullRow = reader.next();
+
+			// Assert
+			assertEquals("expected at least 4 columns but found 2", shortRow.problem());
+			assertEquals("Valerie Valdes", fullRow.author());
+			assertNull(fullRow.bookStatus());
+		}
+	}
+
+	/*
+	 * A header missing a needed column stops the file being read
+	 */
+	@Test
+	public void givenHeaderMissingTitle_whenOpened_thenThrows() {
+
+		// Act & Assert
+		assertThrows(IngestFileException.class, () -> reader("isbn,author,year\n"));
+	}
+
+	private static CsvBookReader reader(String csv) throws IOException {
+		return new CsvBookReader(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+	}
+}
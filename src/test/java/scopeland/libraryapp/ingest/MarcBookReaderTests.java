@@ -0,0 +1,107 @@
+package scopeland.libraryapp.ingest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import scopeland.libraryapp.exceptions.IngestFileException;
+
+/*
+ * Unit tests for reading books from MARC records, no Spring context needed
+ */
+public class MarcBookReaderTests {
+
+	/*
+	 * The book fields are read from their MARC fields with the punctuation
+	 * trimmed and the author turned round
+	 */
+	@Test
+	public void givenMarcRecords_whenRead_thenBookFieldsExtracted() throws IOException {
+
+		// Arrange
+		byte[] records = concat(
+				marcRecord("008", "140813s2014    enk           000 1 eng d",
+						"020", "  \u001Fa9781473619791 (paperback)",
+						"100", "1 \u001FaChambers, Becky,\u001Feauthor.",
+						"245", "14\u001FaThe long way to a small, angry planet /\u001FcBecky Chambers.",
+						"264", " 1\u001FaLondon :\u001FbHodder & Stoughton,\u001Fc2015."),
+				"\n".getBytes(StandardCharsets.US_ASCII),
+				marcRecord("008", "190101s2019    nyu           000 1 eng d",
+						"020", "  \u001Fa0062877232",
+						"100", "1 \u001FaLe Guin, Ursula K.",
+						"245", "10\u001FaChilling effect :\u001Fba novel /"));
+
+		// Act
+		try (MarcBookReader reader = new MarcBookReader(new ByteArrayInputStream(records))) {
+			RawBookRecord first = reader.next();
+			RawBookRecord second = reader.next();
+
+			// Assert
+			assertEquals("9781473619791", first.isbn());
+			assertEquals("The long way to a small, angry planet", first.title());
+			assertEquals("Becky Chambers", first.author());
+			assertEquals("2015", first.publicationYear());
+			assertEquals(1, second.number());
+			assertEquals("Chilling effect: a novel", second.title());
+			assertEquals("Ursula K. Le Guin", second.author());
+			assertEquals("2019", second.publicationYear());
+			assertNull(reader.next());
+		}
+	}
+
+	/*
+	 * A file that doesn't start with a record length can't be read
+	 */
+	@Test
+	public void givenNotMarc_whenRead_thenThrows() throws IOException {
+
+		// Arrange
+		byte[] notMarc = "isbn,title,author,year\n".getBytes(StandardCharsets.US_ASCII);
+
+		// Act & Assert
+		try (MarcBookReader reader = new MarcBookReader(new ByteArrayInputStream(notMarc))) {
+			assertThrows(IngestFileException.class, reader::next);
+		}
+	}
+
+	/*
+	 * Builds a UTF-8 MARC record in ISO 2709 form
+	 * 
+	 * @param tagsAndData - Pairs of a field tag and its data. Data fields start
+	 * with their two indicators and mark subfields with 0x1F.
+	 */
+	public static byte[] marcRecord(String... tagsAndData) {
+		ByteArrayOutputStream directory = new ByteArrayOutputStream();
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		for (int i = 0; i < tagsAndData.length; i += 2) {
+			byte[] field = (tagsAndData[i + 1] + "\u001E").getBytes(StandardCharsets.UTF_8);
+			directory.writeBytes(String.format("%s%04d%05d", tagsAndData[i], field.length, data.size())
+					.getBytes(StandardCharsets.US_ASCII));
+			data.writeBytes(field);
+		}
+		directory.write(0x1E);
+		data.write(0x1D);
+		int base = 24 + directory.size();
+		int length = base + data.size();
+		ByteArrayOutputStream record = new ByteArrayOutputStream();
+		record.writeBytes(String.format("%05dnam a22%05d   4500", length, base).getBytes(StandardCharsets.US_ASCII));
+		record.writeBytes(directory.toByteArray());
+		record.writeBytes(data.toByteArray());
+		return record.toByteArray();
+	}
+
+	private static byte[] concat(byte[]... parts) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (byte[] part : parts) {
+			out.writeBytes(part);
+		}
+		return out.toByteArray();
+	}
+}
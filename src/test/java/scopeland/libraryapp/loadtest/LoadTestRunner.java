@@ -0,0 +1,305 @@
+package scopeland.libraryapp.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import scopeland.libraryapp.LibraryappApplication;
+import scopeland.libraryapp.entities.dtos.UserDto;
+import scopeland.libraryapp.repositories.SyntheticCatalogue;
+import scopeland.libraryapp.repositories.SyntheticCatalogueLoader;
+import scopeland.libraryapp.service.UserService;
+import scopeland.libraryapp.service.paging.BookCursor;
+
+/*
+ * Load generator for the book API. Not a test, run with mvn -Ploadtest verify.
+ *
+ * Boots the app on a random port against its own H2, filled with a
+ * SyntheticCatalogue by the synthetic profile, registers and logs in an ADMIN user, then sends a weighted
+ * mix of list, search, lookup and borrow/return requests at a fixed rate.
+ *
+ * Requests are sent on a fixed schedule whatever the responses are doing, and
+ * each latency is measured from when its request was due rather than when it was
+ * sent. So a stalled server shows up as a long tail rather than as fewer, faster
+ * requests. Latencies go into one HdrHistogram per endpoint, printed as
+ * percentiles at the end and written in full to target/loadtest.
+ *
+ * Settings are system properties: loadtest.catalogue-size, loadtest.rate
+ * (requests per second), loadtest.warmup and loadtest.duration (seconds) and
+ * loadtest.max-in-flight.
+ */
+public class LoadTestRunner {
+
+	private static final String PASSWORD = "loadtest-password";
+	// Latencies are recorded in microseconds, up to a minute
+	private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toMicros(1);
+
+	private final HttpClient client;
+	private final String baseUrl;
+	private final SyntheticCatalogue catalogue;
+	private final List<Endpoint> endpoints;
+	private final int totalWeight;
+
+	public LoadTestRunner(HttpClient client, String baseUrl, SyntheticCatalogue catalogue) {
+		this.client = client;
+		this.baseUrl = baseUrl;
+		this.catalogue = catalogue;
+		this.endpoints = List.of(
+				new Endpoint("GET /api/books/{isbn}", 35, random -> get("/api/books/" + anyIsbn(random))),
+				new Endpoint("GET /api/books/page", 15,
+						random -> get("/api/books/page?size=20&cursor=" + BookCursor.encode(anyIsbn(random)))),
+				new Endpoint("GET /api/books/search/text", 15, random -> get("/api/books/search/text?q="
+						+ SyntheticCatalogue.TITLE_WORDS.get(random.nextInt(SyntheticCatalogue.TITLE_WORDS.size())))),
+				new Endpoint("GET /api/books/search/author/{value}", 10,
+						random -> get("/api/books/search/author/" + encode(anyAuthor(random)) + "?mode=PREFIX")),
+				new Endpoint("GET /api/books/search/publicationYear/range", 5, random -> {
+					int start = 1950 + random.nextInt(70);
+					return get("/api/books/search/publicationYear/range/" + start + "/" + (start + 1));
+				}),
+				new Endpoint("GET /api/books/autocomplete", 10, random -> get("/api/books/autocomplete?prefix="
+						+ SyntheticCatalogue.TITLE_WORDS.get(random.nextInt(SyntheticCatalogue.TITLE_WORDS.size()))
+								.substring(0, 2).toLowerCase())),
+				new Endpoint("PUT /api/books/{isbn}/updateStatus/BORROWED", 5,
+						random -> put("/api/books/" + anyIsbn(random) + "/updateStatus/BORROWED")),
+				new Endpoint("PUT /api/books/{isbn}/updateStatus/AVAILABLE", 5,
+						random -> put("/api/books/" + anyIsbn(random) + "/updateStatus/AVAILABLE")));
+		this.totalWeight = endpoints.stream().mapToInt(Endpoint::weight).sum();
+	}
+
+	public static void main(String[] args) throws Exception {
+		int catalogueSize = Integer.getInteger("loadtest.catalogue-size", 100_000);
+		int rate = Integer.getInteger("loadtest.rate", 200);
+		int warmup = Integer.getInteger("loadtest.warmup", 10);
+		int duration = Integer.getInteger("loadtest.duration", 30);
+		int maxInFlight = Integer.getInteger("loadtest.max-in-flight", 256);
+
+		// Devtools would restart the app in a new class loader
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		ServletWebServerApplicationContext context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(
+				LibraryappApplication.class)
+				.run("--spring.datasource.url=jdbc:h2:mem:loadtestdb;DB_CLOSE_ON_EXIT=FALSE", "--server.port=0",
+						"--spring.jpa.show-sql=false", "--logging.level.root=WARN", "--spring.profiles.active=synthetic",
+						"--library.synthetic.size=" + catalogueSize);
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+		try {
+			SyntheticCatalogue catalogue = context.getBean(SyntheticCatalogueLoader.class).getCatalogue();
+			String baseUrl = "http://localhost:" + context.getWebServer().getPort();
+			HttpClient client = HttpClient.newBuilder()
+					.cookieHandler(new CookieManager())
+					.executor(executor)
+					.build();
+			logIn(client, baseUrl, context.getBean(UserService.class));
+
+			LoadTestRunner runner = new LoadTestRunner(client, baseUrl, catalogue);
+			System.out.printf("Warming up for %ds at %d requests/s%n", warmup, rate);
+			runner.run(rate, warmup, maxInFlight);
+			System.out.printf("Measuring for %ds at %d requests/s%n", duration, rate);
+			Results results = runner.run(rate, duration, maxInFlight);
+			results.print(System.out);
+			results.write(Path.of("target", "loadtest"));
+		} finally {
+			executor.shutdownNow();
+			context.close();
+		}
+	}
+
+	/*
+	 * Sends requests at the rate for the duration and waits for the last of them
+	 *
+	 * @param rate - requests started per second
+	 *
+	 * @param seconds - how long to send for
+	 *
+	 * @param maxInFlight - the most requests awaiting a response at once, past
+	 * which sending waits, still timing from when each request was due
+	 *
+	 * @return - The latencies and outcomes per endpoint
+	 */
+	public Results run(int rate, int seconds, int maxInFlight) throws InterruptedException {
+		Results results = new Results(endpoints);
+		Semaphore inFlight = new Semaphore(maxInFlight);
+		Random random = new Random(42);
+		long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+		long count = (long) rate * seconds;
+		long start = System.nanoTime();
+
+		for (long i = 0; i < count; i++) {
+			long due = start + i * interval;
+			long wait = due - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			Endpoint endpoint = pick(random);
+			EndpointResults endpointResults = results.of(endpoint);
+			HttpRequest request = endpoint.request().apply(random);
+			inFlight.acquire();
+			client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+					.whenComplete((response, error) -> {
+						endpointResults.record(System.nanoTime() - due, response == null ? -1 : response.statusCode());
+						inFlight.release();
+					});
+		}
+		inFlight.acquire(maxInFlight);
+		results.elapsedNanos = System.nanoTime() - start;
+		return results;
+	}
+
+	private static void logIn(HttpClient client, String baseUrl, UserService userService)
+			throws IOException, InterruptedException {
+		String email = "loadtest@scopeland.test";
+		userService.saveUser(new UserDto(null, "Load", "Test", email, PASSWORD));
+		HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(HttpRequest.BodyPublishers.ofString("username=" + encode(email) + "&password=" + PASSWORD))
+				.build(), HttpResponse.BodyHandlers.discarding());
+		String location = response.headers().firstValue("Location").orElse("");
+		if (response.statusCode() != 302 || location.contains("error")) {
+			throw new IllegalStateException("Load test user could not log in, got " + response.statusCode());
+		}
+	}
+
+	private Endpoint pick(Random random) {
+		int weight = random.nextInt(totalWeight);
+		for (Endpoint endpoint : endpoints) {
+			weight -= endpoint.weight();
+			if (weight < 0) {
+				return endpoint;
+			}
+		}
+		throw new IllegalStateException();
+	}
+
+	// Squared so a few books are looked up far more often than the rest
+	private int anyBook(Random random) {
+		double skew = random.nextDouble();
+		return (int) (skew * skew * catalogue.size());
+	}
+
+	private String anyIsbn(Random random) {
+		return catalogue.isbn(anyBook(random));
+	}
+
+	// The author of a book, so prolific authors are searched for more often
+	private String anyAuthor(Random random) {
+		return catalogue.book(anyBook(random)).getAuthor();
+	}
+
+	private HttpRequest get(String path) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+	}
+
+	private HttpRequest put(String path) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path)).PUT(HttpRequest.BodyPublishers.noBody()).build();
+	}
+
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+	}
+
+	/*
+	 * One kind of request in the mix, sent weight in every total weight requests
+	 */
+	private record Endpoint(String name, int weight, Function<Random, HttpRequest> request) {
+	}
+
+	/*
+	 * The latencies and status codes of one endpoint
+	 */
+	private static final class EndpointResults {
+		private final Histogram latencies = new ConcurrentHistogram(HIGHEST_LATENCY, 3);
+		private final AtomicLong clientErrors = new AtomicLong();
+		private final AtomicLong failures = new AtomicLong();
+
+		private void record(long latencyNanos, int status) {
+			latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_LATENCY));
+			if (status >= 400 && status < 500) {
+				clientErrors.incrementAndGet();
+			} else if (status < 200 || status >= 500) {
+				failures.incrementAndGet();
+			}
+		}
+	}
+
+	/*
+	 * The results of one run, per endpoint in mix order
+	 */
+	public static final class Results {
+		private final List<Endpoint> endpoints;
+		private final List<EndpointResults> byEndpoint;
+		private long elapsedNanos;
+
+		private Results(List<Endpoint> endpoints) {
+			this.endpoints = endpoints;
+			this.byEndpoint = endpoints.stream().map(endpoint -> new EndpointResults()).toList();
+		}
+
+		private EndpointResults of(Endpoint endpoint) {
+			return byEndpoint.get(endpoints.indexOf(endpoint));
+		}
+
+		/*
+		 * Prints throughput, latency percentiles in milliseconds and error counts.
+		 * 4xx are counted apart from failures, as borrowing a borrowed book is
+		 * expected to be turned down.
+		 */
+		public void print(PrintStream out) {
+			double seconds = elapsedNanos / 1e9;
+			Histogram all = new Histogram(HIGHEST_LATENCY, 3);
+			out.printf("%n%-46s %8s %8s %8s %8s %8s %8s %6s %6s%n", "Endpoint", "Count", "Req/s", "p50 ms", "p99 ms",
+					"p999 ms", "Max ms", "4xx", "Failed");
+			for (int i = 0; i < endpoints.size(); i++) {
+				EndpointResults results = byEndpoint.get(i);
+				all.add(results.latencies);
+				printRow(out, endpoints.get(i).name(), results.latencies, seconds, results.clientErrors.get(),
+						results.failures.get());
+			}
+			printRow(out, "All", all, seconds, byEndpoint.stream().mapToLong(results -> results.clientErrors.get()).sum(),
+					byEndpoint.stream().mapToLong(results -> results.failures.get()).sum());
+		}
+
+		/*
+		 * Writes each endpoint's full percentile distribution in HdrHistogram's
+		 * .hgrm format, in milliseconds, for plotting or comparing runs
+		 */
+		public void write(Path directory) throws IOException {
+			Files.createDirectories(directory);
+			for (int i = 0; i < endpoints.size(); i++) {
+				String fileName = endpoints.get(i).name().replaceAll("[^A-Za-z0-9]+", "_") + ".hgrm";
+				try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(fileName)))) {
+					byEndpoint.get(i).latencies.outputPercentileDistribution(out, 1000.0);
+				}
+			}
+			System.out.println("Latency distributions written to " + directory.toAbsolutePath());
+		}
+
+		private static void printRow(PrintStream out, String name, Histogram latencies, double seconds,
+				long clientErrors, long failures) {
+			out.printf("%-46s %8d %8.1f %8.2f %8.2f %8.2f %8.2f %6d %6d%n", name, latencies.getTotalCount(),
+					latencies.getTotalCount() / seconds, latencies.getValueAtPercentile(50) / 1000.0,
+					latencies.getValueAtPercentile(99) / 1000.0, latencies.getValueAtPercentile(99.9) / 1000.0,
+					latencies.getMaxValue() / 1000.0, clientErrors, failures);
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package scopeland.libraryapp.monitoring;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import scopeland.libraryapp.LibraryappApplication;
+import scopeland.libraryapp.enums.BookStatus;
+import scopeland.libraryapp.exceptions.BookNotFoundException;
+import scopeland.libraryapp.service.BookService;
+
+/*
+ * Checks service and repository calls show up in a flight recording with the
+ * events enabled, and not without
+ * Initial test data generated from the DatabaseLoader
+ */
+@SpringBootTest(classes = LibraryappApplication.class)
+@TestPropertySource(locations = "classpath:application-integrationtest.properties", properties = {
+		"spring.datasource.url=jdbc:h2:mem:jfrtestdb" })
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class FlightRecorderAspectTests {
+
+	private static final String SERVICE_CALL = "scopeland.library.ServiceCall";
+	private static final String REPOSITORY_CALL = "scopeland.library.RepositoryCall";
+
+	@TempDir
+	Path recordingDirectory;
+
+	@Autowired
+	private BookService bookService;
+
+	/*
+	 * A book lookup records the service call and the repository query it made,
+	 * both with the isbn and the one book found
+	 */
+	@Test
+	public void givenEventsEnabled_whenGetByIsbn_thenServiceAndRepositoryEvents() throws Exception {
+
+		// Act
+		List<RecordedEvent> events = record(true, () -> bookService.getByIsbn("9780062959041"));
+
+		// Assert
+		RecordedEvent serviceCall = only(events, SERVICE_CALL);
+		assertEquals("BookServiceImpl", serviceCall.getString("type"));
+		assertEquals("getByIsbn", serviceCall.getString("operation"));
+		assertEquals("9780062959041", serviceCall.getString("isbn"));
+		assertEquals(1, serviceCall.getInt("rows"));
+
+		RecordedEvent repositoryCall = only(events, REPOSITORY_CALL);
+		assertEquals("IBookRepository", repositoryCall.getString("type"));
+		assertEquals("findById", repositoryCall.getString("operation"));
+		assertEquals("9780062959041", repositoryCall.getString("isbn"));
+		assertEquals(1, repositoryCall.getInt("rows"));
+		assertTrue(serviceCall.getDuration().compareTo(repositoryCall.getDuration()) >= 0);
+	}
+
+	/*
+	 * A call that throws records the exception and no rows
+	 */
+	@Test
+	public void givenEventsEnabled_whenGetByIsbnNotFound_thenExceptionRecorded() throws Exception {
+
+		// Act
+		List<RecordedEvent> events = record(true,
+				() -> assertThrows(BookNotFoundException.class, () -> bookService.getByIsbn("9780345391803")));
+
+		// Assert
+		RecordedEvent serviceCall = only(events, SERVICE_CALL);
+		assertEquals("BookNotFoundException", serviceCall.getString("exception"));
+		assertEquals(-1, serviceCall.getInt("rows"));
+		assertEquals(0, only(events, REPOSITORY_CALL).getInt("rows"));
+	}
+
+	/*
+	 * A page of books records how many books it held
+	 */
+	@Test
+	public void givenEventsEnabled_whenListBooksPage_thenRowsRecorded() throws Exception {
+
+		// Act
+		List<RecordedEvent> events = record(true, () -> bookService.listBooksPage(null, 2));
+
+		// Assert
+		RecordedEvent serviceCall = only(events, SERVICE_CALL);
+		assertEquals("listBooksPage", serviceCall.getString("operation"));
+		assertEquals(2, serviceCall.getInt("rows"));
+	}
+
+	/*
+	 * Custom repository methods are recorded like the Spring Data ones
+	 */
+	@Test
+	public void givenEventsEnabled_whenUpdateBookStatus_thenRepositoryUpdateRecorded() throws Exception {
+
+		// Act
+		List<RecordedEvent> events = record(true,
+				() -> bookService.updateBookStatus("9780062959041", BookStatus.BORROWED));
+
+		// Assert
+		RecordedEvent repositoryCall = only(events, REPOSITORY_CALL);
+		assertEquals("updateStatus", repositoryCall.getString("operation"));
+		assertEquals("9780062959041", repositoryCall.getString("isbn"));
+		assertEquals(1, repositoryCall.getInt("rows"));
+	}
+
+	/*
+	 * A recording without the events has none of them
+	 */
+	@Test
+	public void givenEventsDisabled_whenGetByIsbn_thenNoEvents() throws Exception {
+
+		// Act
+		List<RecordedEvent> events = record(false, () -> bookService.getByIsbn("9780062959041"));
+
+		// Assert
+		assertTrue(events.isEmpty());
+	}
+
+	private List<RecordedEvent> record(boolean enabled, Runnable calls) throws Exception {
+		Path file = recordingDirectory.resolve("library.jfr");
+		try (Recording recording = new Recording()) {
+			if (enabled) {
+				recording.enable(SERVICE_CALL);
+				recording.enable(REPOSITORY_CALL);
+			} else {
+				recording.disable(SERVICE_CALL);
+				recording.disable(REPOSITORY_CALL);
+			}
+			recording.start();
+			calls.run();
+			recording.stop();
+			recording.dump(file);
+		}
+		return RecordingFile.readAllEvents(file).stream()
+				.filter(event -> event.getEventType().getName().startsWith("scopeland.library."))
+				.toList();
+	}
+
+	private static RecordedEvent only(List<RecordedEvent> events, String name) {
+		List<RecordedEvent> named = events.stream().filter(event -> event.getEventType().getName().equals(name))
+				.toList();
+		assertEquals(1, named.size(), name);
+		return named.get(0);
+	}
+}
@@ -0,0 +1,67 @@
+package scopeland.libraryapp.monitoring;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/*
+ * Unit tests for the per request statement counts, no Spring context needed
+ */
+public class RequestStatementsTests {
+
+	@AfterEach
+	public void tearDown() {
+		RequestStatements.stop();
+	}
+
+	/*
+	 * Counts belong to the thread that started them until stopped
+	 */
+	@Test
+	public void givenStarted_whenStopped_thenCountsReturnedAndCleared() {
+
+		// Arrange
+		RequestStatements started = RequestStatements.start();
+
+		// Act
+		RequestStatements current = RequestStatements.current();
+		RequestStatements stopped = RequestStatements.stop();
+
+		// Assert
+		assertSame(started, current);
+		assertSame(started, stopped);
+		assertNull(RequestStatements.current());
+	}
+
+	/*
+	 * The same query for different values, or IN lists of different lengths,
+	 * counts as one repeated shape
+	 */
+	@Test
+	public void givenSameShapeSentRepeatedly_whenRepeated_thenShapeCounted() {
+
+		// Arrange
+		RequestStatements statements = RequestStatements.start();
+		for (int i = 0; i < 4; i++) {
+			statements.record("select r.id from roles r where r.user_id=?", 1_000_000);
+		}
+		statements.record("select b.isbn from books b where b.isbn in (?,?)", 1_000_000);
+		statements.record("select b.isbn  from books b\nwhere b.isbn in (?, ?, ?)", 1_000_000);
+		statements.record("select count(*) from books", 500_000);
+
+		// Act
+		Map<String, Integer> repeated = statements.repeated(2);
+
+		// Assert
+		assertEquals(6 + 1, statements.getCount());
+		assertEquals(Map.of("select r.id from roles r where r.user_id=?", 4,
+				"select b.isbn from books b where b.isbn in (?...)", 2), repeated);
+		assertEquals(Map.of("select r.id from roles r where r.user_id=?", 4), statements.repeated(3));
+		assertEquals("db;dur=6.50;desc=\"7 statements\"", statements.serverTiming());
+	}
+}
@@ -0,0 +1,51 @@
+package scopeland.libraryapp.monitoring;
+
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * MockMvc matchers on the SQL statements a request sent, read from the counts
+ * RequestStatementsInterceptor leaves on the request. For example
+ * mvc.perform(get("/api/books")).andExpect(statementCount(1))
+ */
+public final class StatementMatchers {
+
+	private StatementMatchers() {
+	}
+
+	/*
+	 * The request sent exactly this many statements
+	 */
+	public static ResultMatcher statementCount(int expected) {
+		return result -> assertEquals(expected, statements(result).getCount(), "SQL statements sent");
+	}
+
+	/*
+	 * The request sent no more than this many statements
+	 */
+	public static ResultMatcher statementCountAtMost(int max) {
+		return result -> {
+			int count = statements(result).getCount();
+			assertTrue(count <= max, "expected at most " + max + " SQL statements but " + count + " were sent");
+		};
+	}
+
+	/*
+	 * No statement shape was sent often enough to be logged as an N+1 query
+	 */
+	public static ResultMatcher noRepeatedStatements(int threshold) {
+		return result -> assertEquals("{}", statements(result).repeated(threshold).toString(),
+				"SQL statements sent repeatedly");
+	}
+
+	private static RequestStatements statements(MvcResult result) {
+		RequestStatements statements = (RequestStatements) result.getRequest()
+				.getAttribute(RequestStatements.ATTRIBUTE);
+		assertNotNull(statements, "no SQL statement counts, was the request handled?");
+		return statements;
+	}
+}
@@ -0,0 +1,135 @@
+package scopeland.libraryapp.repositories;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import scopeland.libraryapp.LibraryappApplication;
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.repositories.interfaces.IBookRepository;
+import scopeland.libraryapp.search.TextNormaliser;
+
+/*
+ * JMH measurements of the repository lookups behind the book endpoints, against
+ * the app's own embedded H2, filled with a SyntheticCatalogue of CATALOGUE_SIZE
+ * books by the synthetic profile. Not a test, run main with the test classpath or mvn -Pbenchmarks verify.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookRepositoryBenchmark {
+
+	private static final int CATALOGUE_SIZE = 100_000;
+	private static final int PAGE_SIZE = 20;
+
+	private ConfigurableApplicationContext context;
+	private IBookRepository bookRepository;
+	private JdbcTemplate jdbcTemplate;
+	private String[] isbns;
+	private String[] authors;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void startApp() {
+		// Devtools would restart the app in a new class loader
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		context = new SpringApplicationBuilder(LibraryappApplication.class)
+				.run("--spring.datasource.url=jdbc:h2:mem:benchmarkdb;DB_CLOSE_ON_EXIT=FALSE", "--server.port=0",
+						"--spring.jpa.show-sql=false", "--logging.level.root=WARN", "--spring.profiles.active=synthetic",
+						"--library.synthetic.size=" + CATALOGUE_SIZE);
+		bookRepository = context.getBean(IBookRepository.class);
+		jdbcTemplate = context.getBean(JdbcTemplate.class);
+		SyntheticCatalogue catalogue = context.getBean(SyntheticCatalogueLoader.class).getCatalogue();
+		isbns = IntStream.range(0, catalogue.size()).mapToObj(catalogue::isbn).toArray(String[]::new);
+		authors = IntStream.range(0, catalogue.getAuthorCount())
+				.mapToObj(rank -> TextNormaliser.normalise(catalogue.author(rank)))
+				.toArray(String[]::new);
+	}
+
+	@TearDown(Level.Trial)
+	public void stopApp() {
+		context.close();
+	}
+
+	@Benchmark
+	public Optional<Book> findById() {
+		return bookRepository.findById(isbns[nextIndex()]);
+	}
+
+	@Benchmark
+	public Optional<Book> findByIdMissing() {
+		return bookRepository.findById("9780000000002");
+	}
+
+	@Benchmark
+	public List<Book> findPageAfter() {
+		return bookRepository.findPageAfter(isbns[nextIndex()], PageRequest.ofSize(PAGE_SIZE));
+	}
+
+	@Benchmark
+	public List<Book> findByAuthorExact() {
+		return bookRepository.findByAuthorNormalised(authors[nextIndex() % authors.length]);
+	}
+
+	@Benchmark
+	public List<Book> findByAuthorPrefix() {
+		// The first name and first letter of the last name
+		String author = authors[nextIndex() % authors.length];
+		return bookRepository.findByAuthorNormalisedStartingWith(author.substring(0, author.indexOf(' ') + 2));
+	}
+
+	/*
+	 * The same author count on the indexed author_normalised column, and on the
+	 * author column the searches used before it, which scans the table
+	 */
+	@Benchmark
+	public Integer countByAuthorIndexed() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books WHERE author_normalised = ?", Integer.class,
+				authors[nextIndex() % authors.length]);
+	}
+
+	@Benchmark
+	public Integer countByAuthorScan() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books WHERE LOWER(author) = ?", Integer.class,
+				authors[nextIndex() % authors.length]);
+	}
+
+	@Benchmark
+	public List<Book> searchOneYear() {
+		int year = 1950 + nextIndex() % 70;
+		return bookRepository.searchBooksInYearRange(year, year);
+	}
+
+	private int nextIndex() {
+		next = (next + 7919) % CATALOGUE_SIZE;
+		return next;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(BookRepositoryBenchmark.class.getSimpleName()).build()).run();
+	}
+}
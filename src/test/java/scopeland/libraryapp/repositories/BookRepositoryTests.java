@@ -0,0 +1,181 @@
+package scopeland.libraryapp.repositories;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import scopeland.libraryapp.LibraryappApplication;
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.enums.BookStatus;
+import scopeland.libraryapp.repositories.interfaces.IBookRepository;
+import scopeland.libraryapp.repositories.specifications.BookSpecifications;
+import scopeland.libraryapp.search.TextNormaliser;
+
+/*
+ * Checks the author, year and combined search queries against a large synthetic
+ * catalogue.
+ * Seeds the books table directly with JDBC so the seeding itself is quick,
+ * then checks the indexes are used and the searches find the right books.
+ */
+@SpringBootTest(classes = LibraryappApplication.class)
+@TestPropertySource(locations = "classpath:application-integrationtest.properties")
+@DirtiesContext(classMode = ClassMode.AFTER_CLASS)
+public class BookRepositoryTests {
+
+	private static final int CATALOGUE_SIZE = 100_000;
+	private static final int AUTHOR_COUNT = 5_000;
+
+	@Autowired
+	private IBookRepository bookRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private static boolean seeded = false;
+
+	@BeforeEach
+	public void seedCatalogue() {
+		if (seeded) {
+			return;
+		}
+		List<Object[]> rows = new ArrayList<>();
+		for (int i = 0; i < CATALOGUE_SIZE; i++) {
+			String author = "Synthetic Author " + (i % AUTHOR_COUNT);
+			rows.add(new Object[] { String.format("990%010d", i), "Synthetic Title " + i, author,
+					TextNormaliser.normalise(author), 1900 + (i % 120), 0 });
+		}
+		jdbcTemplate.batchUpdate(
+				"INSERT INTO books (isbn, title, author, author_normalised, publication_year, book_status) VALUES (?, ?, ?, ?, ?, ?)",
+				rows);
+		seeded = true;
+	}
+
+	/*
+	 * Isbns are keyed as fixed width numbers rather than strings
+	 */
+	@Test
+	public void givenBooksTable_whenDescribed_thenIsbnKeyIsBigint() {
+
+		// Act
+		String dataType = jdbcTemplate.queryForObject(
+				"SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = 'BOOKS' AND COLUMN_NAME = 'ISBN'",
+				String.class);
+
+		// Assert
+		assertEquals("BIGINT", dataType);
+		assertEquals("990" + String.format("%010d", 42), bookRepository.findById("9900000000042").get().getIsbn());
+	}
+
+	/*
+	 * Exact and prefix author searches should seek on the normalised author index
+	 * rather than scanning the books table
+	 */
+	@Test
+	public void givenLargeCatalogue_whenExplainAuthorSearch_thenIndexUsed() {
+
+		// Act
+		String exactPlan = jdbcTemplate.queryForObject(
+				"EXPLAIN SELECT * FROM books WHERE author_normalised = 'synthetic author 42'", String.class);
+		String prefixPlan = jdbcTemplate.queryForObject(
+				"EXPLAIN SELECT * FROM books WHERE author_normalised LIKE 'synthetic author 42%'", String.class);
+
+		// Assert
+		assertTrue(exactPlan.toUpperCase().contains("IDX_BOOKS_AUTHOR_NORMALISED"), exactPlan);
+		assertTrue(prefixPlan.toUpperCase().contains("IDX_BOOKS_AUTHOR_NORMALISED"), prefixPlan);
+	}
+
+	/*
+	 * The publication year range search should seek on the year index rather than
+	 * scanning the books table, and still find every book in the range
+	 */
+	@Test
+	public void givenLargeCatalogue_whenExplainYearRangeSearch_thenIndexUsed() {
+
+		// Act
+		String plan = jdbcTemplate.queryForObject(
+				"EXPLAIN SELECT * FROM books b WHERE b.publication_year BETWEEN 1950 AND 1951", String.class);
+		int found = bookRepository.searchBooksInYearRange(1950, 1951).size();
+
+		// Assert
+		assertTrue(plan.toUpperCase().contains("IDX_BOOKS_PUBLICATION_YEAR"), plan);
+		assertEquals(2 * CATALOGUE_SIZE / 120, found);
+	}
+
+	/*
+	 * The combined search applies every filter in the one query and returns
+	 * exactly the books a scan of the seeded rows would
+	 */
+	@Test
+	public void givenLargeCatalogue_whenCombinedSearch_thenMatchesExpectedBooks() {
+
+		// Arrange
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < CATALOGUE_SIZE; i++) {
+			int year = 1900 + (i % 120);
+			if (i % AUTHOR_COUNT == 4999 && year >= 1950 && year <= 2000) {
+				expected.add(String.format("990%010d", i));
+			}
+		}
+		Specification<Book> specification = Specification
+				.where(BookSpecifications.authorStartsWith("Synthetic AUTHOR 4999"))
+				.and(BookSpecifications.publishedFrom(1950))
+				.and(BookSpecifications.publishedTo(2000))
+				.and(BookSpecifications.hasStatus(BookStatus.AVAILABLE));
+
+		// Act
+		List<Book> found = bookRepository.findFirstMatching(specification, 1000);
+
+		// Assert
+		assertEquals(expected, found.stream().map(Book::getIsbn).toList());
+	}
+
+	/*
+	 * The combined search should seek on an index for one of its filters and
+	 * check the rest on the rows found, rather than scanning the books table
+	 */
+	@Test
+	public void givenLargeCatalogue_whenExplainCombinedSearch_thenIndexUsed() {
+
+		// Act - the query BookSpecifications builds for author, years and status
+		String plan = jdbcTemplate.queryForObject("EXPLAIN SELECT * FROM books WHERE author_normalised LIKE "
+				+ "'synthetic author 4999%' ESCAPE '\\' AND publication_year >= 1950 AND publication_year <= 2000 "
+				+ "AND book_status = 0", String.class);
+
+		// Assert
+		assertTrue(plan.toUpperCase().contains("IDX_BOOKS_"), plan);
+		assertFalse(plan.toUpperCase().contains("TABLESCAN"), plan);
+	}
+
+	/*
+	 * The indexed author searches find every book for the author, exact and by
+	 * prefix. How much faster they are than a scan is measured by
+	 * BookRepositoryBenchmark.
+	 */
+	@Test
+	public void givenLargeCatalogue_whenSearchByAuthor_thenEveryBookFound() {
+
+		// Arrange
+		String author = TextNormaliser.normalise("SYNTHETIC author 42");
+
+		// Act
+		int found = bookRepository.findByAuthorNormalised(author).size();
+		int foundByPrefix = bookRepository.findByAuthorNormalisedStartingWith("synthetic author 4999").size();
+
+		// Assert
+		assertEquals(CATALOGUE_SIZE / AUTHOR_COUNT, found);
+		assertEquals(CATALOGUE_SIZE / AUTHOR_COUNT, foundByPrefix);
+	}
+}
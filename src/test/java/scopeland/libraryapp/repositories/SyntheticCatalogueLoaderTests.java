@@ -0,0 +1,58 @@
+package scopeland.libraryapp.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import scopeland.libraryapp.LibraryappApplication;
+import scopeland.libraryapp.enums.YearBucket;
+import scopeland.libraryapp.repositories.interfaces.IBookRepository;
+import scopeland.libraryapp.search.YearFacetIndex;
+
+/*
+ * Starts the app with the synthetic profile and checks the generated catalogue
+ * is stored alongside the DatabaseLoader books and reaches the in-memory indexes
+ */
+@SpringBootTest(classes = LibraryappApplication.class)
+@TestPropertySource(locations = "classpath:application-integrationtest.properties", properties = {
+		"spring.datasource.url=jdbc:h2:mem:synthetictestdb", "library.synthetic.size=12345" })
+@ActiveProfiles("synthetic")
+@DirtiesContext(classMode = ClassMode.AFTER_CLASS)
+public class SyntheticCatalogueLoaderTests {
+
+	@Autowired
+	private SyntheticCatalogueLoader loader;
+
+	@Autowired
+	private IBookRepository bookRepository;
+
+	@Autowired
+	private YearFacetIndex yearFacetIndex;
+
+	/*
+	 * Every generated book is stored as generated, in batches that don't divide the
+	 * size evenly
+	 */
+	@Test
+	public void givenSyntheticProfile_whenStarted_thenCatalogueStored() {
+
+		// Arrange
+		SyntheticCatalogue catalogue = loader.getCatalogue();
+
+		// Act
+		long count = bookRepository.count();
+
+		// Assert
+		assertEquals(12345 + 3, count);
+		for (int index : new int[] { 0, 4999, 5000, 12344 }) {
+			assertEquals(catalogue.book(index), bookRepository.findById(catalogue.isbn(index)).get());
+		}
+		assertEquals(12345 + 3, yearFacetIndex.facets(YearBucket.DECADE, null, null, null).getTotal());
+	}
+}
@@ -0,0 +1,119 @@
+package scopeland.libraryapp.repositories;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.enums.BookStatus;
+import scopeland.libraryapp.validation.books.validator.IsbnValidator;
+
+/*
+ * Unit tests for the generated catalogue, no Spring context needed
+ */
+public class SyntheticCatalogueTests {
+
+	private static final int SIZE = 20_000;
+
+	private final SyntheticCatalogue catalogue = new SyntheticCatalogue(SIZE, 1, 0.1);
+
+	/*
+	 * The same seed and index always give the same book, another seed a different
+	 * one with the same isbn
+	 */
+	@Test
+	public void givenSeed_whenBookGeneratedAgain_thenSameBook() {
+
+		// Act
+		Book first = catalogue.book(1234);
+		Book again = new SyntheticCatalogue(SIZE, 1, 0.1).book(1234);
+		Book otherSeed = new SyntheticCatalogue(SIZE, 2, 0.1).book(1234);
+
+		// Assert
+		assertEquals(first, again);
+		assertEquals(first.getIsbn(), otherSeed.getIsbn());
+		assertNotEquals(first, otherSeed);
+	}
+
+	/*
+	 * Every isbn is a valid, distinct ISBN-13, rising with the index
+	 */
+	@Test
+	public void givenCatalogue_whenIsbnsGenerated_thenValidAndDistinct() {
+
+		// Arrange
+		Set<String> isbns = new HashSet<>();
+
+		// Act & Assert
+		for (int i = 0; i < SIZE; i++) {
+			String isbn = catalogue.isbn(i);
+			assertEquals(0, IsbnValidator.check(isbn), isbn);
+			assertEquals(isbn, catalogue.book(i).getIsbn());
+			assertTrue(i == 0 || isbn.compareTo(catalogue.isbn(i - 1)) > 0);
+			isbns.add(isbn);
+		}
+		assertEquals(SIZE, isbns.size());
+	}
+
+	/*
+	 * Every author rank has its own name, even for the largest catalogues
+	 */
+	@Test
+	public void givenLargeCatalogue_whenAuthorsNamed_thenNamesDistinct() {
+
+		// Arrange
+		SyntheticCatalogue large = new SyntheticCatalogue(50_000_000, 1, 0.1);
+		Set<String> names = new HashSet<>();
+
+		// Act
+		for (int rank = 0; rank < large.getAuthorCount(); rank++) {
+			names.add(large.author(rank));
+		}
+
+		// Assert
+		assertEquals(large.getAuthorCount(), names.size());
+		assertTrue(names.size() > 500_000);
+	}
+
+	/*
+	 * A few authors write many of the books, the most prolific far more than an
+	 * even share, while about the borrowed ratio of books are borrowed and years
+	 * lean recent
+	 */
+	@Test
+	public void givenCatalogue_whenBooksGenerated_thenRealisticallySpread() {
+
+		// Arrange
+		Map<String, Integer> booksByAuthor = new HashMap<>();
+		int borrowed = 0;
+		int sinceYear2000 = 0;
+
+		// Act
+		for (int i = 0; i < SIZE; i++) {
+			Book book = catalogue.book(i);
+			booksByAuthor.merge(book.getAuthor(), 1, Integer::sum);
+			if (book.getBookStatus() == BookStatus.BORROWED) {
+				borrowed++;
+			}
+			if (book.getPublicationYear() >= 2000) {
+				sinceYear2000++;
+			}
+			assertTrue(book.getPublicationYear() >= 1800 && book.getPublicationYear() <= 2023);
+		}
+
+		// Assert
+		int evenShare = SIZE / catalogue.getAuthorCount();
+		int mostProlific = booksByAuthor.get(catalogue.author(0));
+		assertTrue(mostProlific > 50 * evenShare, "most prolific author has " + mostProlific);
+		assertTrue(booksByAuthor.values().stream().filter(count -> count <= 2).count() > booksByAuthor.size() / 4);
+		assertTrue(borrowed > SIZE * 0.08 && borrowed < SIZE * 0.12, borrowed + " borrowed");
+		assertTrue(sinceYear2000 > SIZE / 2, sinceYear2000 + " since 2000");
+	}
+}
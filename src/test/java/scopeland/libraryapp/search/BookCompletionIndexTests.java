@@ -0,0 +1,70 @@
+package scopeland.libraryapp.search;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.entities.dtos.CompletionsDto;
+import scopeland.libraryapp.enums.BookStatus;
+
+/*
+ * Unit tests for the title and author typeahead at its phrase cap, no Spring
+ * context needed
+ */
+public class BookCompletionIndexTests {
+
+	private BookCompletionIndex index;
+
+	@BeforeEach
+	public void setUp() {
+		// Room for one title and one author
+		index = new BookCompletionIndex(2);
+		index.bookSaved(new Book("9781473619791", "The Long Way to a Small Angry Planet", "Becky Chambers", 2014,
+				BookStatus.AVAILABLE));
+	}
+
+	/*
+	 * At the cap a book by a known author still counts towards that author, its
+	 * new title is refused
+	 */
+	@Test
+	public void givenCapReached_whenBookByKnownAuthor_thenAuthorCounted() {
+
+		// Arrange
+		index.bookSaved(
+				new Book("9780345391803", "Record of a Spaceborn Few", "Becky Chambers", 2018, BookStatus.AVAILABLE));
+		index.bookSaved(new Book("9780062877239", "Chilling Effect", "Valerie Valdes", 2019, BookStatus.BORROWED));
+
+		// Act
+		index.bookDeleted("9781473619791");
+
+		// Assert
+		assertEquals(List.of("Becky Chambers"), index.complete("becky", null).getAuthors());
+		assertEquals(List.of(), index.complete("record", null).getTitles());
+		assertEquals(List.of(), index.complete("valerie", null).getAuthors());
+		assertEquals(0, index.stats().getTitlePhrases());
+		assertEquals(1, index.stats().getAuthorPhrases());
+	}
+
+	/*
+	 * Removing a book counted at the cap takes back only what it added
+	 */
+	@Test
+	public void givenBookCountedAtCap_whenDeleted_thenEarlierBookStillOffered() {
+
+		// Arrange
+		index.bookSaved(
+				new Book("9780345391803", "Record of a Spaceborn Few", "Becky Chambers", 2018, BookStatus.AVAILABLE));
+
+		// Act
+		index.bookDeleted("9780345391803");
+
+		// Assert
+		assertEquals(List.of("The Long Way to a Small Angry Planet"), index.complete("the long", null).getTitles());
+		assertEquals(List.of("Becky Chambers"), index.complete("becky", null).getAuthors());
+	}
+}
@@ -0,0 +1,111 @@
+package scopeland.libraryapp.search;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.enums.BookStatus;
+
+/*
+ * Unit tests for the in-memory full text index, no Spring context needed
+ */
+public class BookSearchIndexTests {
+
+	private BookSearchIndex index;
+
+	@BeforeEach
+	public void setUp() {
+		index = new BookSearchIndex();
+		index.bookSaved(new Book("9781473619791", "The Long Way to a Small Angry Planet", "Becky Chambers", 2014,
+				BookStatus.AVAILABLE));
+		index.bookSaved(
+				new Book("9780062959041", "To be Taught if Fortunate", "Becky Chambers", 2018, BookStatus.AVAILABLE));
+		index.bookSaved(new Book("9780062877239", "Chilling Effect", "Valerie Valdes", 2019, BookStatus.BORROWED));
+	}
+
+	/*
+	 * Every query term has to match, in either the title or the author
+	 */
+	@Test
+	public void givenBooks_whenSearchTitleAndAuthorTerms_thenOnlyBooksWithAllTermsReturned() {
+
+		// Act
+		List<Book> results = index.search("angry CHAMBERS", null);
+
+		// Assert
+		assertEquals(1, results.size());
+		assertEquals("9781473619791", results.get(0).getIsbn());
+	}
+
+	/*
+	 * A match in a short title ranks above the same match in a long one
+	 */
+	@Test
+	public void givenBooksSharingATerm_whenSearch_thenShorterBookRankedFirst() {
+
+		// Act
+		List<Book> results = index.search("becky", null);
+
+		// Assert
+		assertEquals(2, results.size());
+		assertEquals("9780062959041", results.get(0).getIsbn());
+		assertEquals("9781473619791", results.get(1).getIsbn());
+	}
+
+	/*
+	 * Updating a book replaces its old terms, deleting it removes them all
+	 */
+	@Test
+	public void givenUpdatesAndDeletes_whenSearch_thenIndexFollowsChanges() {
+
+		// Act
+		index.bookSaved(new Book("9780062877239", "Flight of the Aurora", "Valerie Valdes", 2021,
+				BookStatus.AVAILABLE));
+		index.bookDeleted("9781473619791");
+
+		// Assert
+		assertTrue(index.search("chilling", null).isEmpty());
+		assertEquals(1, index.search("aurora", null).size());
+		assertEquals(BookStatus.AVAILABLE, index.search("aurora", null).get(0).getBookStatus());
+		assertTrue(index.search("angry", null).isEmpty());
+		assertEquals(2, index.documentCount());
+	}
+
+	/*
+	 * The index stays correct after enough churn to trigger a compaction
+	 */
+	@Test
+	public void givenHeavyChurn_whenSearch_thenResultsStillCorrect() {
+
+		// Act
+		for (int i = 0; i < 5000; i++) {
+			index.bookSaved(new Book(String.format("990%010d", i % 100), "Churn Title " + i, "Churn Author", 2000,
+					BookStatus.AVAILABLE));
+		}
+
+		// Assert
+		assertEquals(103, index.documentCount());
+		assertEquals(100, index.search("churn author", 100).size());
+		assertEquals(1, index.search("churn 4999", null).size());
+		assertTrue(index.search("churn 0", null).isEmpty());
+		assertEquals(2, index.search("becky chambers", null).size());
+	}
+
+	/*
+	 * Queries with no usable terms return nothing rather than everything
+	 */
+	@Test
+	public void givenPunctuationOnlyQuery_whenSearch_thenEmptyResults() {
+
+		// Act
+		List<Book> results = index.search("  -- !! ", null);
+
+		// Assert
+		assertTrue(results.isEmpty());
+	}
+}
@@ -0,0 +1,129 @@
+package scopeland.libraryapp.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Unit tests for the radix tree behind the typeahead, no Spring context needed
+ */
+public class CompletionTrieTests {
+
+	/*
+	 * Completions are matched ignoring case and the most used come first
+	 */
+	@Test
+	public void givenPhrases_whenComplete_thenMostUsedFirst() {
+
+		// Arrange
+		CompletionTrie trie = new CompletionTrie(10);
+		trie.add("Becky Chambers");
+		trie.add("Becky Chambers");
+		trie.add("Beck");
+		trie.add("Valerie Valdes");
+
+		// Act
+		List<CompletionTrie.Completion> results = trie.complete("BEC", 10);
+
+		// Assert
+		assertEquals(2, results.size());
+		assertEquals("Becky Chambers", results.get(0).text());
+		assertEquals(2, results.get(0).count());
+		assertEquals("Beck", results.get(1).text());
+		assertTrue(trie.complete("becky chambersx", 10).isEmpty());
+	}
+
+	/*
+	 * Removing the last use of a phrase drops it and re-compresses the tree
+	 */
+	@Test
+	public void givenRemovedPhrases_whenComplete_thenNoLongerSuggested() {
+
+		// Arrange
+		CompletionTrie trie = new CompletionTrie(10);
+		trie.add("Chilling Effect");
+		trie.add("Chilling Out");
+		int nodesWithBoth = trie.nodeCount();
+
+		// Act
+		trie.remove("Chilling Out");
+
+		// Assert
+		assertEquals(1, trie.complete("chill", 10).size());
+		assertEquals("Chilling Effect", trie.complete("chilling e", 10).get(0).text());
+		assertTrue(trie.nodeCount() < nodesWithBoth);
+		assertEquals(1, trie.phraseCount());
+	}
+
+	/*
+	 * Adding to an existing phrase counts it without growing the tree, a new
+	 * phrase is refused
+	 */
+	@Test
+	public void givenStoredPhrase_whenAddExisting_thenOnlyCountChanges() {
+
+		// Arrange
+		CompletionTrie trie = new CompletionTrie(10);
+		trie.add("Chilling Effect");
+		int nodes = trie.nodeCount();
+
+		// Act
+		boolean counted = trie.addExisting("chilling effect");
+		boolean refused = !trie.addExisting("Chilling Out");
+
+		// Assert
+		assertTrue(counted);
+		assertTrue(refused);
+		assertEquals(nodes, trie.nodeCount());
+		assertEquals(1, trie.phraseCount());
+		assertEquals(2, trie.complete("chill", 10).get(0).count());
+	}
+
+	/*
+	 * Random adds and removes give the same answers as a brute force scan
+	 */
+	@Test
+	public void givenRandomChurn_whenComplete_thenMatchesBruteForce() {
+
+		// Arrange
+		CompletionTrie trie = new CompletionTrie(5);
+		Map<String, Integer> counts = new TreeMap<>();
+		Random random = new Random(42);
+		String[] words = { "a", "ab", "abc", "abd", "b", "ba", "bab", "the", "then", "there", "them" };
+
+		// Act
+		for (int i = 0; i < 20000; i++) {
+			String phrase = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+			if (random.nextInt(3) == 0 && counts.containsKey(phrase)) {
+				trie.remove(phrase);
+				counts.merge(phrase, -1, Integer::sum);
+				counts.remove(phrase, 0);
+			} else {
+				trie.add(phrase);
+				counts.merge(phrase, 1, Integer::sum);
+			}
+		}
+
+		// Assert
+		for (String prefix : new String[] { "a", "ab", "a a", "abc t", "th", "the", "them", "b", "z" }) {
+			List<String> expected = new ArrayList<>();
+			counts.entrySet().stream()
+					.filter(entry -> entry.getKey().startsWith(prefix))
+					.sorted(Comparator.comparing((Map.Entry<String, Integer> entry) -> -entry.getValue())
+							.thenComparing(Map.Entry::getKey))
+					.limit(5)
+					.forEach(entry -> expected.add(entry.getKey()));
+			List<String> actual = trie.complete(prefix, 5).stream().map(CompletionTrie.Completion::key).toList();
+			assertEquals(expected, actual, "prefix " + prefix);
+		}
+		assertEquals(counts.size(), trie.phraseCount());
+	}
+}
@@ -0,0 +1,152 @@
+package scopeland.libraryapp.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.enums.BookStatus;
+
+/*
+ * Unit tests for the typo tolerant index and its word index, no Spring context
+ * needed
+ */
+public class FuzzyBookIndexTests {
+
+	private FuzzyBookIndex index;
+
+	@BeforeEach
+	public void setUp() {
+		index = new FuzzyBookIndex();
+		index.bookSaved(new Book("9781473619791", "The Long Way to a Small Angry Planet", "Becky Chambers", 2014,
+				BookStatus.AVAILABLE));
+		index.bookSaved(
+				new Book("9780062959041", "To be Taught if Fortunate", "Becky Chambers", 2018, BookStatus.AVAILABLE));
+		index.bookSaved(new Book("9780062877239", "Chilling Effect", "Valerie Valdes", 2019, BookStatus.BORROWED));
+	}
+
+	/*
+	 * A misspelled author name still finds their books
+	 */
+	@Test
+	public void givenMisspelledAuthor_whenSearchAuthors_thenBooksReturned() {
+
+		// Act
+		List<String> results = index.searchAuthors("Beky Chambrs");
+
+		// Assert
+		assertEquals(List.of("9780062959041", "9781473619791"), results);
+	}
+
+	/*
+	 * Books needing fewer edits are ranked first
+	 */
+	@Test
+	public void givenCloserAndFurtherTitles_whenSearchTitles_thenClosestFirst() {
+
+		// Arrange
+		index.bookSaved(new Book("9780000000002", "Chiling Effect", "Someone Else", 2020, BookStatus.AVAILABLE));
+
+		// Act
+		List<String> results = index.searchTitles("chiling efect");
+
+		// Assert
+		assertEquals(List.of("9780000000002", "9780062877239"), results);
+	}
+
+	/*
+	 * Short words have to match exactly, otherwise they would match almost
+	 * anything
+	 */
+	@Test
+	public void givenShortWordTypo_whenSearchTitles_thenNoMatch() {
+
+		// Act
+		List<String> results = index.searchTitles("bi");
+
+		// Assert
+		assertEquals(List.of(), results);
+	}
+
+	/*
+	 * Updated and deleted books stop matching their old words
+	 */
+	@Test
+	public void givenBookChanged_whenSearch_thenOldWordsNoLongerMatch() {
+
+		// Act
+		index.bookSaved(new Book("9780062877239", "Chilling Effect", "Val Valdes", 2019, BookStatus.BORROWED));
+		index.bookDeleted("9780062959041");
+
+		// Assert
+		assertEquals(List.of(), index.searchAuthors("valerie"));
+		assertEquals(List.of("9780062877239"), index.searchAuthors("vall valdez"));
+		assertEquals(List.of(), index.searchTitles("fortunate"));
+	}
+
+	/*
+	 * The word index finds exactly the words a brute force scan finds
+	 */
+	@Test
+	public void givenRandomWords_whenWordIndexSearch_thenSameAsBruteForce() {
+
+		// Arrange
+		Random random = new Random(42);
+		FuzzyWordIndex wordIndex = new FuzzyWordIndex();
+		Set<String> words = new TreeSet<>();
+		for (int i = 0; i < 2000; i++) {
+			String word = randomWord(random);
+			words.add(word);
+			wordIndex.add(word);
+		}
+
+		for (int i = 0; i < 200; i++) {
+			String query = randomWord(random);
+			int maxDistance = random.nextInt(3);
+
+			// Act
+			Set<String> found = new TreeSet<>();
+			wordIndex.search(query, maxDistance).forEach(match -> found.add(match.word()));
+
+			// Assert
+			List<String> expected = new ArrayList<>();
+			for (String word : words) {
+				if (FuzzyWordIndex.distance(query, word) <= maxDistance) {
+					expected.add(word);
+				}
+			}
+			assertEquals(expected, new ArrayList<>(found), query);
+		}
+		assertEquals(words.size(), wordIndex.size());
+	}
+
+	/*
+	 * Levenshtein distance counts insertions, deletions and substitutions
+	 */
+	@Test
+	public void givenWordPairs_whenDistance_thenEditCountReturned() {
+
+		// Assert
+		assertEquals(0, FuzzyWordIndex.distance("chambers", "chambers"));
+		assertEquals(1, FuzzyWordIndex.distance("chambers", "chambrs"));
+		assertEquals(1, FuzzyWordIndex.distance("chambers", "chanbers"));
+		assertEquals(2, FuzzyWordIndex.distance("chambers", "hcambers"));
+		assertEquals(3, FuzzyWordIndex.distance("kitten", "sitting"));
+		assertEquals(5, FuzzyWordIndex.distance("", "becky"));
+	}
+
+	private static String randomWord(Random random) {
+		char[] letters = new char[3 + random.nextInt(5)];
+		for (int i = 0; i < letters.length; i++) {
+			letters[i] = (char) ('a' + random.nextInt(4));
+		}
+		return new String(letters);
+	}
+}
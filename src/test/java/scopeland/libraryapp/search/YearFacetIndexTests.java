@@ -0,0 +1,103 @@
+package scopeland.libraryapp.search;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.entities.dtos.YearCountDto;
+import scopeland.libraryapp.entities.dtos.YearFacetsDto;
+import scopeland.libraryapp.enums.BookStatus;
+import scopeland.libraryapp.enums.YearBucket;
+
+/*
+ * Unit tests for the running publication year counts, no Spring context needed
+ */
+public class YearFacetIndexTests {
+
+	private YearFacetIndex index;
+
+	@BeforeEach
+	public void setUp() {
+		index = new YearFacetIndex();
+		index.bookSaved(new Book("9781473619791", "The Long Way to a Small Angry Planet", "Becky Chambers", 2014,
+				BookStatus.AVAILABLE));
+		index.bookSaved(
+				new Book("9780062959041", "To be Taught if Fortunate", "Becky Chambers", 2018, BookStatus.AVAILABLE));
+		index.bookSaved(new Book("9780062877239", "Chilling Effect", "Valerie Valdes", 2019, BookStatus.BORROWED));
+		index.bookSaved(new Book("9780345391803", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
+				BookStatus.AVAILABLE));
+	}
+
+	/*
+	 * Each year holding books gets its own count, in year order
+	 */
+	@Test
+	public void givenBooks_whenFacetByYear_thenOneCountPerYear() {
+
+		// Act
+		YearFacetsDto facets = index.facets(YearBucket.YEAR, null, null, null);
+
+		// Assert
+		assertEquals(List.of("1979-1979:1", "2014-2014:1", "2018-2018:1", "2019-2019:1"), describe(facets));
+		assertEquals(4L, facets.getTotal());
+	}
+
+	/*
+	 * Decades add up their years, and a range cuts the buckets at its ends
+	 */
+	@Test
+	public void givenRange_whenFacetByDecade_thenBucketsCutToRange() {
+
+		// Act
+		YearFacetsDto all = index.facets(YearBucket.DECADE, null, null, null);
+		YearFacetsDto range = index.facets(YearBucket.DECADE, null, 1975, 2015);
+
+		// Assert
+		assertEquals(List.of("1970-1979:1", "2010-2019:3"), describe(all));
+		assertEquals(List.of("1975-1979:1", "2010-2015:1"), describe(range));
+		assertEquals(2L, range.getTotal());
+	}
+
+	/*
+	 * Only books with the status asked for are counted
+	 */
+	@Test
+	public void givenStatus_whenFacet_thenOnlyThatStatusCounted() {
+
+		// Act
+		YearFacetsDto borrowed = index.facets(YearBucket.DECADE, BookStatus.BORROWED, null, null);
+
+		// Assert
+		assertEquals(List.of("2010-2019:1"), describe(borrowed));
+	}
+
+	/*
+	 * Updates move a book between counts and deletes take it out
+	 */
+	@Test
+	public void givenBookChanged_whenFacet_thenCountsMoved() {
+
+		// Act
+		index.bookSaved(new Book("9780062877239", "Chilling Effect", "Valerie Valdes", 2020, BookStatus.AVAILABLE));
+		index.bookSaved(new Book("9780062877239", "Chilling Effect", "Valerie Valdes", 2020, BookStatus.AVAILABLE));
+		index.bookDeleted("9780345391803");
+		index.bookDeleted("9780345391803");
+
+		// Assert
+		assertEquals(List.of("2014-2014:1", "2018-2018:1", "2020-2020:1"),
+				describe(index.facets(YearBucket.YEAR, null, null, null)));
+		assertEquals(List.of(), describe(index.facets(YearBucket.YEAR, BookStatus.BORROWED, null, null)));
+	}
+
+	private static List<String> describe(YearFacetsDto facets) {
+		return facets.getCounts().stream().map(YearFacetIndexTests::describe).toList();
+	}
+
+	private static String describe(YearCountDto count) {
+		return count.getStartYear() + "-" + count.getEndYear() + ":" + count.getCount();
+	}
+}
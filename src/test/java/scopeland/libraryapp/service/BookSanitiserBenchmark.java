@@ -0,0 +1,50 @@
+package scopeland.libraryapp.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.Jsoup;
+import org.jsoup.safety.Safelist;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * JMH comparison of cleaning one title or author with Jsoup.clean, as every
+ * write used to, against BookSanitiser. Not a test, run main with the test
+ * classpath or mvn -Pbenchmarks verify.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookSanitiserBenchmark {
+
+	@Param({ "Becky Chambers", "The Long Way to a Small, Angry Planet", "Guards! Guards!<script>alert(1)</script>" })
+	public String value;
+
+	@Benchmark
+	public String jsoupClean() {
+		return Jsoup.clean(value, Safelist.basic());
+	}
+
+	@Benchmark
+	public String bookSanitiser() {
+		return BookSanitiser.clean(value);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(BookSanitiserBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,91 @@
+package scopeland.libraryapp.service;
+
+import java.util.List;
+import java.util.Random;
+
+import org.jsoup.Jsoup;
+import org.jsoup.safety.Safelist;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.enums.BookStatus;
+
+/*
+ * Unit tests for the sanitiser, which must always match Jsoup.clean with the
+ * basic safelist exactly, no Spring context needed
+ */
+public class BookSanitiserTests {
+
+	/*
+	 * Plain names and titles skip Jsoup, anything it would change doesn't
+	 */
+	@Test
+	public void givenValues_whenCheckPlainText_thenOnlyUnchangedValuesAreSkipped() {
+
+		// Arrange
+		List<String> plain = List.of("", "Becky Chambers", "The Long Way to a Small, Angry Planet",
+				"Guards! Guards!", "\"Quoted\" and 'not'", "Gabriel García Márquez", "1984");
+		List<String> markup = List.of("Guards! Guards!<script>alert(1)</script>", "Fish & Chips", "a > b",
+				" Leading", "Trailing ", "Double  space", "Tab\there", "Line\nbreak", "No\u00A0break",
+				"Soft\u00ADhyphen", "Zero\u200Bwidth", "Emoji \uD83D\uDCDA");
+
+		// Act & Assert
+		for (String value : plain) {
+			assertTrue(BookSanitiser.isPlainText(value), value);
+			assertEquals(Jsoup.clean(value, Safelist.basic()), value);
+		}
+		for (String value : markup) {
+			assertFalse(BookSanitiser.isPlainText(value), value);
+			assertEquals(Jsoup.clean(value, Safelist.basic()), BookSanitiser.clean(value));
+		}
+	}
+
+	/*
+	 * Random mixes of letters, spaces, markup and awkward characters clean to
+	 * exactly what Jsoup.clean gives
+	 */
+	@Test
+	public void givenRandomValues_whenClean_thenSameAsJsoup() {
+
+		// Arrange
+		char[] alphabet = ("aZ9 .,!?'\"/=;#-<>&\t\n\r\f\u0000\u007F\u0085\u00A0\u00ADéß\u200B\u2028"
+				+ "\u3000\uD83D\uDCDA\uD800").toCharArray();
+		Random random = new Random(42);
+
+		// Act & Assert
+		for (int i = 0; i < 20000; i++) {
+			StringBuilder value = new StringBuilder();
+			int length = random.nextInt(12);
+			for (int j = 0; j < length; j++) {
+				// Mostly letters and spaces, like real titles
+				value.append(random.nextInt(3) == 0 ? alphabet[random.nextInt(alphabet.length)]
+						: alphabet[random.nextInt(4)]);
+			}
+			assertEquals(Jsoup.clean(value.toString(), Safelist.basic()), BookSanitiser.clean(value.toString()),
+					value.toString());
+		}
+	}
+
+	/*
+	 * Both free text fields are cleaned and missing ones are left for validation
+	 */
+	@Test
+	public void givenBook_whenSanitise_thenTitleAndAuthorCleaned() {
+
+		// Arrange
+		Book book = new Book("9780552166591", "Guards! Guards!<script>alert(1)</script>", null, 1989,
+				BookStatus.AVAILABLE);
+
+		// Act
+		new BookSanitiser().sanitise(book);
+
+		// Assert
+		assertEquals("Guards! Guards!", book.getTitle());
+		assertNull(book.getAuthor());
+	}
+}
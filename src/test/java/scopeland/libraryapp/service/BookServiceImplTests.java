@@ -0,0 +1,232 @@
+package scopeland.libraryapp.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import jakarta.persistence.EntityManagerFactory;
+import scopeland.libraryapp.LibraryappApplication;
+import scopeland.libraryapp.entities.Book;
+import scopeland.libraryapp.entities.dtos.StatusChangeResultDto;
+import scopeland.libraryapp.enums.BookStatus;
+import scopeland.libraryapp.enums.StatusChangeOutcome;
+import scopeland.libraryapp.exceptions.BookAlreadyBorrowedException;
+import scopeland.libraryapp.exceptions.BookAlreadyExistsException;
+import scopeland.libraryapp.exceptions.BookNotFoundException;
+import scopeland.libraryapp.repositories.interfaces.IBookRepository;
+
+/*
+ * Checks each book write costs the database a single statement, found or not
+ * Counts the statements Hibernate prepares, initial data from the DatabaseLoader
+ */
+@SpringBootTest(classes = LibraryappApplication.class)
+@TestPropertySource(locations = "classpath:application-integrationtest.properties", properties = {
+		"spring.datasource.url=jdbc:h2:mem:servicetestdb",
+		"spring.jpa.properties.hibernate.generate_statistics=true" })
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class BookServiceImplTests {
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private IBookRepository bookRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	public void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	/*
+	 * Adding a book is one INSERT, and so is finding out it already exists
+	 */
+	@Test
+	public void givenBooks_whenAddBook_thenOneStatementEach() {
+
+		// Arrange - Some handled by Database Loader
+		Book newBook = new Book("9780345391803", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
+				BookStatus.AVAILABLE);
+		Book existingBook = new Book("9781473619791", "The Long Way to a Small Angry Planet", "Becky Chambers", 2014,
+				BookStatus.AVAILABLE);
+
+		// Act
+		bookService.addBook(newBook);
+		long addStatements = statistics.getPrepareStatementCount();
+		statistics.clear();
+		assertThrows(BookAlreadyExistsException.class, () -> bookService.addBook(existingBook));
+		long duplicateStatements = statistics.getPrepareStatementCount();
+
+		// Assert
+		assertEquals(1, addStatements);
+		assertEquals(1, duplicateStatements);
+		assertEquals("Douglas Adams", bookRepository.findById("9780345391803").get().getAuthor());
+	}
+
+	/*
+	 * Updating a book is one UPDATE, and so is finding out it doesn't exist
+	 */
+	@Test
+	public void givenBooks_whenUpdateBook_thenOneStatementEach() {
+
+		// Arrange - Some handled by Database Loader
+		Book updatedBook = new Book("9781473619791", "The Long Way to a Small, Angry Planet", "Becky Chambers", 2015,
+				BookStatus.BORROWED);
+		Book missingBook = new Book("9780345391803", "The Hitchhiker's Guide to the Galaxy", "Douglas Adams", 1979,
+				BookStatus.AVAILABLE);
+
+		// Act
+		bookService.updateBook(updatedBook, "9781473619791");
+		long updateStatements = statistics.getPrepareStatementCount();
+		statistics.clear();
+		assertThrows(BookNotFoundException.class, () -> bookService.updateBook(missingBook, "9780345391803"));
+		long missingStatements = statistics.getPrepareStatementCount();
+
+		// Assert
+		assertEquals(1, updateStatements);
+		assertEquals(1, missingStatements);
+		assertEquals(updatedBook, bookRepository.findById("9781473619791").get());
+		assertFalse(bookRepository.existsById("9780345391803"));
+	}
+
+	/*
+	 * Deleting a book is one DELETE, and so is finding out it doesn't exist
+	 */
+	@Test
+	public void givenBooks_whenDeleteBook_thenOneStatementEach() {
+
+		// Arrange - Already handled by Database Loader
+
+		// Act
+		bookService.deleteBookByIsbn("9780062877239");
+		long deleteStatements = statistics.getPrepareStatementCount();
+		statistics.clear();
+		assertThrows(BookNotFoundException.class, () -> bookService.deleteBookByIsbn("9780062877239"));
+		long missingStatements = statistics.getPrepareStatementCount();
+
+		// Assert
+		assertEquals(1, deleteStatements);
+		assertEquals(1, missingStatements);
+		assertFalse(bookRepository.existsById("9780062877239"));
+	}
+
+	/*
+	 * Borrowing is one UPDATE and a read of the borrowed book, a book already
+	 * borrowed or missing is the UPDATE and a check it exists
+	 */
+	@Test
+	public void givenBooks_whenBorrowBook_thenOneStatementEach() throws Exception {
+
+		// Arrange - Already handled by Database Loader
+
+		// Act
+		Book borrowed = bookService.updateBookStatus("9781473619791", BookStatus.BORROWED);
+		long borrowStatements = statistics.getPrepareStatementCount();
+		statistics.clear();
+		assertThrows(BookAlreadyBorrowedException.class,
+				() -> bookService.updateBookStatus("9781473619791", BookStatus.BORROWED));
+		long borrowedStatements = statistics.getPrepareStatementCount();
+		statistics.clear();
+		assertThrows(BookNotFoundException.class,
+				() -> bookService.updateBookStatus("9780345391803", BookStatus.BORROWED));
+		long missingStatements = statistics.getPrepareStatementCount();
+
+		// Assert
+		assertEquals(2, borrowStatements);
+		assertEquals(2, borrowedStatements);
+		assertEquals(2, missingStatements);
+		assertEquals(BookStatus.BORROWED, borrowed.getBookStatus());
+		assertEquals(BookStatus.BORROWED, bookRepository.findById("9781473619791").get().getBookStatus());
+	}
+
+	/*
+	 * Borrowing a stack of books is a locking SELECT and one UPDATE, however many
+	 * there are
+	 */
+	@Test
+	public void givenBooks_whenBorrowBatch_thenTwoStatements() {
+
+		// Arrange - Already handled by Database Loader
+
+		// Act
+		StatusChangeResultDto result = bookService.updateBookStatuses(
+				List.of("9781473619791", "9780062959041", "9780062877239", "9780345391803"), BookStatus.BORROWED);
+
+		// Assert
+		assertEquals(2, statistics.getPrepareStatementCount());
+		assertEquals(2, result.getCounts().get(StatusChangeOutcome.UPDATED));
+		assertEquals(BookStatus.BORROWED, bookRepository.findById("9780062959041").get().getBookStatus());
+	}
+
+	/*
+	 * Many borrowers racing for the same book, round after round, only ever
+	 * produce one winner. Prints the borrows attempted per second on the hot isbn.
+	 */
+	@Test
+	public void givenConcurrentBorrowers_whenBorrowSameBook_thenExactlyOneWins() throws Exception {
+
+		// Arrange
+		int borrowers = 8;
+		int rounds = 50;
+		ExecutorService executor = Executors.newFixedThreadPool(borrowers);
+		int attempts = 0;
+		long start = System.nanoTime();
+
+		// Act
+		try {
+			for (int round = 0; round < rounds; round++) {
+				CountDownLatch gate = new CountDownLatch(1);
+				List<Future<Boolean>> results = new ArrayList<>();
+				for (int i = 0; i < borrowers; i++) {
+					results.add(executor.submit(() -> {
+						gate.await();
+						try {
+							bookService.updateBookStatus("9781473619791", BookStatus.BORROWED);
+							return true;
+						} catch (BookAlreadyBorrowedException e) {
+							return false;
+						}
+					}));
+				}
+				gate.countDown();
+				int winners = 0;
+				for (Future<Boolean> result : results) {
+					winners += result.get() ? 1 : 0;
+				}
+				attempts += borrowers;
+
+				// Assert
+				assertEquals(1, winners, "round " + round);
+				bookService.updateBookStatus("9781473619791", BookStatus.AVAILABLE);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("Concurrent borrows of one book: %d attempts, %.0f per second%n", attempts,
+				attempts / seconds);
+		assertEquals(BookStatus.AVAILABLE, bookRepository.findById("9781473619791").get().getBookStatus());
+	}
+}
@@ -0,0 +1,200 @@
+package scopeland.libraryapp.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import scopeland.libraryapp.LibraryappApplication;
+import scopeland.libraryapp.enums.BookStatus;
+import scopeland.libraryapp.exceptions.NoCopyAvailableException;
+import scopeland.libraryapp.repositories.interfaces.IBookRepository;
+import scopeland.libraryapp.repositories.interfaces.IHoldingRepository;
+
+/*
+ * Races many borrowers over the copies of one popular book, and checks the
+ * counts recover when the database disagrees with them
+ * Initial test data generated from the DatabaseLoader
+ */
+@SpringBootTest(classes = LibraryappApplication.class)
+@TestPropertySource(locations = "classpath:application-integrationtest.properties", properties = {
+		"spring.datasource.url=jdbc:h2:mem:circulationservicetestdb" })
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class CirculationServiceImplTests {
+
+	private static final String ISBN = "9781473619791";
+
+	@Autowired
+	private CirculationService circulationService;
+
+	@Autowired
+	private IHoldingRepository holdingRepository;
+
+	@Autowired
+	private IBookRepository bookRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	/*
+	 * However many borrowers rush a book, exactly as many checkouts succeed as
+	 * there are copies, and the database agrees with the counts
+	 */
+	@Test
+	public void givenRush_whenCheckOut_thenOneCopyPerWinner() throws Exception {
+
+		// Arrange
+		int copies = 5;
+		int borrowers = 16;
+		circulationService.setTotalCopies(ISBN, copies);
+		ExecutorService executor = Executors.newFixedThreadPool(borrowers);
+		CountDownLatch gate = new CountDownLatch(1);
+		List<Future<Boolean>> results = new ArrayList<>();
+
+		// Act
+		try {
+			for (int i = 0; i < borrowers; i++) {
+				results.add(executor.submit(() -> {
+					gate.await();
+					try {
+						circulationService.checkOut(ISBN);
+						return true;
+					} catch (NoCopyAvailableException e) {
+						return false;
+					}
+				}));
+			}
+			gate.countDown();
+		} finally {
+			executor.shutdown();
+		}
+		int winners = 0;
+		for (Future<Boolean> result : results) {
+			winners += result.get() ? 1 : 0;
+		}
+
+		// Assert
+		assertEquals(copies, winners);
+		assertEquals(0, holdingRepository.findById(ISBN).get().getAvailableCopies());
+		assertEquals(0, circulationService.getHolding(ISBN).getAvailableCopies());
+		assertEquals(BookStatus.BORROWED, bookRepository.findById(ISBN).get().getBookStatus());
+	}
+
+	/*
+	 * Borrowers checking out and returning the same few copies over and over
+	 * never take more copies than there are, and every copy is back at the end.
+	 * Prints the checkouts and returns per second on the one book.
+	 */
+	@Test
+	public void givenBusyBook_whenCheckOutAndReturn_thenCopiesBalance() throws Exception {
+
+		// Arrange
+		int copies = 3;
+		int borrowers = 8;
+		int attemptsEach = 100;
+		circulationService.setTotalCopies(ISBN, copies);
+		ExecutorService executor = Executors.newFixedThreadPool(borrowers);
+		AtomicInteger operations = new AtomicInteger();
+		AtomicInteger onLoan = new AtomicInteger();
+		AtomicInteger mostOnLoan = new AtomicInteger();
+		List<Future<?>> results = new ArrayList<>();
+		long start = System.nanoTime();
+
+		// Act
+		try {
+			for (int i = 0; i < borrowers; i++) {
+				results.add(executor.submit(() -> {
+					for (int attempt = 0; attempt < attemptsEach; attempt++) {
+						try {
+							circulationService.checkOut(ISBN);
+						} catch (NoCopyAvailableException e) {
+							operations.incrementAndGet();
+							continue;
+						}
+						mostOnLoan.accumulateAndGet(onLoan.incrementAndGet(), Math::max);
+						onLoan.decrementAndGet();
+						circulationService.checkIn(ISBN);
+						operations.addAndGet(2);
+					}
+				}));
+			}
+			for (Future<?> result : results) {
+				result.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("Checkouts and returns of one book with %d copies: %d operations, %.0f per second%n",
+				copies, operations.get(), operations.get() / seconds);
+
+		// Assert
+		assertTrue(mostOnLoan.get() <= copies);
+		assertEquals(copies, holdingRepository.findById(ISBN).get().getAvailableCopies());
+		assertEquals(copies, circulationService.getHolding(ISBN).getAvailableCopies());
+		assertEquals(BookStatus.AVAILABLE, bookRepository.findById(ISBN).get().getBookStatus());
+	}
+
+	/*
+	 * When the database has fewer copies on the shelf than counted, the turned
+	 * down checkout counts them again and marks the book as borrowed
+	 */
+	@Test
+	public void givenDatabaseBehindCounts_whenCheckOut_thenCountsResynced() {
+
+		// Arrange - The database lends both copies without the counter knowing
+		circulationService.setTotalCopies(ISBN, 2);
+		holdingRepository.checkOut(ISBN);
+		holdingRepository.checkOut(ISBN);
+
+		// Act
+		assertThrows(NoCopyAvailableException.class, () -> circulationService.checkOut(ISBN));
+
+		// Assert
+		assertEquals(0, circulationService.getHolding(ISBN).getAvailableCopies());
+		assertEquals(2, circulationService.getHolding(ISBN).getTotalCopies());
+		assertEquals(BookStatus.BORROWED, bookRepository.findById(ISBN).get().getBookStatus());
+		circulationService.checkIn(ISBN);
+		assertEquals(1, circulationService.getHolding(ISBN).getAvailableCopies());
+		assertEquals(BookStatus.AVAILABLE, bookRepository.findById(ISBN).get().getBookStatus());
+	}
+
+	/*
+	 * A checkout in a transaction that rolls back leaves the copy counted on the
+	 * shelf, like the database
+	 */
+	@Test
+	public void givenRolledBackTransaction_whenCheckOut_thenCopyCountedAgain() {
+
+		// Arrange
+		circulationService.setTotalCopies(ISBN, 1);
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+		// Act
+		transaction.executeWithoutResult(status -> {
+			circulationService.checkOut(ISBN);
+			status.setRollbackOnly();
+		});
+
+		// Assert
+		assertEquals(1, holdingRepository.findById(ISBN).get().getAvailableCopies());
+		assertEquals(1, circulationService.getHolding(ISBN).getAvailableCopies());
+		assertEquals(BookStatus.AVAILABLE, bookRepository.findById(ISBN).get().getBookStatus());
+	}
+}
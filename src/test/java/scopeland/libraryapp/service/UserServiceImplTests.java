@@ -0,0 +1,56 @@
+package scopeland.libraryapp.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import scopeland.libraryapp.LibraryappApplication;
+import scopeland.libraryapp.entities.Role;
+import scopeland.libraryapp.entities.User;
+import scopeland.libraryapp.entities.dtos.UserDto;
+import scopeland.libraryapp.repositories.interfaces.IRoleRepository;
+
+/*
+ * Registers users and checks they can sign in with the admin role
+ */
+@SpringBootTest(classes = LibraryappApplication.class)
+@TestPropertySource(locations = "classpath:application-integrationtest.properties", properties = {
+		"spring.datasource.url=jdbc:h2:mem:usertestdb" })
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class UserServiceImplTests {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private CustomerUserDetailsService userDetailsService;
+
+	@Autowired
+	private IRoleRepository roleRepository;
+
+	/*
+	 * Every registered user gets the one ROLE_ADMIN role, created by the first
+	 * registration and shared by the rest
+	 */
+	@Test
+	public void givenNewUsers_whenSaveUser_thenEachSignsInAsAdmin() {
+
+		// Act
+		userService.saveUser(new UserDto(null, "Becky", "Chambers", "becky@scopeland.com", "password"));
+		userService.saveUser(new UserDto(null, "Valerie", "Valdes", "valerie@scopeland.com", "password"));
+
+		// Assert
+		User user = userService.findUserByEmail("valerie@scopeland.com");
+		assertEquals("Valerie Valdes", user.getName());
+		assertEquals("ROLE_ADMIN", user.getRoles().get(0).getName());
+		assertEquals(1, roleRepository.findAll().stream().map(Role::getName).filter("ROLE_ADMIN"::equals).count());
+		assertEquals("ROLE_ADMIN", userDetailsService.loadUserByUsername("becky@scopeland.com").getAuthorities()
+				.stream().map(GrantedAuthority::getAuthority).findFirst().orElse(null));
+	}
+}
@@ -0,0 +1,48 @@
+package scopeland.libraryapp.validation.books;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/*
+ * Unit tests for the canonical isbn form, no Spring context needed
+ */
+public class IsbnNormaliserTests {
+
+	/*
+	 * Dashes and spaces are dropped from an ISBN-13
+	 */
+	@Test
+	public void givenFormattedIsbn13_whenCanonical_thenDigitsOnly() {
+
+		// Act & Assert
+		assertEquals("9780062959041", IsbnNormaliser.canonical("9780062959041"));
+		assertEquals("9780062959041", IsbnNormaliser.canonical("978-0-06-295904-1"));
+		assertEquals("9780062959041", IsbnNormaliser.canonical("978 0062959041"));
+	}
+
+	/*
+	 * An ISBN-10 becomes the 978 ISBN-13, with the check digit worked out again
+	 */
+	@Test
+	public void givenIsbn10_whenCanonical_thenIsbn13() {
+
+		// Act & Assert
+		assertEquals("9780306406157", IsbnNormaliser.canonical("0306406152"));
+		assertEquals("9780804429573", IsbnNormaliser.canonical("0-8044-2957-X"));
+		assertEquals("9781473619791", IsbnNormaliser.canonical("1 4736 1979 3"));
+	}
+
+	/*
+	 * Anything that isn't a valid isbn is left as sent, for validation to report
+	 */
+	@Test
+	public void givenInvalidIsbn_whenCanonical_thenUnchanged() {
+
+		// Act & Assert
+		assertEquals("978-0-06-295904-2", IsbnNormaliser.canonical("978-0-06-295904-2"));
+		assertEquals("978147H614133", IsbnNormaliser.canonical("978147H614133"));
+		assertNull(IsbnNormaliser.canonical(null));
+	}
+}
@@ -0,0 +1,52 @@
+package scopeland.libraryapp.validation.books.validator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * JMH comparison of checking one isbn with the replaceAll and String.matches
+ * checks IsbnValidator used to make, against its single pass check. Not a test,
+ * run main with the test classpath or mvn -Pbenchmarks verify.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IsbnValidatorBenchmark {
+
+	@Param({ "9781473619791", "978-1-4736-1979-1", "978147H614133" })
+	public String isbn;
+
+	@Benchmark
+	public boolean replaceAllAndMatches() {
+		String digits = isbn.replaceAll("-", "");
+		digits = digits.replaceAll(" ", "");
+		boolean isLengthValid = digits.length() == 10 || digits.length() == 13;
+		boolean isFormatValid = isbn.matches("^([0-9]|-| )*$");
+		return isLengthValid && isFormatValid;
+	}
+
+	@Benchmark
+	public int singlePass() {
+		return IsbnValidator.check(isbn);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(IsbnValidatorBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,73 @@
+package scopeland.libraryapp.validation.books.validator;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+ * Unit tests for the single pass isbn checks, no Spring context needed
+ */
+public class IsbnValidatorTests {
+
+	/*
+	 * Real ISBN-10s and ISBN-13s pass, split up by dashes or spaces or not
+	 */
+	@Test
+	public void givenValidIsbns_whenCheck_thenNoProblems() {
+
+		// Act & Assert
+		assertEquals(0, IsbnValidator.check("9781473619791"));
+		assertEquals(0, IsbnValidator.check("978-1-4736-1979-1"));
+		assertEquals(0, IsbnValidator.check("978 1473619791"));
+		assertEquals(0, IsbnValidator.check("0306406152"));
+		assertEquals(0, IsbnValidator.check("0-8044-2957-X"));
+		assertEquals(0, IsbnValidator.check("080442957x"));
+	}
+
+	/*
+	 * A wrong check digit is only reported once the length and characters are
+	 * right
+	 */
+	@Test
+	public void givenWrongCheckDigit_whenCheck_thenCheckDigitInvalid() {
+
+		// Act & Assert
+		assertEquals(IsbnValidator.CHECK_DIGIT_INVALID, IsbnValidator.check("9781473619792"));
+		assertEquals(IsbnValidator.CHECK_DIGIT_INVALID, IsbnValidator.check("0306406153"));
+		assertEquals(IsbnValidator.CHECK_DIGIT_INVALID, IsbnValidator.check("030640615X"));
+		assertEquals(IsbnValidator.LENGTH_INVALID, IsbnValidator.check("97814736197"));
+	}
+
+	/*
+	 * Letters count towards the length as they always have, and X is only allowed
+	 * as the last character of an ISBN-10
+	 */
+	@Test
+	public void givenBadCharacters_whenCheck_thenFormatInvalid() {
+
+		// Act & Assert
+		assertEquals(IsbnValidator.FORMAT_INVALID, IsbnValidator.check("978147H614133"));
+		assertEquals(IsbnValidator.FORMAT_INVALID, IsbnValidator.check("97814736197X1"));
+		assertEquals(IsbnValidator.FORMAT_INVALID, IsbnValidator.check("978147361979X"));
+		assertEquals(IsbnValidator.FORMAT_INVALID, IsbnValidator.check("08044295X7"));
+		assertEquals(IsbnValidator.LENGTH_INVALID | IsbnValidator.FORMAT_INVALID, IsbnValidator.check("isbn"));
+		assertEquals(IsbnValidator.LENGTH_INVALID, IsbnValidator.check(""));
+	}
+
+	/*
+	 * Adds the check digit to the first 12 digits of an ISBN-13, for tests that
+	 * need many valid isbns
+	 * 
+	 * @param first12Digits - The isbn without its check digit
+	 * 
+	 * @return - The full isbn
+	 */
+	public static String isbn13(long first12Digits) {
+		String digits = String.valueOf(first12Digits);
+		int sum = 0;
+		for (int i = 0; i < 12; i++) {
+			sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		}
+		return digits + (10 - sum % 10) % 10;
+	}
+}